@@ -0,0 +1,138 @@
+package edu.columbia.quidditch.basic;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * The view frustum of the current projection and model-view matrices, used to
+ * skip models which cannot be seen
+ */
+public class Frustum
+{
+	private static final int PLANE_COUNT = 6;
+
+	private FloatBuffer modelViewBuffer;
+	private float[] proj, modelView, clip;
+
+	// Each plane is (a, b, c, d), where ax + by + cz + d >= 0 is inside
+	private float[][] planes;
+
+	// Position of the eye in world coordinates
+	private float eyeX, eyeY, eyeZ;
+
+	public Frustum()
+	{
+		modelViewBuffer = BufferUtils.createFloatBuffer(16);
+
+		proj = new float[16];
+		modelView = new float[16];
+		clip = new float[16];
+
+		planes = new float[PLANE_COUNT][4];
+	}
+
+	/**
+	 * Rebuild the planes from the projection matrix and the current
+	 * model-view matrix
+	 * 
+	 * @param projBuffer
+	 */
+	public void update(FloatBuffer projBuffer)
+	{
+		glGetFloat(GL_MODELVIEW_MATRIX, modelViewBuffer);
+
+		for (int i = 0; i < 16; ++i)
+		{
+			proj[i] = projBuffer.get(projBuffer.position() + i);
+			modelView[i] = modelViewBuffer.get(i);
+		}
+
+		// The model-view matrix is a rotation and a translation, so the eye is
+		// at -R^T * t
+		float tX = modelView[12], tY = modelView[13], tZ = modelView[14];
+
+		eyeX = -(modelView[0] * tX + modelView[1] * tY + modelView[2] * tZ);
+		eyeY = -(modelView[4] * tX + modelView[5] * tY + modelView[6] * tZ);
+		eyeZ = -(modelView[8] * tX + modelView[9] * tY + modelView[10] * tZ);
+
+		// Matrices are column-major, clip = proj * modelView
+		for (int col = 0; col < 4; ++col)
+		{
+			for (int row = 0; row < 4; ++row)
+			{
+				float sum = 0;
+
+				for (int k = 0; k < 4; ++k)
+				{
+					sum += proj[k * 4 + row] * modelView[col * 4 + k];
+				}
+
+				clip[col * 4 + row] = sum;
+			}
+		}
+
+		// Left, right, bottom, top, near and far planes
+		for (int i = 0; i < PLANE_COUNT; ++i)
+		{
+			int row = i / 2;
+			float sign = i % 2 == 0 ? 1 : -1;
+
+			float[] plane = planes[i];
+
+			for (int col = 0; col < 4; ++col)
+			{
+				plane[col] = clip[col * 4 + 3] + sign * clip[col * 4 + row];
+			}
+		}
+	}
+
+	/**
+	 * Check whether an axis-aligned box is at least partly inside the frustum
+	 * 
+	 * @param minX
+	 * @param minY
+	 * @param minZ
+	 * @param maxX
+	 * @param maxY
+	 * @param maxZ
+	 * @return
+	 */
+	public boolean intersectsBox(float minX, float minY, float minZ,
+			float maxX, float maxY, float maxZ)
+	{
+		for (int i = 0; i < PLANE_COUNT; ++i)
+		{
+			float[] plane = planes[i];
+
+			// The corner farthest along the normal of the plane
+			float x = plane[0] > 0 ? maxX : minX;
+			float y = plane[1] > 0 ? maxY : minY;
+			float z = plane[2] > 0 ? maxZ : minZ;
+
+			if (plane[0] * x + plane[1] * y + plane[2] * z + plane[3] < 0)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	public float getEyeX()
+	{
+		return eyeX;
+	}
+
+	public float getEyeY()
+	{
+		return eyeY;
+	}
+
+	public float getEyeZ()
+	{
+		return eyeZ;
+	}
+}
@@ -0,0 +1,68 @@
+package edu.columbia.quidditch.basic;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Pixels of an image decoded for a texture. Decoding does not need OpenGL,
+ * so it can be done in any thread, and only uploading is left for the
+ * OpenGL thread
+ */
+public class TextureData
+{
+	private int width, height;
+
+	// RGBA bytes of each pixel, row by row
+	private ByteBuffer pixels;
+
+	/**
+	 * Decode an image file
+	 * 
+	 * @param imageName
+	 * @return
+	 * @throws IOException
+	 */
+	public static TextureData decode(String imageName) throws IOException
+	{
+		BufferedImage image = ImageIO.read(new File(imageName));
+
+		if (image == null)
+		{
+			throw new IOException("Unsupported image " + imageName);
+		}
+
+		return new TextureData(image);
+	}
+
+	/**
+	 * Convert an image to pixels
+	 * 
+	 * @param image
+	 */
+	public TextureData(BufferedImage image)
+	{
+		width = image.getWidth();
+		height = image.getHeight();
+
+		pixels = Texture.image2Buffer(image);
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public ByteBuffer getPixels()
+	{
+		return pixels;
+	}
+}
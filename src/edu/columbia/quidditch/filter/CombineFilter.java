@@ -1,26 +1,151 @@
-package edu.columbia.quidditch.filter;
-
-/**
- * Combine different kinds of filters
- * 
- * @author Yuqing Guan
- * 
- */
-public class CombineFilter extends Filter
-{
-	public CombineFilter(int halfWidth, int halfHeight)
-	{
-		super(halfWidth, halfHeight);
-	}
-
-	public void addFilter(Filter otherFilter, float weight)
-	{
-		for (int j = 0; j < height; ++j)
-		{
-			for (int i = 0; i < width; ++i)
-			{
-				matrix[j][i] += otherFilter.matrix[j][i] * weight;
-			}
-		}
-	}
-}
+package edu.columbia.quidditch.filter;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Combine different kinds of filters
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public class CombineFilter extends Filter
+{
+	private ArrayList<Filter> filters;
+	private ArrayList<Float> weights;
+
+	// Intermediate maps of the filters, kept for the next call
+	private Heightfield[] buffers;
+
+	public CombineFilter(int halfWidth, int halfHeight)
+	{
+		super(halfWidth, halfHeight);
+
+		filters = new ArrayList<Filter>();
+		weights = new ArrayList<Float>();
+	}
+
+	/**
+	 * Add a weighted filter. The filter is kept so that its own fast
+	 * convolution can be used, and its matrix is added to the combined matrix
+	 * for the FFT convolution
+	 * 
+	 * @param otherFilter
+	 * @param weight
+	 */
+	public void addFilter(Filter otherFilter, float weight)
+	{
+		for (int j = 0; j < height; ++j)
+		{
+			for (int i = 0; i < width; ++i)
+			{
+				matrix[j][i] += otherFilter.matrix[j][i] * weight;
+			}
+		}
+
+		if (otherFilter instanceof CombineFilter)
+		{
+			CombineFilter otherCombine = (CombineFilter) otherFilter;
+
+			for (int k = 0; k < otherCombine.filters.size(); ++k)
+			{
+				filters.add(otherCombine.filters.get(k));
+				weights.add(otherCombine.weights.get(k) * weight);
+			}
+		}
+		else
+		{
+			filters.add(otherFilter);
+			weights.add(weight);
+		}
+	}
+
+	/**
+	 * The filters are applied one after another on each element
+	 * 
+	 * @return
+	 */
+	@Override
+	public int getTapCount()
+	{
+		int tapCount = 0;
+
+		for (Filter filter : filters)
+		{
+			tapCount += filter.getTapCount();
+		}
+
+		return tapCount;
+	}
+
+	/**
+	 * Compute the weighted sum of the filters in one pass over the source and
+	 * one pass over the destination. In the first pass every filter reads the
+	 * same band of the source into its own buffer, and in the second pass
+	 * every filter adds its weighted result to the same destination. The
+	 * intermediate maps of the filters are kept for the next map of the same
+	 * size, while the scratch rows of each band are allocated per call
+	 * 
+	 * @param src
+	 * @param dst
+	 *            a cleared map, to which the second pass adds
+	 * @param pool
+	 */
+	@Override
+	protected void convoluteDirect(final Heightfield src,
+			final Heightfield dst, ForkJoinPool pool)
+	{
+		int srcHeight = src.getRows();
+		int srcWidth = src.getCols();
+
+		final int size = filters.size();
+
+		if (buffers == null || buffers.length != size)
+		{
+			buffers = new Heightfield[size];
+		}
+
+		final Heightfield[] tmps = buffers;
+		final float[] filterWeights = new float[size];
+
+		for (int k = 0; k < size; ++k)
+		{
+			if (filters.get(k).needsBuffer())
+			{
+				tmps[k] = reuseBuffer(tmps[k], srcHeight, srcWidth);
+			}
+
+			filterWeights[k] = weights.get(k);
+		}
+
+		forEachBand(pool, srcHeight, new RowBand()
+		{
+			@Override
+			public void compute(int fromRow, int toRow)
+			{
+				for (int k = 0; k < size; ++k)
+				{
+					if (tmps[k] != null)
+					{
+						filters.get(k).filterRows(src, tmps[k], fromRow, toRow);
+					}
+				}
+			}
+		});
+
+		forEachBand(pool, srcHeight, new RowBand()
+		{
+			@Override
+			public void compute(int fromRow, int toRow)
+			{
+				for (int k = 0; k < size; ++k)
+				{
+					filters.get(k).accumulateRows(src, tmps[k], dst,
+							filterWeights[k], fromRow, toRow);
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,277 @@
+package edu.columbia.quidditch.filter;
+
+/**
+ * One-dimensional discrete Fourier transform of a fixed length. Powers of two
+ * use the iterative radix-2 algorithm, other lengths (such as the 320 columns
+ * of the terrain) are turned into a power-of-two convolution by Bluestein's
+ * algorithm
+ */
+class FFT
+{
+	private int n, m;
+	private boolean bluestein;
+
+	// Twiddle factors and bit reversal table of the power-of-two transform
+	private double[] cos, sin;
+	private int[] reverse;
+
+	// Chirp sequence and the transformed chirp filter for Bluestein
+	private double[] chirpRe, chirpIm, filterRe, filterIm;
+
+	public FFT(int n)
+	{
+		this.n = n;
+
+		bluestein = Integer.bitCount(n) != 1;
+
+		m = n;
+
+		if (bluestein)
+		{
+			m = Integer.highestOneBit(n * 2 - 1);
+
+			if (m < n * 2 - 1)
+			{
+				m <<= 1;
+			}
+		}
+
+		initRadix2();
+
+		if (bluestein)
+		{
+			initBluestein();
+		}
+	}
+
+	/**
+	 * Precompute twiddle factors and bit reversal table
+	 */
+	private void initRadix2()
+	{
+		cos = new double[m / 2];
+		sin = new double[m / 2];
+
+		for (int k = 0; k < m / 2; ++k)
+		{
+			double angle = 2 * Math.PI * k / m;
+
+			cos[k] = StrictMath.cos(angle);
+			sin[k] = StrictMath.sin(angle);
+		}
+
+		reverse = new int[m];
+
+		int bits = Integer.numberOfTrailingZeros(m);
+
+		for (int i = 0; i < m; ++i)
+		{
+			reverse[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+		}
+	}
+
+	/**
+	 * Precompute the chirp sequence exp(-i * pi * k^2 / n) and the transform
+	 * of its conjugate
+	 */
+	private void initBluestein()
+	{
+		chirpRe = new double[n];
+		chirpIm = new double[n];
+
+		for (int k = 0; k < n; ++k)
+		{
+			// Reduce k^2 modulo 2n to keep the angle accurate
+			long square = (long) k * k % (2L * n);
+			double angle = Math.PI * square / n;
+
+			chirpRe[k] = StrictMath.cos(angle);
+			chirpIm[k] = -StrictMath.sin(angle);
+		}
+
+		filterRe = new double[m];
+		filterIm = new double[m];
+
+		filterRe[0] = chirpRe[0];
+		filterIm[0] = -chirpIm[0];
+
+		for (int k = 1; k < n; ++k)
+		{
+			filterRe[k] = filterRe[m - k] = chirpRe[k];
+			filterIm[k] = filterIm[m - k] = -chirpIm[k];
+		}
+
+		radix2(filterRe, filterIm);
+	}
+
+	/**
+	 * Length of the work arrays required by transform
+	 * 
+	 * @return
+	 */
+	public int getWorkSize()
+	{
+		return bluestein ? m : 0;
+	}
+
+	/**
+	 * Transform the sequence in place. The inverse transform is scaled by 1/n,
+	 * so that transforming forward and backward gives the original sequence
+	 * 
+	 * @param re
+	 * @param im
+	 * @param inverse
+	 * @param workRe
+	 *            work array of getWorkSize() elements
+	 * @param workIm
+	 *            work array of getWorkSize() elements
+	 */
+	public void transform(double[] re, double[] im, boolean inverse,
+			double[] workRe, double[] workIm)
+	{
+		// The inverse transform is the conjugate of the forward transform of
+		// the conjugate
+		if (inverse)
+		{
+			conjugate(im, n);
+		}
+
+		if (bluestein)
+		{
+			transformBluestein(re, im, workRe, workIm);
+		}
+		else
+		{
+			radix2(re, im);
+		}
+
+		if (inverse)
+		{
+			conjugate(im, n);
+
+			double scale = 1.0 / n;
+
+			for (int k = 0; k < n; ++k)
+			{
+				re[k] *= scale;
+				im[k] *= scale;
+			}
+		}
+	}
+
+	/**
+	 * Compute the transform as a circular convolution of length m with the
+	 * chirp filter
+	 * 
+	 * @param re
+	 * @param im
+	 * @param workRe
+	 * @param workIm
+	 */
+	private void transformBluestein(double[] re, double[] im,
+			double[] workRe, double[] workIm)
+	{
+		for (int k = 0; k < n; ++k)
+		{
+			workRe[k] = re[k] * chirpRe[k] - im[k] * chirpIm[k];
+			workIm[k] = re[k] * chirpIm[k] + im[k] * chirpRe[k];
+		}
+
+		for (int k = n; k < m; ++k)
+		{
+			workRe[k] = workIm[k] = 0;
+		}
+
+		radix2(workRe, workIm);
+
+		// Multiply by the filter, then take the inverse transform by
+		// conjugating before and after the forward transform
+		for (int k = 0; k < m; ++k)
+		{
+			double r = workRe[k] * filterRe[k] - workIm[k] * filterIm[k];
+			double i = workRe[k] * filterIm[k] + workIm[k] * filterRe[k];
+
+			workRe[k] = r;
+			workIm[k] = -i;
+		}
+
+		radix2(workRe, workIm);
+
+		double scale = 1.0 / m;
+
+		for (int k = 0; k < n; ++k)
+		{
+			double r = workRe[k] * scale;
+			double i = -workIm[k] * scale;
+
+			re[k] = r * chirpRe[k] - i * chirpIm[k];
+			im[k] = r * chirpIm[k] + i * chirpRe[k];
+		}
+	}
+
+	/**
+	 * Iterative radix-2 forward transform of the first m elements
+	 * 
+	 * @param re
+	 * @param im
+	 */
+	private void radix2(double[] re, double[] im)
+	{
+		for (int i = 0; i < m; ++i)
+		{
+			int j = reverse[i];
+
+			if (j > i)
+			{
+				double tmp = re[i];
+				re[i] = re[j];
+				re[j] = tmp;
+
+				tmp = im[i];
+				im[i] = im[j];
+				im[j] = tmp;
+			}
+		}
+
+		for (int size = 2; size <= m; size <<= 1)
+		{
+			int half = size / 2;
+			int step = m / size;
+
+			for (int start = 0; start < m; start += size)
+			{
+				for (int k = 0; k < half; ++k)
+				{
+					double wr = cos[k * step];
+					double wi = -sin[k * step];
+
+					int a = start + k;
+					int b = a + half;
+
+					double tr = wr * re[b] - wi * im[b];
+					double ti = wr * im[b] + wi * re[b];
+
+					re[b] = re[a] - tr;
+					im[b] = im[a] - ti;
+
+					re[a] += tr;
+					im[a] += ti;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Negate the first count imaginary parts
+	 * 
+	 * @param im
+	 * @param count
+	 */
+	private static void conjugate(double[] im, int count)
+	{
+		for (int k = 0; k < count; ++k)
+		{
+			im[k] = -im[k];
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package edu.columbia.quidditch.filter;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Two-dimensional discrete Fourier transform, computed as one-dimensional
+ * transforms of every row and then of every column
+ */
+class FFT2D
+{
+	private int rows, cols;
+	private FFT rowFFT, colFFT;
+
+	public FFT2D(int rows, int cols)
+	{
+		this.rows = rows;
+		this.cols = cols;
+
+		rowFFT = new FFT(cols);
+		colFFT = cols == rows ? rowFFT : new FFT(rows);
+	}
+
+	/**
+	 * Transform the matrix in place
+	 * 
+	 * @param re
+	 * @param im
+	 * @param inverse
+	 * @param pool
+	 *            null for computing in the current thread
+	 */
+	public void transform(final double[][] re, final double[][] im,
+			final boolean inverse, ForkJoinPool pool)
+	{
+		Filter.forEachBand(pool, rows, new RowBand()
+		{
+			@Override
+			public void compute(int fromRow, int toRow)
+			{
+				int workSize = rowFFT.getWorkSize();
+
+				double[] workRe = new double[workSize];
+				double[] workIm = new double[workSize];
+
+				for (int y = fromRow; y < toRow; ++y)
+				{
+					rowFFT.transform(re[y], im[y], inverse, workRe, workIm);
+				}
+			}
+		});
+
+		// Bands of columns, each column is copied out, transformed and copied
+		// back
+		Filter.forEachBand(pool, cols, new RowBand()
+		{
+			@Override
+			public void compute(int fromCol, int toCol)
+			{
+				int workSize = colFFT.getWorkSize();
+
+				double[] workRe = new double[workSize];
+				double[] workIm = new double[workSize];
+
+				double[] colRe = new double[rows];
+				double[] colIm = new double[rows];
+
+				for (int x = fromCol; x < toCol; ++x)
+				{
+					for (int y = 0; y < rows; ++y)
+					{
+						colRe[y] = re[y][x];
+						colIm[y] = im[y][x];
+					}
+
+					colFFT.transform(colRe, colIm, inverse, workRe, workIm);
+
+					for (int y = 0; y < rows; ++y)
+					{
+						re[y][x] = colRe[y];
+						im[y][x] = colIm[y];
+					}
+				}
+			}
+		});
+	}
+}
@@ -1,98 +1,569 @@
-package edu.columbia.quidditch.filter;
-
-/**
- * Abstract filter class
- * 
- * @author Yuqing Guan
- * 
- */
-public abstract class Filter
-{
-	protected int width, height, halfWidth, halfHeight, noElements;
-	protected float[][] matrix;
-
-	public Filter(int halfWidth, int halfHeight)
-	{
-		this.halfWidth = halfWidth;
-		this.halfHeight = halfHeight;
-
-		width = halfWidth * 2 + 1;
-		height = halfHeight * 2 + 1;
-
-		noElements = width * height;
-
-		matrix = new float[height][width];
-	}
-
-	/**
-	 * Use neighboring elements to compute filtered value If an element is at a
-	 * corner or an edge, I will use elements on the opposite corner or edge as
-	 * its neighboring elements, so the smoothed map can be repeated seamlessly
-	 * 
-	 * @param src
-	 * @return
-	 */
-	public float[][] convolute(float[][] src)
-	{
-		int srcHeight = src.length;
-		int srcWidth = src[0].length;
-
-		float[][] dst = new float[srcHeight][srcWidth];
-
-		for (int y = 0; y < srcHeight; ++y)
-		{
-			for (int x = 0; x < srcWidth; ++x)
-			{
-				for (int j = 0; j < height; ++j)
-				{
-					int offsetY = j - halfHeight;
-
-					for (int i = 0; i < width; ++i)
-					{
-						int offsetX = i - halfWidth;
-
-						dst[y][x] += matrix[j][i]
-								* getElement(src, y - offsetY, x - offsetX);
-					}
-				}
-			}
-		}
-
-		return dst;
-	}
-
-	/**
-	 * Get element from the matrix if the location is out of the matrix move it
-	 * to the corresponding location in the matrix
-	 * 
-	 * @param src
-	 * @param y
-	 * @param x
-	 * @return
-	 */
-	private float getElement(float[][] src, int y, int x)
-	{
-		int srcHeight = src.length;
-		int srcWidth = src[0].length;
-
-		if (x < 0)
-		{
-			x += srcWidth;
-		}
-		else if (x >= srcWidth)
-		{
-			x -= srcWidth;
-		}
-
-		if (y < 0)
-		{
-			y += srcHeight;
-		}
-		else if (y >= srcHeight)
-		{
-			y -= srcHeight;
-		}
-
-		return src[y][x];
-	}
-}
+package edu.columbia.quidditch.filter;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Abstract filter class
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public abstract class Filter
+{
+	// Number of rows computed together, in both serial and parallel mode
+	static final int BAND_ROWS = 8;
+
+	// Filters needing more taps per element than this use FFT
+	public static final int DEFAULT_FFT_THRESHOLD = 1024;
+
+	// Rows shorter than this are filtered element by element
+	static final int MIN_SEGMENT = 16;
+
+	private static ForkJoinPool defaultPool = null;
+
+	private static volatile int fftThreshold = DEFAULT_FFT_THRESHOLD;
+
+	// Run with -Dquidditch.scalarFilters=true to compare with the scalar loops
+	private static volatile boolean segmentKernels = !Boolean
+			.getBoolean("quidditch.scalarFilters");
+
+	/**
+	 * Set how many taps per element a filter may need before the convolution
+	 * is computed by FFT instead
+	 * 
+	 * @param threshold
+	 */
+	public static void setFftThreshold(int threshold)
+	{
+		fftThreshold = threshold;
+	}
+
+	public static int getFftThreshold()
+	{
+		return fftThreshold;
+	}
+
+	/**
+	 * Choose whether direct convolutions walk halo-padded row segments, which
+	 * the JIT compiler can turn into SIMD instructions, or use the scalar
+	 * loops wrapping every index. Both give identical results
+	 * 
+	 * @param enabled
+	 */
+	public static void setSegmentKernels(boolean enabled)
+	{
+		segmentKernels = enabled;
+	}
+
+	public static boolean isSegmentKernels()
+	{
+		return segmentKernels;
+	}
+
+	/**
+	 * Whether the rows of a map are long enough for the segment kernels
+	 * 
+	 * @param src
+	 * @return
+	 */
+	protected static boolean useSegments(Heightfield src)
+	{
+		return segmentKernels && src.getCols() >= MIN_SEGMENT;
+	}
+
+	/**
+	 * Get the pool shared by parallel convolutions
+	 * 
+	 * @return
+	 */
+	public static synchronized ForkJoinPool getDefaultPool()
+	{
+		if (defaultPool == null)
+		{
+			defaultPool = new ForkJoinPool();
+		}
+
+		return defaultPool;
+	}
+
+	/**
+	 * Run a piece of work on every band of rows. If the pool is null, the
+	 * bands are computed one by one in the current thread
+	 * 
+	 * @param pool
+	 * @param rows
+	 * @param band
+	 */
+	protected static void forEachBand(ForkJoinPool pool, int rows,
+			RowBand band)
+	{
+		int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+
+		if (pool == null || bands <= 1)
+		{
+			for (int fromRow = 0; fromRow < rows; fromRow += BAND_ROWS)
+			{
+				band.compute(fromRow, Math.min(fromRow + BAND_ROWS, rows));
+			}
+		}
+		else
+		{
+			pool.invoke(new RowBandTask(band, 0, bands, rows));
+		}
+	}
+
+	protected int width, height, halfWidth, halfHeight, noElements;
+	protected float[][] matrix;
+
+	// Intermediate map of the direct convolution, kept for the next call
+	private Heightfield buffer;
+
+	public Filter(int halfWidth, int halfHeight)
+	{
+		this.halfWidth = halfWidth;
+		this.halfHeight = halfHeight;
+
+		width = halfWidth * 2 + 1;
+		height = halfHeight * 2 + 1;
+
+		noElements = width * height;
+
+		matrix = new float[height][width];
+	}
+
+	/**
+	 * Use neighboring elements to compute filtered value If an element is at a
+	 * corner or an edge, I will use elements on the opposite corner or edge as
+	 * its neighboring elements, so the smoothed map can be repeated seamlessly
+	 * 
+	 * @param src
+	 * @return
+	 */
+	public Heightfield convolute(Heightfield src)
+	{
+		return convolute(src, null);
+	}
+
+	/**
+	 * Convolute with bands of rows computed in a fork/join pool. The result is
+	 * identical to the serial version. Large filters, or filters larger than
+	 * the map, are computed by FFT
+	 * 
+	 * @param src
+	 * @param pool
+	 *            null for computing in the current thread
+	 * @return
+	 */
+	public Heightfield convolute(Heightfield src, ForkJoinPool pool)
+	{
+		return convolute(src, new Heightfield(src.getRows(), src.getCols()),
+				pool);
+	}
+
+	/**
+	 * Convolute into a map given by the caller, so that one map can be reused
+	 * for every convolution of the same size. The intermediate map of the
+	 * direct convolution is kept between calls as well, so a filter must not
+	 * be used by two convolutions at the same time. Only these two maps are
+	 * reused: each band still allocates its own padded rows and row sums,
+	 * and the FFT allocates its matrices on every call
+	 * 
+	 * @param src
+	 * @param dst
+	 *            a map of the same size as the source, which is overwritten
+	 * @param pool
+	 *            null for computing in the current thread
+	 * @return dst
+	 */
+	public Heightfield convolute(Heightfield src, Heightfield dst,
+			ForkJoinPool pool)
+	{
+		if (dst == src)
+		{
+			throw new IllegalArgumentException(
+					"Cannot convolute a map into itself");
+		}
+
+		if (dst.getRows() != src.getRows() || dst.getCols() != src.getCols())
+		{
+			throw new IllegalArgumentException(
+					"Destination size differs from source size");
+		}
+
+		if (getTapCount() > fftThreshold || width > src.getCols()
+				|| height > src.getRows())
+		{
+			convoluteFFT(src, dst, pool);
+		}
+		else
+		{
+			Arrays.fill(dst.getData(), 0);
+			convoluteDirect(src, dst, pool);
+		}
+
+		return dst;
+	}
+
+	/**
+	 * Get a buffer of the given size, reusing the one passed in if it fits
+	 * 
+	 * @param buffer
+	 *            null if there is none yet
+	 * @param rows
+	 * @param cols
+	 * @return
+	 */
+	protected static Heightfield reuseBuffer(Heightfield buffer, int rows,
+			int cols)
+	{
+		if (buffer != null && buffer.getRows() == rows
+				&& buffer.getCols() == cols)
+		{
+			return buffer;
+		}
+
+		return new Heightfield(rows, cols);
+	}
+
+	/**
+	 * Number of multiply-adds needed by convoluteDirect for each element
+	 * 
+	 * @return
+	 */
+	public int getTapCount()
+	{
+		return noElements;
+	}
+
+	/**
+	 * Convolute by summing the weighted neighbors of each element. Filters
+	 * which need an intermediate buffer fill it in a first pass over the
+	 * source
+	 * 
+	 * @param src
+	 * @param dst
+	 *            a cleared map, to which the second pass adds
+	 * @param pool
+	 */
+	protected void convoluteDirect(final Heightfield src,
+			final Heightfield dst, ForkJoinPool pool)
+	{
+		int srcHeight = src.getRows();
+		int srcWidth = src.getCols();
+
+		final Heightfield tmp;
+
+		if (needsBuffer())
+		{
+			tmp = buffer = reuseBuffer(buffer, srcHeight, srcWidth);
+
+			forEachBand(pool, srcHeight, new RowBand()
+			{
+				@Override
+				public void compute(int fromRow, int toRow)
+				{
+					filterRows(src, tmp, fromRow, toRow);
+				}
+			});
+		}
+		else
+		{
+			tmp = null;
+		}
+
+		forEachBand(pool, srcHeight, new RowBand()
+		{
+			@Override
+			public void compute(int fromRow, int toRow)
+			{
+				accumulateRows(src, tmp, dst, 1.0f, fromRow, toRow);
+			}
+		});
+	}
+
+	/**
+	 * Whether filterRows writes an intermediate buffer used by accumulateRows
+	 * 
+	 * @return
+	 */
+	protected boolean needsBuffer()
+	{
+		return false;
+	}
+
+	/**
+	 * First pass of the direct convolution, from the source into the
+	 * intermediate buffer
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param fromRow
+	 * @param toRow
+	 */
+	protected void filterRows(Heightfield src, Heightfield tmp, int fromRow,
+			int toRow)
+	{
+	}
+
+	/**
+	 * Second pass of the direct convolution, adding the weighted filtered
+	 * values to the destination
+	 * 
+	 * @param src
+	 * @param tmp
+	 *            the intermediate buffer, or null if it is not needed
+	 * @param dst
+	 * @param weight
+	 * @param fromRow
+	 * @param toRow
+	 */
+	protected void accumulateRows(Heightfield src, Heightfield tmp,
+			Heightfield dst, float weight, int fromRow, int toRow)
+	{
+		if (useSegments(src))
+		{
+			accumulateSegments(src, dst, weight, fromRow, toRow);
+		}
+		else
+		{
+			accumulateScalar(src, dst, weight, fromRow, toRow);
+		}
+	}
+
+	/**
+	 * Add each tap to a whole row at once. Every row of the band is read from
+	 * a halo-padded copy, so the innermost loop is a plain multiply-add over
+	 * consecutive elements. Taps are added in the same order as in the scalar
+	 * loop, so the sums are identical
+	 * 
+	 * @param src
+	 * @param dst
+	 * @param weight
+	 * @param fromRow
+	 * @param toRow
+	 */
+	private void accumulateSegments(Heightfield src, Heightfield dst,
+			float weight, int fromRow, int toRow)
+	{
+		int srcWidth = src.getCols();
+
+		HaloRows halo = new HaloRows(src, fromRow, toRow, halfWidth,
+				halfHeight);
+
+		float[] haloData = halo.getData();
+		float[] dstData = dst.getData();
+		float[] sums = new float[srcWidth];
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			Arrays.fill(sums, 0);
+
+			for (int j = 0; j < height; ++j)
+			{
+				int offsetY = j - halfHeight;
+				int rowOffset = halo.getRowOffset(y - offsetY);
+
+				for (int i = 0; i < width; ++i)
+				{
+					int offsetX = i - halfWidth;
+
+					float tap = matrix[j][i];
+					int haloOffset = rowOffset - offsetX;
+
+					for (int x = 0; x < srcWidth; ++x)
+					{
+						sums[x] += tap * haloData[haloOffset + x];
+					}
+				}
+			}
+
+			int dstOffset = dst.getRowOffset(y);
+
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				dstData[dstOffset + x] += weight * sums[x];
+			}
+		}
+	}
+
+	/**
+	 * Sum the weighted neighbors element by element, wrapping every index
+	 * 
+	 * @param src
+	 * @param dst
+	 * @param weight
+	 * @param fromRow
+	 * @param toRow
+	 */
+	private void accumulateScalar(Heightfield src, Heightfield dst,
+			float weight, int fromRow, int toRow)
+	{
+		int srcWidth = src.getCols();
+		float[] dstData = dst.getData();
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			int dstOffset = dst.getRowOffset(y);
+
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				float sum = 0;
+
+				for (int j = 0; j < height; ++j)
+				{
+					int offsetY = j - halfHeight;
+
+					for (int i = 0; i < width; ++i)
+					{
+						int offsetX = i - halfWidth;
+
+						sum += matrix[j][i]
+								* getElement(src, y - offsetY, x - offsetX);
+					}
+				}
+
+				dstData[dstOffset + x] += weight * sum;
+			}
+		}
+	}
+
+	/**
+	 * Compute the circular convolution by FFT, which wraps around the edges
+	 * naturally. The map and the filter are transformed together as the real
+	 * and imaginary parts of a single matrix
+	 * 
+	 * @param src
+	 * @param dst
+	 * @param pool
+	 */
+	protected void convoluteFFT(Heightfield src, Heightfield dst,
+			ForkJoinPool pool)
+	{
+		final int srcHeight = src.getRows();
+		final int srcWidth = src.getCols();
+
+		final double[][] re = new double[srcHeight][srcWidth];
+		final double[][] im = new double[srcHeight][srcWidth];
+
+		for (int y = 0; y < srcHeight; ++y)
+		{
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				re[y][x] = src.get(y, x);
+			}
+		}
+
+		// Put the matrix centered at the origin, wrapping around the edges
+		for (int j = 0; j < height; ++j)
+		{
+			int y = mod(j - halfHeight, srcHeight);
+
+			for (int i = 0; i < width; ++i)
+			{
+				int x = mod(i - halfWidth, srcWidth);
+				im[y][x] += matrix[j][i];
+			}
+		}
+
+		FFT2D fft = new FFT2D(srcHeight, srcWidth);
+		fft.transform(re, im, false, pool);
+
+		final double[][] productRe = new double[srcHeight][srcWidth];
+		final double[][] productIm = new double[srcHeight][srcWidth];
+
+		// Separate the two spectra by their symmetry and multiply them
+		forEachBand(pool, srcHeight, new RowBand()
+		{
+			@Override
+			public void compute(int fromRow, int toRow)
+			{
+				for (int y = fromRow; y < toRow; ++y)
+				{
+					int negY = y == 0 ? 0 : srcHeight - y;
+
+					for (int x = 0; x < srcWidth; ++x)
+					{
+						int negX = x == 0 ? 0 : srcWidth - x;
+
+						double ar = re[y][x], ai = im[y][x];
+						double br = re[negY][negX], bi = -im[negY][negX];
+
+						double srcRe = (ar + br) / 2, srcIm = (ai + bi) / 2;
+						double filterRe = (ai - bi) / 2, filterIm = (br - ar) / 2;
+
+						productRe[y][x] = srcRe * filterRe - srcIm * filterIm;
+						productIm[y][x] = srcRe * filterIm + srcIm * filterRe;
+					}
+				}
+			}
+		});
+
+		fft.transform(productRe, productIm, true, pool);
+
+		for (int y = 0; y < srcHeight; ++y)
+		{
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				dst.set(y, x, (float) productRe[y][x]);
+			}
+		}
+	}
+
+	/**
+	 * Get element from the matrix if the location is out of the matrix move it
+	 * to the corresponding location in the matrix
+	 * 
+	 * @param src
+	 * @param y
+	 * @param x
+	 * @return
+	 */
+	private float getElement(Heightfield src, int y, int x)
+	{
+		return src.get(wrap(y, src.getRows()), wrap(x, src.getCols()));
+	}
+
+	/**
+	 * Move an index which is at most one size out of the range back into the
+	 * range, so that the opposite edge is used as its neighbor
+	 * 
+	 * @param index
+	 * @param size
+	 * @return
+	 */
+	protected static int wrap(int index, int size)
+	{
+		if (index < 0)
+		{
+			index += size;
+		}
+		else if (index >= size)
+		{
+			index -= size;
+		}
+
+		return index;
+	}
+
+	/**
+	 * Move any index into the range
+	 * 
+	 * @param index
+	 * @param size
+	 * @return
+	 */
+	protected static int mod(int index, int size)
+	{
+		index %= size;
+
+		if (index < 0)
+		{
+			index += size;
+		}
+
+		return index;
+	}
+}
@@ -0,0 +1,77 @@
+package edu.columbia.quidditch.filter;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * A copy of a band of rows with extra rows and columns around it, taken from
+ * the opposite edges of the map. Every neighbor of an element in the band is
+ * then at a fixed offset, so a filter can walk whole row segments without
+ * wrapping any index
+ */
+class HaloRows
+{
+	private float[] data;
+	private int stride, haloX, haloY, fromRow;
+
+	/**
+	 * Copy rows from fromRow (inclusive) to toRow (exclusive) with haloY rows
+	 * above and below, and haloX columns on the left and right
+	 * 
+	 * @param src
+	 * @param fromRow
+	 * @param toRow
+	 * @param haloX
+	 *            at most the number of columns of the map
+	 * @param haloY
+	 */
+	public HaloRows(Heightfield src, int fromRow, int toRow, int haloX,
+			int haloY)
+	{
+		this.haloX = haloX;
+		this.haloY = haloY;
+		this.fromRow = fromRow;
+
+		int srcHeight = src.getRows();
+		int srcWidth = src.getCols();
+
+		stride = srcWidth + haloX * 2;
+
+		int rows = toRow - fromRow + haloY * 2;
+		data = new float[rows * stride];
+
+		float[] srcData = src.getData();
+
+		for (int k = 0; k < rows; ++k)
+		{
+			int srcOffset = src.getRowOffset(Filter.mod(fromRow - haloY + k,
+					srcHeight));
+			int offset = k * stride;
+
+			// Left halo from the right edge, the row itself, and right halo
+			// from the left edge
+			System.arraycopy(srcData, srcOffset + srcWidth - haloX, data,
+					offset, haloX);
+			System.arraycopy(srcData, srcOffset, data, offset + haloX,
+					srcWidth);
+			System.arraycopy(srcData, srcOffset, data, offset + haloX
+					+ srcWidth, haloX);
+		}
+	}
+
+	public float[] getData()
+	{
+		return data;
+	}
+
+	/**
+	 * Get the index of the element in column 0 of a row, which may be up to
+	 * haloY rows out of the band
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int getRowOffset(int row)
+	{
+		return (row - fromRow + haloY) * stride + haloX;
+	}
+}
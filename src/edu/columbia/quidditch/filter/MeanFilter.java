@@ -1,26 +1,134 @@
-package edu.columbia.quidditch.filter;
-
-/**
- * Mean filter
- * 
- * @author Yuqing Guan
- * 
- */
-public class MeanFilter extends Filter
-{
-	public MeanFilter(int halfWidth, int halfHeight)
-	{
-		super(halfWidth, halfHeight);
-
-		float mean = 1.0f / noElements;
-
-		for (int j = 0; j < height; ++j)
-		{
-			for (int i = 0; i < width; ++i)
-			{
-				matrix[j][i] = mean;
-			}
-		}
-	}
-
-}
+package edu.columbia.quidditch.filter;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Mean filter
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public class MeanFilter extends SeparableFilter
+{
+	public MeanFilter(int halfWidth, int halfHeight)
+	{
+		super(halfWidth, halfHeight);
+
+		float rowMean = 1.0f / width;
+		float colMean = 1.0f / height;
+
+		for (int i = 0; i < width; ++i)
+		{
+			rowKernel[i] = rowMean;
+		}
+
+		for (int j = 0; j < height; ++j)
+		{
+			colKernel[j] = colMean;
+		}
+
+		buildMatrix();
+	}
+
+	/**
+	 * Each element only adds the entering and subtracts the leaving neighbor
+	 * in both directions
+	 * 
+	 * @return
+	 */
+	@Override
+	public int getTapCount()
+	{
+		return 4;
+	}
+
+	/**
+	 * Keep a running sum of the window along each row, so that the cost of
+	 * each element does not depend on the filter size. Elements on the
+	 * opposite edge are used as neighbors, as in the other filters
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param fromRow
+	 * @param toRow
+	 */
+	@Override
+	protected void filterRows(Heightfield src, Heightfield tmp, int fromRow,
+			int toRow)
+	{
+		int srcWidth = src.getCols();
+
+		float[] srcData = src.getData();
+		float[] tmpData = tmp.getData();
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			int rowOffset = src.getRowOffset(y);
+
+			double sum = 0;
+
+			for (int x = -halfWidth; x <= halfWidth; ++x)
+			{
+				sum += srcData[rowOffset + wrap(x, srcWidth)];
+			}
+
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				tmpData[rowOffset + x] = (float) sum;
+
+				sum += srcData[rowOffset + wrap(x + halfWidth + 1, srcWidth)]
+						- srcData[rowOffset + wrap(x - halfWidth, srcWidth)];
+			}
+		}
+	}
+
+	/**
+	 * Slide the windows of every column at the same time. The sums restart at
+	 * the top of each band, so every band can be computed independently
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param dst
+	 * @param weight
+	 * @param fromRow
+	 * @param toRow
+	 */
+	@Override
+	protected void accumulateRows(Heightfield src, Heightfield tmp,
+			Heightfield dst, float weight, int fromRow, int toRow)
+	{
+		int srcHeight = tmp.getRows();
+		int srcWidth = tmp.getCols();
+
+		float[] tmpData = tmp.getData();
+		float[] dstData = dst.getData();
+
+		double[] sums = new double[srcWidth];
+
+		for (int y = fromRow - halfHeight; y <= fromRow + halfHeight; ++y)
+		{
+			int tmpOffset = tmp.getRowOffset(wrap(y, srcHeight));
+
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				sums[x] += tmpData[tmpOffset + x];
+			}
+		}
+
+		double scale = weight / (double) noElements;
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			int dstOffset = dst.getRowOffset(y);
+			int inOffset = tmp.getRowOffset(wrap(y + halfHeight + 1, srcHeight));
+			int outOffset = tmp.getRowOffset(wrap(y - halfHeight, srcHeight));
+
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				dstData[dstOffset + x] += (float) (sums[x] * scale);
+
+				sums[x] += tmpData[inOffset + x] - tmpData[outOffset + x];
+			}
+		}
+	}
+}
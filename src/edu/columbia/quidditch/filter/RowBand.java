@@ -0,0 +1,15 @@
+package edu.columbia.quidditch.filter;
+
+/**
+ * A piece of work on a band of consecutive rows of the destination map
+ */
+interface RowBand
+{
+	/**
+	 * Compute rows from fromRow (inclusive) to toRow (exclusive)
+	 * 
+	 * @param fromRow
+	 * @param toRow
+	 */
+	void compute(int fromRow, int toRow);
+}
@@ -0,0 +1,50 @@
+package edu.columbia.quidditch.filter;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join task which splits a range of rows into bands. The bands always
+ * start at multiples of Filter.BAND_ROWS, so the parallel result is identical
+ * to the serial one
+ */
+class RowBandTask extends RecursiveAction
+{
+	private static final long serialVersionUID = 1L;
+
+	private RowBand band;
+	private int fromBand, toBand, rows;
+
+	/**
+	 * Process bands from fromBand (inclusive) to toBand (exclusive)
+	 * 
+	 * @param band
+	 * @param fromBand
+	 * @param toBand
+	 * @param rows
+	 */
+	public RowBandTask(RowBand band, int fromBand, int toBand, int rows)
+	{
+		this.band = band;
+		this.fromBand = fromBand;
+		this.toBand = toBand;
+		this.rows = rows;
+	}
+
+	@Override
+	protected void compute()
+	{
+		if (toBand - fromBand == 1)
+		{
+			int fromRow = fromBand * Filter.BAND_ROWS;
+			int toRow = Math.min(fromRow + Filter.BAND_ROWS, rows);
+
+			band.compute(fromRow, toRow);
+			return;
+		}
+
+		int midBand = (fromBand + toBand) >>> 1;
+
+		invokeAll(new RowBandTask(band, fromBand, midBand, rows),
+				new RowBandTask(band, midBand, toBand, rows));
+	}
+}
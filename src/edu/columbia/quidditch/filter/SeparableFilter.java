@@ -0,0 +1,195 @@
+package edu.columbia.quidditch.filter;
+
+import java.util.Arrays;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Filter whose matrix is the product of a column kernel and a row kernel, so
+ * it can be applied as a horizontal pass followed by a vertical pass
+ */
+public abstract class SeparableFilter extends Filter
+{
+	protected float[] rowKernel, colKernel;
+
+	public SeparableFilter(int halfWidth, int halfHeight)
+	{
+		super(halfWidth, halfHeight);
+
+		rowKernel = new float[width];
+		colKernel = new float[height];
+	}
+
+	/**
+	 * Fill the two-dimensional matrix with the product of the two kernels, so
+	 * that the filter can still be combined with other filters
+	 */
+	protected void buildMatrix()
+	{
+		for (int j = 0; j < height; ++j)
+		{
+			for (int i = 0; i < width; ++i)
+			{
+				matrix[j][i] = colKernel[j] * rowKernel[i];
+			}
+		}
+	}
+
+	/**
+	 * Two one-dimensional kernels are applied to each element
+	 * 
+	 * @return
+	 */
+	@Override
+	public int getTapCount()
+	{
+		return width + height;
+	}
+
+	@Override
+	protected boolean needsBuffer()
+	{
+		return true;
+	}
+
+	/**
+	 * Convolute each row with the row kernel. Elements on the opposite edge
+	 * are used as neighbors, as in the two-dimensional version
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param fromRow
+	 * @param toRow
+	 */
+	@Override
+	protected void filterRows(Heightfield src, Heightfield tmp, int fromRow,
+			int toRow)
+	{
+		if (useSegments(src))
+		{
+			filterSegments(src, tmp, fromRow, toRow);
+		}
+		else
+		{
+			filterScalar(src, tmp, fromRow, toRow);
+		}
+	}
+
+	/**
+	 * Add each tap of the row kernel to a whole row at once, reading from a
+	 * copy of the band padded with the columns of the opposite edges
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param fromRow
+	 * @param toRow
+	 */
+	private void filterSegments(Heightfield src, Heightfield tmp,
+			int fromRow, int toRow)
+	{
+		int srcWidth = src.getCols();
+
+		HaloRows halo = new HaloRows(src, fromRow, toRow, halfWidth, 0);
+
+		float[] haloData = halo.getData();
+		float[] tmpData = tmp.getData();
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			int rowOffset = halo.getRowOffset(y);
+			int tmpOffset = tmp.getRowOffset(y);
+
+			Arrays.fill(tmpData, tmpOffset, tmpOffset + srcWidth, 0);
+
+			for (int i = 0; i < width; ++i)
+			{
+				int offsetX = i - halfWidth;
+
+				float tap = rowKernel[i];
+				int haloOffset = rowOffset - offsetX;
+
+				for (int x = 0; x < srcWidth; ++x)
+				{
+					tmpData[tmpOffset + x] += tap * haloData[haloOffset + x];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Convolute each row element by element, wrapping every index
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param fromRow
+	 * @param toRow
+	 */
+	private void filterScalar(Heightfield src, Heightfield tmp, int fromRow,
+			int toRow)
+	{
+		int srcWidth = src.getCols();
+
+		float[] srcData = src.getData();
+		float[] tmpData = tmp.getData();
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			int rowOffset = src.getRowOffset(y);
+
+			for (int x = 0; x < srcWidth; ++x)
+			{
+				float sum = 0;
+
+				for (int i = 0; i < width; ++i)
+				{
+					int offsetX = i - halfWidth;
+					sum += rowKernel[i]
+							* srcData[rowOffset + wrap(x - offsetX, srcWidth)];
+				}
+
+				tmpData[rowOffset + x] = sum;
+			}
+		}
+	}
+
+	/**
+	 * Convolute each column of the row-filtered buffer with the column kernel,
+	 * walking whole rows to keep the access sequential
+	 * 
+	 * @param src
+	 * @param tmp
+	 * @param dst
+	 * @param weight
+	 * @param fromRow
+	 * @param toRow
+	 */
+	@Override
+	protected void accumulateRows(Heightfield src, Heightfield tmp,
+			Heightfield dst, float weight, int fromRow, int toRow)
+	{
+		int srcHeight = tmp.getRows();
+		int srcWidth = tmp.getCols();
+
+		float[] tmpData = tmp.getData();
+		float[] dstData = dst.getData();
+
+		for (int y = fromRow; y < toRow; ++y)
+		{
+			int dstOffset = dst.getRowOffset(y);
+
+			for (int j = 0; j < height; ++j)
+			{
+				int offsetY = j - halfHeight;
+
+				float colWeight = colKernel[j] * weight;
+				int tmpOffset = tmp.getRowOffset(wrap(y - offsetY, srcHeight));
+
+				for (int x = 0; x < srcWidth; ++x)
+				{
+					dstData[dstOffset + x] += colWeight
+							* tmpData[tmpOffset + x];
+				}
+			}
+		}
+	}
+}
@@ -1,174 +1,119 @@
-package edu.columbia.quidditch.render;
-
-import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.HashMap;
-
-import static org.lwjgl.opengl.GL11.*;
-
-import org.lwjgl.BufferUtils;
-import org.lwjgl.util.vector.Vector3f;
-
-import edu.columbia.quidditch.MainGame;
-import edu.columbia.quidditch.basic.Material;
-import edu.columbia.quidditch.basic.ShaderProgram;
-import edu.columbia.quidditch.basic.Texture;
-import edu.columbia.quidditch.render.screen.LoadScreen;
-import edu.columbia.quidditch.util.ObjLoader;
-import edu.columbia.quidditch.util.Vector3i;
-
-/**
- * Broom
- * 
- * @author Yuqing Guan
- * 
- */
-public class Broom extends Model
-{
-	// Object file
-	private static final String OBJ_NAME = "res/broom/broom.obj";
-
-	private static final float SHINE = 25;
-	private static final float SCALE = 7f;
-
-	private static ArrayList<Vector3f> verList, texList, norList;
-	private static ArrayList<ArrayList<ArrayList<Vector3i>>> meshList;
-
-	private static ArrayList<String> mtlList;
-	private static HashMap<String, Material> mtlMap;
-
-	private static ShaderProgram shaderProgram;
-
-	private static Broom singleton;
-	private static int defaultList;
-
-	private static FloatBuffer specularBuffer;
-
-	/**
-	 * Load obj file
-	 */
-	static
-	{
-		ObjLoader loader = ObjLoader.create(OBJ_NAME);
-
-		verList = loader.getVerList();
-		texList = loader.getTexList();
-		norList = loader.getNorList();
-		mtlMap = loader.getMtlMap();
-
-		meshList = loader.getMeshList();
-		mtlList = loader.getMtlList();
-
-		mtlMap = loader.getMtlMap();
-
-		shaderProgram = ShaderProgram.getDefaultShader();
-
-		specularBuffer = BufferUtils.createFloatBuffer(4);
-		specularBuffer.put(0.6f).put(0.6f).put(0.6f).put(0.6f).flip();
-
-		createDefaultList();
-	}
-
-	/**
-	 * Create display list for the broom
-	 */
-	private static void createDefaultList()
-	{
-		LoadScreen.log("Creating display list for broom");
-
-		defaultList = glGenLists(1);
-		glNewList(defaultList, GL_COMPILE);
-		{
-			glPushMatrix();
-
-			shaderProgram.bind();
-			shaderProgram.setUniformi("tex", 0);
-
-			glScalef(SCALE, SCALE, SCALE);
-			glTranslatef(0, 0, 7.5f);
-			glRotatef(-90, 1, 0, 0);
-
-			glMaterial(GL_FRONT, GL_SPECULAR, specularBuffer);
-			glMaterialf(GL_FRONT, GL_SHININESS, SHINE);
-
-			// Draw meshes with corresponding materials
-			for (int i = meshList.size() - 1; i >= 0; --i)
-			{
-				ArrayList<ArrayList<Vector3i>> mesh = meshList.get(i);
-
-				String mtlName = mtlList.get(i);
-
-				Material material = mtlMap.get(mtlName);
-				material.bind();
-				shaderProgram.setUniformi("hasTex", material.hasTexture() ? 1
-						: 0);
-
-				for (ArrayList<Vector3i> face : mesh)
-				{
-					glBegin(GL_POLYGON);
-					{
-						for (Vector3i point : face)
-						{
-							int verIdx = point.x;
-							int texIdx = point.y;
-							int norIdx = point.z;
-
-							if (norIdx != NO_INDEX)
-							{
-								Vector3f nor = norList.get(norIdx);
-								glNormal3f(nor.x, nor.y, nor.z);
-							}
-
-							if (texIdx != NO_INDEX)
-							{
-								Vector3f tex = texList.get(texIdx);
-								glTexCoord2f(tex.x, tex.y);
-							}
-
-							Vector3f ver = verList.get(verIdx);
-							glVertex3f(ver.x, ver.y, ver.z);
-						}
-					}
-					glEnd();
-				}
-			}
-
-			Texture.unbind();
-			ShaderProgram.unbind();
-
-			glPopMatrix();
-		}
-		glEndList();
-	}
-
-	/**
-	 * Singleton mode
-	 * @param game
-	 * @return
-	 */
-	public static Broom create(MainGame game)
-	{
-		if (singleton == null)
-		{
-			singleton = new Broom(game);
-		}
-
-		return singleton;
-	}
-
-	/**
-	 * Initialize with default position and rotation
-	 * 
-	 * @param game
-	 */
-	private Broom(MainGame game)
-	{
-		super(game);
-	}
-
-	@Override
-	protected void createList()
-	{
-		list = defaultList;
-	}
-}
+package edu.columbia.quidditch.render;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+
+import org.lwjgl.BufferUtils;
+
+import edu.columbia.quidditch.MainGame;
+import edu.columbia.quidditch.basic.ShaderProgram;
+import edu.columbia.quidditch.basic.Texture;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+import edu.columbia.quidditch.util.AssetLoader;
+import edu.columbia.quidditch.util.CompiledModel;
+
+/**
+ * Broom
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public class Broom extends Model
+{
+	// Object file
+	private static final String OBJ_NAME = "res/broom/broom.obj";
+
+	private static final float SHINE = 25;
+	private static final float SCALE = 7f;
+
+	private static StaticMesh staticMesh;
+
+	private static ShaderProgram shaderProgram;
+
+	private static Broom singleton;
+
+	private static FloatBuffer specularBuffer;
+
+	/**
+	 * Start reading the obj file in the background
+	 */
+	public static void preload()
+	{
+		AssetLoader.getDefault().loadModel(OBJ_NAME);
+	}
+
+	/**
+	 * Upload the compiled obj file once it is read
+	 */
+	private static void upload()
+	{
+		CompiledModel model = CompiledModel.get(OBJ_NAME);
+
+		shaderProgram = ShaderProgram.getDefaultShader();
+
+		LoadScreen.log("Uploading buffers for broom");
+		staticMesh = new StaticMesh(model.getIndexedMesh(), model.getMtlMap(),
+				shaderProgram);
+
+		specularBuffer = BufferUtils.createFloatBuffer(4);
+		specularBuffer.put(0.6f).put(0.6f).put(0.6f).put(0.6f).flip();
+	}
+
+	/**
+	 * Singleton mode
+	 * @param game
+	 * @return
+	 */
+	public static Broom create(MainGame game)
+	{
+		if (singleton == null)
+		{
+			upload();
+			singleton = new Broom(game);
+		}
+
+		return singleton;
+	}
+
+	/**
+	 * Initialize with default position and rotation
+	 * 
+	 * @param game
+	 */
+	private Broom(MainGame game)
+	{
+		super(game);
+	}
+
+	/**
+	 * Draw the broom from its buffers
+	 */
+	@Override
+	public void render()
+	{
+		glPushMatrix();
+
+		shaderProgram.bind();
+
+		glScalef(SCALE, SCALE, SCALE);
+		glTranslatef(0, 0, 7.5f);
+		glRotatef(-90, 1, 0, 0);
+
+		glMaterial(GL_FRONT, GL_SPECULAR, specularBuffer);
+		glMaterialf(GL_FRONT, GL_SHININESS, SHINE);
+
+		staticMesh.render();
+
+		Texture.unbind();
+		ShaderProgram.unbind();
+
+		glPopMatrix();
+	}
+
+	@Override
+	protected void createList()
+	{
+		// Drawn from buffers rather than a display list
+	}
+}
@@ -0,0 +1,124 @@
+package edu.columbia.quidditch.render;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.HashMap;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import org.lwjgl.BufferUtils;
+
+import edu.columbia.quidditch.basic.Material;
+import edu.columbia.quidditch.basic.ShaderProgram;
+import edu.columbia.quidditch.util.IndexedMesh;
+
+/**
+ * An indexed mesh in vertex and index buffers, drawn with one call per
+ * material
+ */
+public class StaticMesh
+{
+	private static final int BYTES_PER_FLOAT = 4;
+	private static final int BYTES_PER_INT = 4;
+
+	private static final int STRIDE = IndexedMesh.FLOATS_PER_VERTEX
+			* BYTES_PER_FLOAT;
+
+	private static final int NORMAL_OFFSET = IndexedMesh.NORMAL_OFFSET
+			* BYTES_PER_FLOAT;
+	private static final int TEX_OFFSET = IndexedMesh.TEX_OFFSET
+			* BYTES_PER_FLOAT;
+
+	private int vbo, ibo;
+
+	// Uniforms of the program drawing the mesh, looked up once
+	private int texLoc, hasTexLoc;
+
+	private Material[] materials;
+	private int[] indexOffsets, indexCounts;
+
+	/**
+	 * Upload a mesh
+	 * 
+	 * @param mesh
+	 * @param mtlMap
+	 *            materials of the ranges of the mesh
+	 * @param shaderProgram
+	 *            program with tex and hasTex uniforms
+	 */
+	public StaticMesh(IndexedMesh mesh, HashMap<String, Material> mtlMap,
+			ShaderProgram shaderProgram)
+	{
+		texLoc = shaderProgram.getUniformLocation("tex");
+		hasTexLoc = shaderProgram.getUniformLocation("hasTex");
+
+		int rangeCount = mesh.getRangeCount();
+
+		materials = new Material[rangeCount];
+		indexOffsets = new int[rangeCount];
+		indexCounts = new int[rangeCount];
+
+		for (int i = 0; i < rangeCount; ++i)
+		{
+			materials[i] = mtlMap.get(mesh.getRangeMtl(i));
+			indexOffsets[i] = mesh.getIndexStart(i) * BYTES_PER_INT;
+			indexCounts[i] = mesh.getIndexCount(i);
+		}
+
+		FloatBuffer vertices = BufferUtils.createFloatBuffer(mesh
+				.getVertices().length);
+		vertices.put(mesh.getVertices()).flip();
+
+		IntBuffer indices = BufferUtils
+				.createIntBuffer(mesh.getIndices().length);
+		indices.put(mesh.getIndices()).flip();
+
+		vbo = glGenBuffers();
+		glBindBuffer(GL_ARRAY_BUFFER, vbo);
+		glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+		ibo = glGenBuffers();
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+		glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Draw the ranges in reverse order with their materials, with the shader
+	 * program of the mesh bound
+	 */
+	public void render()
+	{
+		glUniform1i(texLoc, 0);
+
+		glBindBuffer(GL_ARRAY_BUFFER, vbo);
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+
+		glEnableClientState(GL_VERTEX_ARRAY);
+		glEnableClientState(GL_NORMAL_ARRAY);
+		glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+
+		glVertexPointer(3, GL_FLOAT, STRIDE, 0);
+		glNormalPointer(GL_FLOAT, STRIDE, NORMAL_OFFSET);
+		glTexCoordPointer(2, GL_FLOAT, STRIDE, TEX_OFFSET);
+
+		for (int i = materials.length - 1; i >= 0; --i)
+		{
+			materials[i].bind();
+			glUniform1i(hasTexLoc, materials[i].hasTexture() ? 1 : 0);
+
+			glDrawElements(GL_TRIANGLES, indexCounts[i], GL_UNSIGNED_INT,
+					indexOffsets[i]);
+		}
+
+		glDisableClientState(GL_VERTEX_ARRAY);
+		glDisableClientState(GL_NORMAL_ARRAY);
+		glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+	}
+}
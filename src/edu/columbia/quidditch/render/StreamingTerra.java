@@ -0,0 +1,494 @@
+package edu.columbia.quidditch.render;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import edu.columbia.quidditch.MainGame;
+import edu.columbia.quidditch.basic.Frustum;
+import edu.columbia.quidditch.basic.ShaderProgram;
+import edu.columbia.quidditch.basic.Texture;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+import edu.columbia.quidditch.render.terra.TerraChunk;
+import edu.columbia.quidditch.render.terra.TerraLod;
+import edu.columbia.quidditch.render.terra.TerraLodGrid;
+import edu.columbia.quidditch.render.terra.TerraTile;
+import edu.columbia.quidditch.render.terra.TerraTileCache;
+import edu.columbia.quidditch.render.terra.TerraTileSet;
+
+/**
+ * A terrain larger than the one in terra.map, loaded tile by tile around the
+ * camera. Tiles are read and packed by loader threads, uploaded a few per
+ * frame, and evicted when they are far away and the memory budget is used up
+ */
+public class StreamingTerra extends Model
+{
+	public static final String TILES_PATH = "res/terra/tiles";
+
+	// Tiles within this distance from the camera are loaded
+	private static final float VIEW_DISTANCE = 8000.0f;
+
+	// Memory in bytes the resident tiles may take
+	private static final long MEMORY_BUDGET = 128L * 1024 * 1024;
+
+	private static final int LOADER_THREADS = 2;
+
+	// Uploading is done in the OpenGL thread, so spread it over frames
+	private static final int MAX_UPLOADS_PER_FRAME = 2;
+
+	// Frames to wait before loading a failed tile again, doubled after each
+	// failure up to the maximum
+	private static final long RETRY_FRAMES = 30;
+	private static final long MAX_RETRY_FRAMES = 1920;
+
+	private TerraTileSet tileSet;
+	private float tileSize, worldOrigin;
+	private int tilesAcross, chunksPerTile;
+
+	// Tiles loaded around the camera tile in each direction
+	private int radius;
+
+	private Texture grass, dirt, snow;
+	private ShaderProgram shaderProgram;
+
+	private TerraLod lod;
+	private Frustum frustum;
+
+	// Chunks of the tiles around the camera tile, and their levels of detail
+	private TerraChunk[] window;
+	private int windowChunks;
+	private TerraLodGrid lodGrid;
+
+	private TerraTileCache cache;
+
+	private ExecutorService loader;
+
+	// Tiles being loaded, only touched in the OpenGL thread
+	private HashSet<Long> pending;
+
+	// Tiles loaded but not uploaded yet
+	private ConcurrentLinkedQueue<TerraTile> ready;
+
+	// Keys of the tiles failing to load, posted back by the loader threads
+	private ConcurrentLinkedQueue<Long> failed;
+
+	// Failures in a row of each tile and the frame it may be loaded again
+	// from, only touched in the OpenGL thread
+	private HashMap<Long, Integer> failures;
+	private HashMap<Long, Long> retryFrames;
+
+	private long frame;
+
+	/**
+	 * Stream the tiles of a tile set
+	 * 
+	 * @param game
+	 * @param tileSet
+	 */
+	public StreamingTerra(MainGame game, TerraTileSet tileSet)
+	{
+		super(game);
+
+		if (tileSet.getTileCols() % Terra.CHUNK_CELLS != 0)
+		{
+			throw new IllegalArgumentException("Tiles of "
+					+ tileSet.getTileCols() + " columns cannot be split into "
+					+ "chunks of " + Terra.CHUNK_CELLS);
+		}
+
+		this.tileSet = tileSet;
+
+		tileSize = tileSet.getTileSize();
+		worldOrigin = tileSet.getWorldOrigin();
+		tilesAcross = tileSet.getTilesAcross();
+		chunksPerTile = tileSet.getTileCols() / Terra.CHUNK_CELLS;
+
+		radius = (int) Math.ceil(VIEW_DISTANCE / tileSize);
+
+		LoadScreen.log("Streaming " + tilesAcross + "x" + tilesAcross
+				+ " terrain tiles from " + TILES_PATH);
+
+		grass = Texture.createFromFile(Terra.GRASS_NAME);
+		dirt = Texture.createFromFile(Terra.DIRT_NAME);
+		snow = Texture.createFromFile(Terra.SNOW_NAME);
+
+		HashMap<Integer, String> attributes = new HashMap<Integer, String>();
+		attributes.put(Terra.SNOW_OFFSET_LOC, "snowOffset");
+		attributes.put(Terra.GRASS_OFFSET_LOC, "grassOffset");
+
+		shaderProgram = ShaderProgram.createFromFiles(
+				Terra.CPU_VERTEX_SHADER_NAME, Terra.FRAGMENT_SHADER_NAME,
+				attributes);
+
+		lod = new TerraLod(Terra.CHUNK_CELLS, Terra.LOD_LEVELS);
+		frustum = new Frustum();
+
+		windowChunks = (radius * 2 + 1) * chunksPerTile;
+		window = new TerraChunk[windowChunks * windowChunks];
+		lodGrid = new TerraLodGrid(windowChunks);
+
+		cache = new TerraTileCache(MEMORY_BUDGET);
+
+		pending = new HashSet<Long>();
+		ready = new ConcurrentLinkedQueue<TerraTile>();
+
+		failed = new ConcurrentLinkedQueue<Long>();
+		failures = new HashMap<Long, Integer>();
+		retryFrames = new HashMap<Long, Long>();
+
+		loader = Executors.newFixedThreadPool(LOADER_THREADS,
+				new ThreadFactory()
+				{
+					@Override
+					public Thread newThread(Runnable runnable)
+					{
+						Thread thread = new Thread(runnable, "Terrain loader");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+
+		createList();
+	}
+
+	/**
+	 * Create the display list which sets up the shader
+	 */
+	@Override
+	protected void createList()
+	{
+		list = glGenLists(1);
+		glNewList(list, GL_COMPILE);
+		{
+			shaderProgram.bind();
+
+			// Set three textures
+			glActiveTexture(GL_TEXTURE0);
+			glBindTexture(GL_TEXTURE_2D, grass.getId());
+			shaderProgram.setUniformi("grass", 0);
+
+			glActiveTexture(GL_TEXTURE1);
+			glBindTexture(GL_TEXTURE_2D, dirt.getId());
+			shaderProgram.setUniformi("dirt", 1);
+
+			glActiveTexture(GL_TEXTURE2);
+			glBindTexture(GL_TEXTURE_2D, snow.getId());
+			shaderProgram.setUniformi("snow", 2);
+
+			glActiveTexture(GL_TEXTURE0);
+
+			// Set three heights of layers
+			shaderProgram.setUniformf("low", Terra.LOW);
+			shaderProgram.setUniformf("mid", Terra.MID);
+			shaderProgram.setUniformf("high", Terra.HIGH);
+
+			// Set the shininess, which will only be used for snow
+			glMaterialf(GL_FRONT, GL_SHININESS, Terra.SHINE);
+		}
+		glEndList();
+	}
+
+	/**
+	 * Upload newly loaded tiles, request the missing tiles around the camera
+	 * and draw the resident ones
+	 */
+	@Override
+	public void render()
+	{
+		if (list == NO_LIST)
+		{
+			createList();
+		}
+
+		++frame;
+
+		uploadReadyTiles();
+
+		frustum.update(game.getProjBuffer());
+
+		float eyeX = frustum.getEyeX();
+		float eyeY = frustum.getEyeY();
+		float eyeZ = frustum.getEyeZ();
+
+		int centerX = getTileIndex(eyeX);
+		int centerZ = getTileIndex(eyeZ);
+
+		requestTiles(centerX, centerZ);
+		fillWindow(centerX, centerZ);
+
+		lodGrid.select(window, eyeX, eyeY, eyeZ, Terra.LOD_DISTANCE,
+				Terra.LOD_LEVELS);
+
+		glCallList(list);
+
+		glEnableClientState(GL_VERTEX_ARRAY);
+		glEnableClientState(GL_NORMAL_ARRAY);
+		glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+		glEnableVertexAttribArray(Terra.SNOW_OFFSET_LOC);
+		glEnableVertexAttribArray(Terra.GRASS_OFFSET_LOC);
+
+		lod.bind();
+
+		for (int chunkRow = 0; chunkRow < windowChunks; ++chunkRow)
+		{
+			for (int chunkCol = 0; chunkCol < windowChunks; ++chunkCol)
+			{
+				TerraChunk chunk = window[chunkRow * windowChunks + chunkCol];
+
+				if (chunk == null || !chunk.isVisible(frustum))
+				{
+					continue;
+				}
+
+				int level = lodGrid.getLevel(chunkRow, chunkCol);
+				int mask = lodGrid.getCoarserSides(chunkRow, chunkCol);
+
+				chunk.render(lod.getOffset(level, mask),
+						lod.getCount(level, mask), Terra.SNOW_OFFSET_LOC,
+						Terra.GRASS_OFFSET_LOC);
+			}
+		}
+
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+		glDisableVertexAttribArray(Terra.SNOW_OFFSET_LOC);
+		glDisableVertexAttribArray(Terra.GRASS_OFFSET_LOC);
+		glDisableClientState(GL_NORMAL_ARRAY);
+		glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+		glDisableClientState(GL_VERTEX_ARRAY);
+
+		Texture.unbind();
+		ShaderProgram.unbind();
+
+		// Tiles drawn in this frame are never evicted
+		List<TerraTile> evicted = cache.evict(frame);
+
+		for (TerraTile tile : evicted)
+		{
+			tile.delete();
+		}
+	}
+
+	/**
+	 * Upload a few tiles prepared by the loader threads, and schedule the
+	 * tiles which failed to load for another try
+	 */
+	private void uploadReadyTiles()
+	{
+		for (int i = 0; i < MAX_UPLOADS_PER_FRAME; ++i)
+		{
+			TerraTile tile = ready.poll();
+
+			if (tile == null)
+			{
+				break;
+			}
+
+			tile.upload();
+			cache.put(tile, frame);
+
+			Long key = TerraTileCache.getKey(tile.getTileX(), tile.getTileZ());
+
+			pending.remove(key);
+			failures.remove(key);
+			retryFrames.remove(key);
+		}
+
+		Long key;
+
+		while ((key = failed.poll()) != null)
+		{
+			pending.remove(key);
+
+			Integer count = failures.get(key);
+			count = count == null ? 1 : count + 1;
+
+			failures.put(key, count);
+
+			// A read error may be transient, so wait longer after each
+			// failure instead of giving up on the tile
+			long wait = Math.min(RETRY_FRAMES << Math.min(count - 1, 16),
+					MAX_RETRY_FRAMES);
+			retryFrames.put(key, frame + wait);
+		}
+	}
+
+	/**
+	 * Request the tiles around the camera tile which are neither resident nor
+	 * being loaded, the nearest rings first
+	 * 
+	 * @param centerX
+	 * @param centerZ
+	 */
+	private void requestTiles(int centerX, int centerZ)
+	{
+		for (int ring = 0; ring <= radius; ++ring)
+		{
+			for (int dz = -ring; dz <= ring; ++dz)
+			{
+				for (int dx = -ring; dx <= ring; ++dx)
+				{
+					// Only the border of the ring
+					if (Math.abs(dx) != ring && Math.abs(dz) != ring)
+					{
+						continue;
+					}
+
+					requestTile(centerX + dx, centerZ + dz);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Start loading a tile in a loader thread, unless it failed recently
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 */
+	private void requestTile(final int tileX, final int tileZ)
+	{
+		if (!isInside(tileX, tileZ) || cache.contains(tileX, tileZ))
+		{
+			return;
+		}
+
+		final Long key = TerraTileCache.getKey(tileX, tileZ);
+		Long retryFrame = retryFrames.get(key);
+
+		if (retryFrame != null && frame < retryFrame)
+		{
+			return;
+		}
+
+		if (!pending.add(key))
+		{
+			return;
+		}
+
+		loader.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					ready.add(TerraTile.load(tileSet, tileX, tileZ,
+							Terra.CHUNK_CELLS));
+				}
+				catch (Exception e)
+				{
+					// A truncated or corrupt tile may also fail with a
+					// runtime exception
+					LoadScreen.log("Failed to load terrain tile " + tileX
+							+ ", " + tileZ);
+					e.printStackTrace();
+
+					failed.add(key);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Put the chunks of the resident tiles around the camera tile into the
+	 * window, marking those tiles as used in this frame
+	 * 
+	 * @param centerX
+	 * @param centerZ
+	 */
+	private void fillWindow(int centerX, int centerZ)
+	{
+		for (int dz = -radius; dz <= radius; ++dz)
+		{
+			for (int dx = -radius; dx <= radius; ++dx)
+			{
+				int tileX = centerX + dx, tileZ = centerZ + dz;
+				TerraTile tile = null;
+
+				if (isInside(tileX, tileZ))
+				{
+					tile = cache.get(tileX, tileZ, frame);
+				}
+
+				TerraChunk[] chunks = tile == null ? null : tile.getChunks();
+
+				int firstRow = (dz + radius) * chunksPerTile;
+				int firstCol = (dx + radius) * chunksPerTile;
+
+				for (int i = 0; i < chunksPerTile; ++i)
+				{
+					for (int j = 0; j < chunksPerTile; ++j)
+					{
+						int k = (firstRow + i) * windowChunks + firstCol + j;
+						window[k] = chunks == null ? null : chunks[i
+								* chunksPerTile + j];
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the index of the tile containing an x or z coordinate
+	 * 
+	 * @param coord
+	 * @return
+	 */
+	private int getTileIndex(float coord)
+	{
+		return (int) Math.floor((coord - worldOrigin) / tileSize);
+	}
+
+	/**
+	 * The terrain does not repeat, so there are no tiles out of the tile set
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 */
+	private boolean isInside(int tileX, int tileZ)
+	{
+		return tileX >= 0 && tileX < tilesAcross && tileZ >= 0
+				&& tileZ < tilesAcross;
+	}
+
+	/**
+	 * Get the height of a specified position by linear interpolation
+	 * 
+	 * @param x
+	 * @param z
+	 * @return the height, or NaN if the tile of the position is not loaded
+	 */
+	public float getHeight(float x, float z)
+	{
+		int tileX = getTileIndex(x), tileZ = getTileIndex(z);
+
+		if (!isInside(tileX, tileZ))
+		{
+			return Float.NaN;
+		}
+
+		TerraTile tile = cache.get(tileX, tileZ, frame);
+
+		if (tile == null)
+		{
+			return Float.NaN;
+		}
+
+		float cellSize = tileSet.getCellSize();
+
+		return tile.getHeight((z - worldOrigin - tileZ * tileSize) / cellSize,
+				(x - worldOrigin - tileX * tileSize) / cellSize);
+	}
+}
@@ -1,599 +1,534 @@
-package edu.columbia.quidditch.render;
-
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.util.HashMap;
-
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL13.*;
-import static org.lwjgl.opengl.GL20.*;
-
-import org.lwjgl.util.vector.Vector3f;
-
-import edu.columbia.quidditch.MainGame;
-import edu.columbia.quidditch.basic.ShaderProgram;
-import edu.columbia.quidditch.basic.Texture;
-import edu.columbia.quidditch.filter.CombineFilter;
-import edu.columbia.quidditch.filter.Filter;
-import edu.columbia.quidditch.filter.GaussianFilter;
-import edu.columbia.quidditch.filter.MeanFilter;
-import edu.columbia.quidditch.render.screen.LoadScreen;
-
-/**
- * The terrain
- * 
- * @author Yuqing Guan
- * 
- */
-public class Terra extends Model
-{
-	// Sizes
-	public static final int HALF_SIZE = 4000;
-	public static final int QUARTER_SIZE = HALF_SIZE / 2;
-
-	// The highest and lowest hight
-	private static final float HIGHEST = 3000.0f;
-	private static final float LOWEST = -1000.0f;
-
-	// The centering height of snow, dirt and grass
-	private static final float HIGH = 2000.0f;
-	private static final float MID = 1200.0f;
-	private static final float LOW = 400.0f;
-
-	private static final float SHINE = 25.0f;
-	
-	private static final float PITCH = -200.0f;
-
-	// The smoothing result will be calculated by 75% Gaussian and 25% mean
-	// filter
-	private static final float GAUSSIAN_PROP = 0.75f;
-
-	// Different filter sizes
-	private static final int HALF_FILTER_SIZE = 30;
-	private static final int HALF_SNOW_FILTER_SIZE = 2;
-	private static final int HALF_GRASS_FILTER_SIZE = 8;
-
-	// Size of cells and number of columns (rows)
-	private static final int CELL_SIZE = 25;
-
-	private static final int COLS = HALF_SIZE / CELL_SIZE * 2;
-	private static final int HALF_COLS = COLS / 2;
-	
-	// Location of vertex attributes in my GLSL program
-	private static final int SNOW_OFFSET_LOC = 6;
-	private static final int GRASS_OFFSET_LOC = 7;
-
-	// The height of snow and grass will be offseted randomly
-	private static final float MAX_SNOW_OFFSET = 800.0f;
-	private static final float MAX_GRASS_OFFSET = 800.0f;
-
-	private static final int FLAT_X = 1000;
-	private static final int FLAT_Z = 1350;
-
-	private static final int FLAT_COL = FLAT_X / CELL_SIZE;
-	private static final int FLAT_ROW = FLAT_Z / CELL_SIZE;
-
-	private static final int MULTIPLE_FLAT = 3;
-	private static final int MULTIPLE_FLAT_COL = FLAT_COL * MULTIPLE_FLAT;
-	private static final int MULTIPLE_FLAT_ROW = FLAT_ROW * MULTIPLE_FLAT;
-	
-	private static final float FLAT_SLOPE = 0.3f;
-
-	private static final String GRASS_NAME = "res/terra/grass.jpg";
-	private static final String DIRT_NAME = "res/terra/dirt.jpg";
-	private static final String SNOW_NAME = "res/terra/snow.jpg";
-
-	private static final String VERTEX_SHADER_NAME = "shaders/terra.vsh";
-	private static final String FRAGMENT_SHADER_NAME = "shaders/terra.fsh";
-
-	private static final String TERRA_NAME = "res/terra/terra.map";
-
-	private float[][] heightMap, snowMap, grassMap;
-
-	private Texture grass, dirt, snow;
-	private ShaderProgram shaderProgram;
-
-	/**
-	 * If terra.map exists, load it. Otherwise, generate a new terrain and save
-	 * it.
-	 * 
-	 * @param game
-	 * @return
-	 */
-	public static Terra create(MainGame game)
-	{
-		Terra terra;
-		File terraFile = new File(TERRA_NAME);
-
-		if (terraFile.exists())
-		{
-			LoadScreen.log("Loading terrain from " + TERRA_NAME);
-			terra = new Terra(game, TERRA_NAME);
-		}
-		else
-		{
-			LoadScreen.log("Generating random terrain");
-			terra = new Terra(game);
-
-			LoadScreen.log("Saving terrain to " + TERRA_NAME);
-			terra.save(TERRA_NAME);
-		}
-
-		return terra;
-	}
-
-	/**
-	 * Generate new terrain
-	 * 
-	 * @param game
-	 */
-	private Terra(MainGame game)
-	{
-		super(game);
-
-		createHeightMap();
-		createOffsetMap();
-
-		grass = Texture.createFromFile(GRASS_NAME);
-		dirt = Texture.createFromFile(DIRT_NAME);
-		snow = Texture.createFromFile(SNOW_NAME);
-
-		HashMap<Integer, String> attributes = new HashMap<Integer, String>();
-		attributes.put(SNOW_OFFSET_LOC, "snowOffset");
-		attributes.put(GRASS_OFFSET_LOC, "grassOffset");
-
-		shaderProgram = ShaderProgram.createFromFiles(VERTEX_SHADER_NAME,
-				FRAGMENT_SHADER_NAME, attributes);
-
-		createList();
-	}
-
-	/**
-	 * Load old terrain
-	 * 
-	 * @param game
-	 * @param terraname
-	 */
-	public Terra(MainGame game, String terraname)
-	{
-		super(game);
-
-		try
-		{
-			DataInputStream istream = new DataInputStream(
-					new BufferedInputStream(new FileInputStream(terraname)));
-
-			heightMap = new float[COLS][COLS];
-			loadMap(istream, heightMap);
-
-			snowMap = new float[COLS][COLS];
-			loadMap(istream, snowMap);
-			grassMap = new float[COLS][COLS];
-			loadMap(istream, grassMap);
-
-			istream.close();
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-
-			// If failed to load old terrain, generate new terrain and save it
-			createHeightMap();
-			createOffsetMap();
-			save(terraname);
-		}
-
-		grass = Texture.createFromFile(GRASS_NAME);
-		dirt = Texture.createFromFile(DIRT_NAME);
-		snow = Texture.createFromFile(SNOW_NAME);
-
-		HashMap<Integer, String> attributes = new HashMap<Integer, String>();
-		attributes.put(SNOW_OFFSET_LOC, "snowOffset");
-		attributes.put(GRASS_OFFSET_LOC, "grassOffset");
-
-		shaderProgram = ShaderProgram.createFromFiles(VERTEX_SHADER_NAME,
-				FRAGMENT_SHADER_NAME, attributes);
-
-		createList();
-	}
-
-	/**
-	 * Get element in map
-	 * 
-	 * @param src
-	 * @param row
-	 * @param col
-	 * @return
-	 */
-	private float getElement(float[][] src, int row, int col)
-	{
-		return src[getRealCol(row)][getRealCol(col)];
-	}
-
-	/**
-	 * Map a column / row to the corresponding one inside the map
-	 * 
-	 * @param col
-	 * @return
-	 */
-	private int getRealCol(int col)
-	{
-		col %= COLS;
-
-		if (col < 0)
-		{
-			col += COLS;
-		}
-
-		return col;
-	}
-
-	/**
-	 * Randomly generate a map
-	 * 
-	 * @param m
-	 * @param n
-	 * @return
-	 */
-	private float[][] generateRandomMap(int m, int n)
-	{
-		float[][] randomMap = new float[m][n];
-
-		for (int i = 0; i < m; ++i)
-		{
-			for (int j = 0; j < n; ++j)
-			{
-				randomMap[i][j] = (float) Math.random();
-			}
-		}
-		return randomMap;
-	}
-
-	/**
-	 * Compute a height map
-	 */
-	private void createHeightMap()
-	{
-		heightMap = generateRandomMap(COLS, COLS);
-
-		stretch();
-		
-		Filter gaussianFilter = new GaussianFilter(HALF_FILTER_SIZE,
-				HALF_FILTER_SIZE);
-		Filter meanFilter = new MeanFilter(HALF_FILTER_SIZE, HALF_FILTER_SIZE);
-
-		CombineFilter filter = new CombineFilter(HALF_FILTER_SIZE,
-				HALF_FILTER_SIZE);
-		filter.addFilter(gaussianFilter, GAUSSIAN_PROP);
-		filter.addFilter(meanFilter, 1.0f - GAUSSIAN_PROP);
-
-		// Use both a Gaussian and a mean filter to smooth the map
-		heightMap = filter.convolute(heightMap);
-
-		stretch();
-
-		for (int col = HALF_COLS - MULTIPLE_FLAT_COL; col <= HALF_COLS + MULTIPLE_FLAT_COL; ++col)
-		{
-			if (col < 0 || col >= COLS)
-			{
-				continue;
-			}
-			
-			float colCenter = Math.abs(col - HALF_COLS) / (float) FLAT_COL;
-			
-			for (int row = HALF_COLS - MULTIPLE_FLAT_ROW; row <= HALF_COLS + MULTIPLE_FLAT_ROW; ++row)
-			{
-				if (row < 0 || row >= COLS)
-				{
-					continue;
-				}
-				
-				float rowCenter = Math.abs(row - HALF_COLS) / (float) FLAT_ROW;
-				float center = (float) Math.sqrt(colCenter * colCenter + rowCenter * rowCenter);
-				
-				if (center < 1 + 1e-6)
-				{
-					heightMap[row][col] = PITCH;
-				}
-				else
-				{
-					center -= 1;
-					heightMap[row][col] = (float) (PITCH + (heightMap[row][col] - PITCH) * Math.pow(center / (MULTIPLE_FLAT - 1), FLAT_SLOPE));
-				}
-			}
-		}
-	}
-
-	/**
-	 * Adjust the heights
-	 */
-	private void stretch()
-	{
-		float high = LOWEST, low = HIGHEST;
-
-		for (int col = 0; col < COLS; ++col)
-		{
-			for (int row = 0; row < COLS; ++row)
-			{
-				if (heightMap[row][col] > high)
-				{
-					high = heightMap[row][col];
-				}
-
-				if (heightMap[row][col] < low)
-				{
-					low = heightMap[row][col];
-				}
-			}
-		}
-
-		float ratio = (HIGHEST - LOWEST) / (high - low);
-		
-		for (int col = 0; col < COLS; ++col)
-		{
-			for (int row = 0; row < COLS; ++row)
-			{
-				heightMap[row][col] = (heightMap[row][col] - low) * ratio
-						+ LOWEST;
-			}
-		}
-	}
-
-	/**
-	 * Compute the offset map so that the heights of different layers (snow,
-	 * dirt, grass) will not be identical for each position
-	 */
-	private void createOffsetMap()
-	{
-		Filter meanFilter = new GaussianFilter(HALF_SNOW_FILTER_SIZE,
-				HALF_SNOW_FILTER_SIZE);
-		float[][] randomMap = generateRandomMap(COLS, COLS);
-		snowMap = meanFilter.convolute(randomMap);
-
-		for (int i = 0; i < COLS; ++i)
-		{
-			for (int j = 0; j < COLS; ++j)
-			{
-				snowMap[i][j] = (snowMap[i][j] - 0.5f) * MAX_SNOW_OFFSET;
-			}
-		}
-
-		meanFilter = new GaussianFilter(HALF_GRASS_FILTER_SIZE,
-				HALF_GRASS_FILTER_SIZE);
-		randomMap = generateRandomMap(COLS, COLS);
-		grassMap = meanFilter.convolute(randomMap);
-
-		for (int i = 0; i < COLS; ++i)
-		{
-			for (int j = 0; j < COLS; ++j)
-			{
-				grassMap[i][j] = (grassMap[i][j] - 0.5f) * MAX_GRASS_OFFSET;
-			}
-		}
-	}
-
-	/**
-	 * Compute normals on each vertex
-	 * 
-	 * @param row
-	 * @param col
-	 * @return
-	 */
-	private Vector3f computeNormals(int row, int col)
-	{
-		Vector3f normal = new Vector3f();
-
-		normal.x = getElement(heightMap, row, col - 1)
-				- getElement(heightMap, row, col + 1);
-		normal.y = 2 * CELL_SIZE;
-		normal.z = getElement(heightMap, row - 1, col)
-				- getElement(heightMap, row + 1, col);
-
-		float sum = (float) Math.sqrt(normal.x * normal.x + normal.y * normal.y
-				+ normal.z * normal.z);
-
-		normal.x /= sum;
-		normal.y /= sum;
-		normal.z /= sum;
-
-		return normal;
-	}
-
-	/**
-	 * Create display list
-	 */
-	@Override
-	protected void createList()
-	{
-		LoadScreen.log("Create display list for terrain");
-		
-		list = glGenLists(1);		
-		glNewList(list, GL_COMPILE);
-		{
-			shaderProgram.bind();
-
-			// Set three textures
-			glActiveTexture(GL_TEXTURE0);
-			glBindTexture(GL_TEXTURE_2D, grass.getId());
-			shaderProgram.setUniformi("grass", 0);
-
-			glActiveTexture(GL_TEXTURE1);
-			glBindTexture(GL_TEXTURE_2D, dirt.getId());
-			shaderProgram.setUniformi("dirt", 1);
-
-			glActiveTexture(GL_TEXTURE2);
-			glBindTexture(GL_TEXTURE_2D, snow.getId());
-			shaderProgram.setUniformi("snow", 2);
-
-			glActiveTexture(GL_TEXTURE0);
-
-			// Set three heights of layers
-			shaderProgram.setUniformf("low", LOW);
-			shaderProgram.setUniformf("mid", MID);
-			shaderProgram.setUniformf("high", HIGH);
-
-			// Set the shininess, which will only be used for snow
-			glMaterialf(GL_FRONT, GL_SHININESS, SHINE);
-
-			int lastCol = 0;
-			float lastX = lastCol * CELL_SIZE - HALF_SIZE;
-			float lastTexX = lastX / (HALF_SIZE * 2);
-
-			// Draw quads to build terrain
-			for (int col = 1; col < COLS; ++col)
-			{
-				float x = col * CELL_SIZE - HALF_SIZE;
-				float texX = x / (HALF_SIZE * 2);
-
-				glBegin(GL_QUAD_STRIP);
-				{
-					for (int row = 0; row < COLS; ++row)
-					{
-						float z = row * CELL_SIZE - HALF_SIZE;
-						float texZ = z / (HALF_SIZE * 2);
-
-						// Set the normal, UV coordinate, vertex position and
-						// random
-						// offsets of heights of snow and grass layers for each
-						// vertex
-						Vector3f normalLeft = computeNormals(row, lastCol);
-						glNormal3f(normalLeft.x, normalLeft.y,
-								normalLeft.z);
-						glTexCoord2f(lastTexX, texZ);
-						glVertexAttrib1f(SNOW_OFFSET_LOC,
-								getElement(snowMap, row, lastCol));
-						glVertexAttrib1f(GRASS_OFFSET_LOC,
-								getElement(grassMap, row, lastCol));
-						glVertex3f(lastX,
-								getElement(heightMap, row, lastCol), z);
-
-						Vector3f normalRight = computeNormals(row, col);
-						glNormal3f(normalRight.x, normalRight.y,
-								normalRight.z);
-						glTexCoord2f(texX, texZ);
-						glVertexAttrib1f(SNOW_OFFSET_LOC,
-								getElement(snowMap, row, col));
-						glVertexAttrib1f(GRASS_OFFSET_LOC,
-								getElement(grassMap, row, col));
-						glVertex3f(x, getElement(heightMap, row, col), z);
-					}
-				}
-				glEnd();
-
-				lastCol = col;
-				lastX = x;
-				lastTexX = texX;
-			}
-
-			Texture.unbind();
-			ShaderProgram.unbind();
-		}
-		glEndList();
-	}
-
-	/**
-	 * Get the height of a specified position by linear interpolation
-	 * 
-	 * @param x
-	 * @param z
-	 * @return
-	 */
-	public float getHeight(float x, float z)
-	{
-		int col, col0, col1, row, row0, row1;
-
-		col = (int) (x / CELL_SIZE);
-		col0 = x > 0 ? col : col - 1;
-		col1 = col0 + 1;
-
-		row = (int) (z / CELL_SIZE);
-		row0 = z > 0 ? row : row - 1;
-		row1 = row0 + 1;
-
-		float h00, h01, h10, h11;
-
-		h00 = getElement(heightMap, row0, col0);
-		h01 = getElement(heightMap, row0, col1);
-		h10 = getElement(heightMap, row1, col0);
-		h11 = getElement(heightMap, row1, col1);
-
-		float pX, pZ;
-
-		pX = (x - col0 * CELL_SIZE) / CELL_SIZE;
-		pZ = (z - row0 * CELL_SIZE) / CELL_SIZE;
-
-		float height = h00 * (1.0f - pX) * (1.0f - pZ) + h11 * pX * pZ + h01
-				* pX * (1.0f - pZ) + h10 * pZ * (1.0f - pX);
-
-		return height;
-	}
-
-	/**
-	 * Save generated terrain to file
-	 * 
-	 * @param terraname
-	 */
-	public void save(String terraname)
-	{
-		try
-		{
-			DataOutputStream ostream = new DataOutputStream(
-					new BufferedOutputStream(new FileOutputStream(terraname)));
-
-			saveMap(ostream, heightMap);
-
-			saveMap(ostream, snowMap);
-			saveMap(ostream, grassMap);
-
-			ostream.close();
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-		}
-	}
-
-	/**
-	 * Load a two-dimensional float array to file
-	 * 
-	 * @param istream
-	 * @param map
-	 * @throws IOException
-	 */
-	private void loadMap(DataInputStream istream, float[][] map)
-			throws IOException
-	{
-		for (int i = 0; i < COLS; ++i)
-		{
-			for (int j = 0; j < COLS; ++j)
-			{
-				map[i][j] = istream.readFloat();
-			}
-		}
-	}
-
-	/**
-	 * Save a two-dimensional float array to file
-	 * 
-	 * @param ostream
-	 * @param map
-	 * @throws IOException
-	 */
-	private void saveMap(DataOutputStream ostream, float[][] map)
-			throws IOException
-	{
-		for (int i = 0; i < COLS; ++i)
-		{
-			for (int j = 0; j < COLS; ++j)
-			{
-				ostream.writeFloat(map[i][j]);
-			}
-		}
-	}
-}
+package edu.columbia.quidditch.render;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL13.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.ARBTextureFloat.*;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.ContextCapabilities;
+import org.lwjgl.opengl.GLContext;
+import org.lwjgl.util.vector.Vector3f;
+
+import edu.columbia.quidditch.MainGame;
+import edu.columbia.quidditch.basic.Frustum;
+import edu.columbia.quidditch.basic.ShaderProgram;
+import edu.columbia.quidditch.basic.Texture;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+import edu.columbia.quidditch.render.terra.TerraChunk;
+import edu.columbia.quidditch.render.terra.TerraData;
+import edu.columbia.quidditch.render.terra.TerraLod;
+import edu.columbia.quidditch.render.terra.TerraLodGrid;
+import edu.columbia.quidditch.render.terra.TerraParams;
+import edu.columbia.quidditch.render.terra.TerraPipeline;
+import edu.columbia.quidditch.util.AssetLoader;
+import edu.columbia.quidditch.util.HeightQuadtree;
+import edu.columbia.quidditch.util.Heightfield;
+import edu.columbia.quidditch.util.TerraFile;
+
+/**
+ * The terrain
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public class Terra extends Model
+{
+	// Sizes
+	public static final int HALF_SIZE = 4000;
+	public static final int QUARTER_SIZE = HALF_SIZE / 2;
+
+	// The centering height of snow, dirt and grass
+	static final float HIGH = 2000.0f;
+	static final float MID = 1200.0f;
+	static final float LOW = 400.0f;
+
+	static final float SHINE = 25.0f;
+
+	// Size of cells and number of columns (rows)
+	static final int CELL_SIZE = 25;
+
+	private static final int COLS = HALF_SIZE / CELL_SIZE * 2;
+
+	// Cells along each side of a chunk, and chunks along each side of the map
+	static final int CHUNK_CELLS = 32;
+	private static final int CHUNK_COUNT = COLS / CHUNK_CELLS;
+
+	// Chunks are drawn with every 2^n-th vertex when they are at least
+	// LOD_DISTANCE * 2^(n-1) away, up to LOD_LEVELS - 1
+	static final int LOD_LEVELS = 5;
+	static final float LOD_DISTANCE = 800.0f;
+	
+	// Location of vertex attributes in my GLSL program
+	static final int SNOW_OFFSET_LOC = 6;
+	static final int GRASS_OFFSET_LOC = 7;
+
+	static final String GRASS_NAME = "res/terra/grass.jpg";
+	static final String DIRT_NAME = "res/terra/dirt.jpg";
+	static final String SNOW_NAME = "res/terra/snow.jpg";
+
+	private static final String VERTEX_SHADER_NAME = "shaders/terra.vsh";
+	static final String CPU_VERTEX_SHADER_NAME = "shaders/terra_cpu.vsh";
+	static final String FRAGMENT_SHADER_NAME = "shaders/terra.fsh";
+
+	private static final String TERRA_NAME = "res/terra/terra.map";
+
+	private Heightfield heightMap, snowMap, grassMap;
+
+	private Texture grass, dirt, snow;
+	private ShaderProgram shaderProgram;
+
+	private TerraChunk[] chunks;
+	private TerraLod lod;
+
+	// Level of detail of each chunk in the current frame
+	private TerraLodGrid lodGrid;
+
+	private Frustum frustum;
+
+	// Used by ray queries
+	private HeightQuadtree quadtree;
+
+	// Whether vertices are computed from the map texture in the vertex shader
+	private boolean gpuTerrain;
+
+	private int mapTexture, gridBuffer;
+	private int originLoc;
+
+	/**
+	 * If terra.map exists, load it. Otherwise, generate a terrain from the
+	 * default parameters.
+	 * 
+	 * @param game
+	 * @return
+	 */
+	public static Terra create(MainGame game)
+	{
+		return create(game, load());
+	}
+
+	/**
+	 * Create the terrain of some parameters, reusing the cached one if it was
+	 * generated before
+	 * 
+	 * @param game
+	 * @param params
+	 * @return
+	 */
+	public static Terra create(MainGame game, TerraParams params)
+	{
+		return create(game, load(params));
+	}
+
+	/**
+	 * Wait for a terrain prepared in the background and upload it. Must be
+	 * called in the OpenGL thread
+	 * 
+	 * @param game
+	 * @param data
+	 * @return
+	 */
+	public static Terra create(MainGame game, Future<TerraData> data)
+	{
+		try
+		{
+			return new Terra(game, data.get());
+		}
+		catch (InterruptedException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+			return null;
+		}
+		catch (ExecutionException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+			return null;
+		}
+	}
+
+	/**
+	 * Start decoding the textures of the terrain in the background, which
+	 * are also used by the streaming terrain
+	 */
+	public static void preload()
+	{
+		AssetLoader loader = AssetLoader.getDefault();
+
+		loader.loadTexture(GRASS_NAME);
+		loader.loadTexture(DIRT_NAME);
+		loader.loadTexture(SNOW_NAME);
+	}
+
+	/**
+	 * Start preparing the terrain in terra.map, or the terrain of the default
+	 * parameters if there is no such file. Must be called in the OpenGL
+	 * thread, which decides how the terrain is drawn
+	 * 
+	 * @return
+	 */
+	public static Future<TerraData> load()
+	{
+		return new TerraPipeline(TERRA_NAME, getDefaultParams(), CHUNK_CELLS,
+				isGpuTerrainSupported()).start();
+	}
+
+	/**
+	 * Start preparing the terrain of some parameters. Must be called in the
+	 * OpenGL thread
+	 * 
+	 * @param params
+	 * @return
+	 */
+	public static Future<TerraData> load(TerraParams params)
+	{
+		return new TerraPipeline(null, params, CHUNK_CELLS,
+				isGpuTerrainSupported()).start();
+	}
+
+	/**
+	 * Get the parameters of the default terrain
+	 * 
+	 * @return
+	 */
+	public static TerraParams getDefaultParams()
+	{
+		return new TerraParams(TerraParams.DEFAULT_SEED, COLS, CELL_SIZE);
+	}
+
+	/**
+	 * Upload a prepared terrain
+	 * 
+	 * @param game
+	 * @param data
+	 */
+	private Terra(MainGame game, TerraData data)
+	{
+		super(game);
+
+		Heightfield[] layers = data.getLayers();
+
+		heightMap = layers[0];
+		snowMap = layers[1];
+		grassMap = layers[2];
+
+		chunks = data.getChunks();
+		quadtree = data.getQuadtree();
+
+		grass = Texture.createFromFile(GRASS_NAME);
+		dirt = Texture.createFromFile(DIRT_NAME);
+		snow = Texture.createFromFile(SNOW_NAME);
+
+		gpuTerrain = data.getTexels() != null;
+
+		if (gpuTerrain)
+		{
+			shaderProgram = ShaderProgram.createFromFiles(VERTEX_SHADER_NAME,
+					FRAGMENT_SHADER_NAME, null);
+			originLoc = shaderProgram.getUniformLocation("chunkOrigin");
+
+			LoadScreen.log("Upload terrain maps as a texture");
+			createMapTexture(data.getTexels());
+			createGrid();
+		}
+		else
+		{
+			LoadScreen.log("Float vertex textures are not supported, "
+					+ "computing terrain vertices on CPU");
+
+			HashMap<Integer, String> attributes = new HashMap<Integer, String>();
+			attributes.put(SNOW_OFFSET_LOC, "snowOffset");
+			attributes.put(GRASS_OFFSET_LOC, "grassOffset");
+
+			shaderProgram = ShaderProgram.createFromFiles(
+					CPU_VERTEX_SHADER_NAME, FRAGMENT_SHADER_NAME, attributes);
+
+			LoadScreen.log("Upload vertex buffers for terrain");
+			FloatBuffer[] chunkVertices = data.getChunkVertices();
+
+			for (int i = 0; i < chunks.length; ++i)
+			{
+				chunks[i].upload(chunkVertices[i]);
+			}
+		}
+
+		lod = new TerraLod(CHUNK_CELLS, LOD_LEVELS);
+		lodGrid = new TerraLodGrid(CHUNK_COUNT);
+
+		frustum = new Frustum();
+
+		createList();
+	}
+
+	/**
+	 * Check whether float textures can be read in the vertex shader
+	 * 
+	 * @return
+	 */
+	private static boolean isGpuTerrainSupported()
+	{
+		ContextCapabilities caps = GLContext.getCapabilities();
+
+		if (!caps.OpenGL30 && !caps.GL_ARB_texture_float)
+		{
+			return false;
+		}
+
+		return glGetInteger(GL_MAX_VERTEX_TEXTURE_IMAGE_UNITS) > 0;
+	}
+
+	/**
+	 * Create the display list which sets up the shader
+	 */
+	@Override
+	protected void createList()
+	{
+		list = glGenLists(1);
+		glNewList(list, GL_COMPILE);
+		{
+			shaderProgram.bind();
+
+			// Set three textures
+			glActiveTexture(GL_TEXTURE0);
+			glBindTexture(GL_TEXTURE_2D, grass.getId());
+			shaderProgram.setUniformi("grass", 0);
+
+			glActiveTexture(GL_TEXTURE1);
+			glBindTexture(GL_TEXTURE_2D, dirt.getId());
+			shaderProgram.setUniformi("dirt", 1);
+
+			glActiveTexture(GL_TEXTURE2);
+			glBindTexture(GL_TEXTURE_2D, snow.getId());
+			shaderProgram.setUniformi("snow", 2);
+
+			if (gpuTerrain)
+			{
+				// The vertex shader reads heights and offsets from this one
+				glActiveTexture(GL_TEXTURE3);
+				glBindTexture(GL_TEXTURE_2D, mapTexture);
+				shaderProgram.setUniformi("terraMap", 3);
+
+				shaderProgram.setUniformf("cols", COLS);
+				shaderProgram.setUniformf("cellSize", CELL_SIZE);
+				shaderProgram.setUniformf("halfSize", HALF_SIZE);
+			}
+
+			glActiveTexture(GL_TEXTURE0);
+
+			// Set three heights of layers
+			shaderProgram.setUniformf("low", LOW);
+			shaderProgram.setUniformf("mid", MID);
+			shaderProgram.setUniformf("high", HIGH);
+
+			// Set the shininess, which will only be used for snow
+			glMaterialf(GL_FRONT, GL_SHININESS, SHINE);
+		}
+		glEndList();
+	}
+
+	/**
+	 * Upload the height map, snow offset map and grass offset map as the red,
+	 * green and blue channels of a float texture
+	 * 
+	 * @param texels
+	 */
+	private void createMapTexture(FloatBuffer texels)
+	{
+		mapTexture = glGenTextures();
+		glBindTexture(GL_TEXTURE_2D, mapTexture);
+
+		// Every vertex reads the center of a texel, and the map repeats
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_S, GL_REPEAT);
+		glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_WRAP_T, GL_REPEAT);
+
+		glTexImage2D(GL_TEXTURE_2D, 0, GL_RGB32F_ARB, COLS, COLS, 0, GL_RGB,
+				GL_FLOAT, texels);
+
+		glBindTexture(GL_TEXTURE_2D, 0);
+	}
+
+	/**
+	 * Create the grid shared by all chunks, whose vertices are only grid
+	 * coordinates
+	 */
+	private void createGrid()
+	{
+		int side = CHUNK_CELLS + 1;
+		FloatBuffer vertices = BufferUtils.createFloatBuffer(side * side * 2);
+
+		for (int i = 0; i < side; ++i)
+		{
+			for (int j = 0; j < side; ++j)
+			{
+				vertices.put(j).put(i);
+			}
+		}
+
+		vertices.flip();
+
+		gridBuffer = glGenBuffers();
+		glBindBuffer(GL_ARRAY_BUFFER, gridBuffer);
+		glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Draw the chunks inside the view frustum, each at its level of detail
+	 */
+	@Override
+	public void render()
+	{
+		if (list == NO_LIST)
+		{
+			createList();
+		}
+
+		frustum.update(game.getProjBuffer());
+		lodGrid.select(chunks, frustum.getEyeX(), frustum.getEyeY(),
+				frustum.getEyeZ(), LOD_DISTANCE, LOD_LEVELS);
+
+		glCallList(list);
+
+		glEnableClientState(GL_VERTEX_ARRAY);
+
+		if (gpuTerrain)
+		{
+			// All chunks share the grid and differ only in the origin
+			glBindBuffer(GL_ARRAY_BUFFER, gridBuffer);
+			glVertexPointer(2, GL_FLOAT, 0, 0);
+		}
+		else
+		{
+			glEnableClientState(GL_NORMAL_ARRAY);
+			glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+			glEnableVertexAttribArray(SNOW_OFFSET_LOC);
+			glEnableVertexAttribArray(GRASS_OFFSET_LOC);
+		}
+
+		lod.bind();
+
+		for (int chunkRow = 0; chunkRow < CHUNK_COUNT; ++chunkRow)
+		{
+			for (int chunkCol = 0; chunkCol < CHUNK_COUNT; ++chunkCol)
+			{
+				int i = chunkRow * CHUNK_COUNT + chunkCol;
+				TerraChunk chunk = chunks[i];
+
+				if (!chunk.isVisible(frustum))
+				{
+					continue;
+				}
+
+				int level = lodGrid.getLevel(chunkRow, chunkCol);
+				int mask = lodGrid.getCoarserSides(chunkRow, chunkCol);
+
+				if (gpuTerrain)
+				{
+					glUniform2f(originLoc, chunkCol * CHUNK_CELLS, chunkRow
+							* CHUNK_CELLS);
+					glDrawElements(GL_TRIANGLES, lod.getCount(level, mask),
+							GL_UNSIGNED_SHORT, lod.getOffset(level, mask));
+				}
+				else
+				{
+					chunk.render(lod.getOffset(level, mask),
+							lod.getCount(level, mask), SNOW_OFFSET_LOC,
+							GRASS_OFFSET_LOC);
+				}
+			}
+		}
+
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+		if (!gpuTerrain)
+		{
+			glDisableVertexAttribArray(SNOW_OFFSET_LOC);
+			glDisableVertexAttribArray(GRASS_OFFSET_LOC);
+			glDisableClientState(GL_NORMAL_ARRAY);
+			glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+		}
+
+		glDisableClientState(GL_VERTEX_ARRAY);
+
+		Texture.unbind();
+		ShaderProgram.unbind();
+	}
+
+	/**
+	 * Get the height of a specified position by linear interpolation
+	 * 
+	 * @param x
+	 * @param z
+	 * @return
+	 */
+	public float getHeight(float x, float z)
+	{
+		return heightMap.getInterpolated((z + HALF_SIZE) / CELL_SIZE,
+				(x + HALF_SIZE) / CELL_SIZE);
+	}
+
+	/**
+	 * Get the heights of many positions at once
+	 * 
+	 * @param xz
+	 *            positions stored as x0, z0, x1, z1, ...
+	 * @param heights
+	 *            the array to store the heights
+	 * @param count
+	 *            number of positions
+	 */
+	public void getHeights(float[] xz, float[] heights, int count)
+	{
+		for (int i = 0; i < count; ++i)
+		{
+			heights[i] = heightMap.getInterpolated((xz[i * 2 + 1] + HALF_SIZE)
+					/ CELL_SIZE, (xz[i * 2] + HALF_SIZE) / CELL_SIZE);
+		}
+	}
+
+	/**
+	 * Find where a ray first hits the terrain, e.g. for line-of-sight checks
+	 * 
+	 * @param origin
+	 * @param dir
+	 * @param maxDistance
+	 *            the farthest point to check is origin + dir * maxDistance
+	 * @return t such that the hit is at origin + dir * t, or
+	 *         HeightQuadtree.NO_HIT
+	 */
+	public float intersectRay(Vector3f origin, Vector3f dir, float maxDistance)
+	{
+		// The quadtree works in cells with the map beginning at the origin
+		return quadtree.intersectRay((origin.x + HALF_SIZE) / CELL_SIZE,
+				origin.y, (origin.z + HALF_SIZE) / CELL_SIZE, dir.x
+						/ CELL_SIZE, dir.y, dir.z / CELL_SIZE, maxDistance);
+	}
+
+	/**
+	 * Save generated terrain to file
+	 * 
+	 * @param terraname
+	 */
+	public void save(String terraname)
+	{
+		try
+		{
+			TerraFile.save(terraname, CELL_SIZE, heightMap, snowMap, grassMap);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
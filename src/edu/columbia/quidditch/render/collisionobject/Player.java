@@ -1,896 +1,1279 @@
-package edu.columbia.quidditch.render.collisionobject;
-
-import java.io.IOException;
-import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.HashMap;
-
-import static org.lwjgl.opengl.GL11.*;
-
-import org.lwjgl.BufferUtils;
-import org.lwjgl.util.vector.Matrix4f;
-import org.lwjgl.util.vector.Vector3f;
-import org.lwjgl.util.vector.Vector4f;
-
-import edu.columbia.quidditch.MainGame;
-import edu.columbia.quidditch.basic.Material;
-import edu.columbia.quidditch.basic.ShaderProgram;
-import edu.columbia.quidditch.basic.Texture;
-import edu.columbia.quidditch.render.Broom;
-import edu.columbia.quidditch.render.Model;
-import edu.columbia.quidditch.render.link.Link;
-import edu.columbia.quidditch.render.screen.PlayScreen;
-import edu.columbia.quidditch.util.IQELoader;
-
-/**
- * Player class
- * 
- * @author Yuqing Guan, Yilin Xiong, Jihan Li
- * 
- */
-public class Player extends CollisionObject
-{
-	public static final int TEAM_GRYFFINDOR = 0;
-	public static final int TEAM_SLYTHERIN = 1;
-	public static final int TEAM_RAVENCLAW = 2;
-	public static final int TEAM_HUFFLEPUFF = 3;
-
-	private static final float SHINE = 25;
-	private static final float SCALE = 21;
-
-	private static final float RADIUS = 42;
-	private static final float SECOND_RADIUS = 32;
-
-	private static final float W = 0.25f;
-	private static final float DY = 2f;
-	private static final float DR = 5f;
-	private static final float ACCELERATOR = 0.002f;
-	private static final float GRAVITY = -0.02f;
-
-	private static final float MIN_V = 0.01f;
-	private static final float MAX_V = 0.3f;
-
-	private static final String MODEL_NAME = "res/char/char.iqe";
-
-	private static ArrayList<Integer> jointParentList;
-	private static ArrayList<float[]> jointPQList;
-
-	private static ArrayList<Vector3f> verList, texList, norList;
-	private static ArrayList<ArrayList<ArrayList<Integer>>> meshList;
-
-	private static ArrayList<String> mtlList;
-	private static HashMap<String, Material> mtlMap;
-
-	private static ArrayList<HashMap<Integer, Float>> weightList;
-
-	private static int linksize, verSize;
-
-	private static FloatBuffer specularBuffer;
-
-	private boolean controllable = true;
-	private boolean inUserTeam = true;
-	private boolean isCollided = false;
-	private int interval;
-
-	private static HashMap<String, Material[]> mutableMtls;
-
-	private static int triangleList;
-
-	static
-	{
-		try
-		{
-			IQELoader loader = new IQELoader(MODEL_NAME);
-
-			jointParentList = loader.getJointParentList();
-			jointPQList = loader.getJointPQList();
-
-			linksize = jointParentList.size();
-
-			verList = loader.getVerList();
-			texList = loader.getTexList();
-			norList = loader.getNorList();
-
-			verSize = verList.size();
-
-			meshList = loader.getMeshList();
-			mtlList = loader.getMtlList();
-
-			mtlMap = loader.getMtlMap();
-
-			weightList = loader.getWeightList();
-
-			specularBuffer = BufferUtils.createFloatBuffer(4);
-			specularBuffer.put(0.6f).put(0.6f).put(0.6f).put(0.6f).flip();
-
-			Texture[] coats, emblems, shirts;
-
-			coats = new Texture[4];
-			emblems = new Texture[4];
-			shirts = new Texture[4];
-
-			for (int i = 0; i < 4; ++i)
-			{
-				coats[i] = Texture.createFromFile("res/char/textures/coat" + i
-						+ ".png");
-				emblems[i] = Texture.createFromFile("res/char/textures/emblem"
-						+ i + ".png");
-				shirts[i] = Texture.createFromFile("res/char/textures/shirt"
-						+ i + ".png");
-			}
-
-			mutableMtls = new HashMap<String, Material[]>();
-
-			Material[] mutableMtl;
-			String mtlName;
-			Material originMtl;
-
-			mutableMtl = new Material[4];
-			mtlName = "Material7";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(coats[i]);
-			}
-
-			mutableMtl = new Material[4];
-			mtlName = "Material8";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(coats[i]);
-			}
-
-			mutableMtl = new Material[4];
-			mtlName = "Material9";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(coats[i]);
-			}
-
-			mutableMtl = new Material[4];
-			mtlName = "Material10";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(emblems[i]);
-			}
-
-			mutableMtl = new Material[4];
-			mtlName = "Material11";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(coats[i]);
-			}
-
-			mutableMtl = new Material[4];
-			mtlName = "Material12";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(coats[i]);
-			}
-
-			mutableMtl = new Material[4];
-			mtlName = "Material13";
-			originMtl = mtlMap.get(mtlName);
-			mutableMtls.put(mtlName, mutableMtl);
-
-			for (int i = 0; i < 4; ++i)
-			{
-				mutableMtl[i] = originMtl.copy();
-				mutableMtl[i].setTexture(shirts[i]);
-			}
-
-			triangleList = glGenLists(1);
-
-			glNewList(triangleList, GL_COMPILE);
-
-			glDisable(GL_LIGHTING);
-
-			glColor3f(0, 0, 0.9f);
-
-			glBegin(GL_TRIANGLES);
-			{
-				glVertex3d(-6, 70, 0);
-				glVertex3d(6, 70, 0);
-				glVertex3d(0, 60, 0);
-			}
-			glEnd();
-
-			glColor3f(0, 0, 0);
-
-			glBegin(GL_LINE_LOOP);
-			{
-				glVertex3d(-6, 70, 0);
-				glVertex3d(6, 70, 0);
-				glVertex3d(0, 60, 0);
-			}
-			glEnd();
-
-			glEnable(GL_LIGHTING);
-
-			glEndList();
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-			System.exit(1);
-		}
-	}
-
-	private ArrayList<HashMap<Integer, Vector4f>> verLinkOffsetsList,
-			norLinkOffsetsList;
-
-	private ShaderProgram shaderProgram;
-
-	private Link[] links;
-	private Model broom;
-
-	private int team, handUpList;
-	private boolean handDown;
-
-	public Player(MainGame game, PlayScreen screen, int team,
-			boolean inUserTeam, Vector3f defaultPos)
-	{
-		super(game, screen, RADIUS, defaultPos);
-
-		this.inUserTeam = inUserTeam;
-		setInterval((int) Math.floor(Math.random() * 300) + 1);
-
-		broom = Broom.create(game);
-
-		if (!inUserTeam)
-		{
-			rot.y = 180;
-		}
-
-		handDown = true;
-		this.team = team;
-
-		handUpList = glGenLists(1);
-
-		links = new Link[linksize];
-		links = new Link[linksize];
-
-		int[] parentIndices = new int[linksize];
-
-		// Set joints
-
-		for (int i = 0; i < linksize; ++i)
-		{
-			float[] pq = jointPQList.get(i);
-			links[i] = links[i] = new Link(pq[0], pq[1], pq[2], pq[3], pq[4],
-					pq[5], pq[6]);
-			parentIndices[i] = jointParentList.get(i);
-		}
-
-		for (int i = 0; i < linksize; ++i)
-		{
-			int parent = parentIndices[i];
-
-			if (parent >= 0)
-			{
-				links[parent].addChild(links[i]);
-			}
-		}
-
-		setDefaultTrans();
-		initFixedPosture();
-
-		shaderProgram = ShaderProgram.getDefaultShader();
-
-		list = glGenLists(1);
-		createList();
-	}
-
-	public int getTeam()
-	{
-		return team;
-	}
-
-	private void initFixedPosture()
-	{
-		links[18].setTheta(45);
-		links[26].setTheta(45);
-
-		links[30].setTheta(15);
-		links[31].setTheta(15);
-
-		links[42].setTheta(-15);
-		links[43].setTheta(-15);
-
-		links[27].setTheta(-165);
-		links[39].setTheta(-80);
-
-		links[28].setTheta(-165);
-		links[40].setTheta(-80);
-
-		links[56].setTheta(0);
-	}
-
-	public void handDown()
-	{
-		handDown = true;
-	}
-
-	public void handUp()
-	{
-		handDown = false;
-	}
-
-	public void setTeam(int team)
-	{
-		this.team = team;
-		createList();
-	}
-
-	@Override
-	protected void createList()
-	{
-		links[60].setTheta(0);
-		draw(list);
-		links[60].setTheta(90);
-		draw(handUpList);
-	}
-
-	private void setDefaultTrans()
-	{
-		Matrix4f[] invTrans = new Matrix4f[linksize];
-		Matrix4f[] tranTrans = new Matrix4f[linksize];
-
-		for (int i = 0; i < linksize; ++i)
-		{
-			Matrix4f globalTrans = links[i].getGlobalTrans();
-
-			invTrans[i] = new Matrix4f();
-			tranTrans[i] = new Matrix4f();
-
-			Matrix4f.invert(globalTrans, invTrans[i]);
-			Matrix4f.transpose(globalTrans, tranTrans[i]);
-		}
-
-		// Convert the vertex positions to links' local coordinates
-
-		verLinkOffsetsList = new ArrayList<HashMap<Integer, Vector4f>>();
-
-		for (int i = 0; i < verSize; ++i)
-		{
-			HashMap<Integer, Vector4f> verLinkOffsets = new HashMap<Integer, Vector4f>();
-			verLinkOffsetsList.add(verLinkOffsets);
-
-			HashMap<Integer, Float> weightMap = weightList.get(i);
-			for (int index : weightMap.keySet())
-			{
-				Vector3f ver = verList.get(i);
-
-				Vector4f extVer = new Vector4f();
-				extVer.x = ver.x;
-				extVer.y = ver.y;
-				extVer.z = ver.z;
-				extVer.w = 1;
-
-				Vector4f offset = new Vector4f();
-				Matrix4f.transform(invTrans[index], extVer, offset);
-
-				verLinkOffsets.put(index, offset);
-			}
-		}
-
-		// Convert the normals to links' local coordinates
-
-		norLinkOffsetsList = new ArrayList<HashMap<Integer, Vector4f>>();
-
-		for (int i = 0; i < verSize; ++i)
-		{
-			HashMap<Integer, Vector4f> norLinkOffsets = new HashMap<Integer, Vector4f>();
-			norLinkOffsetsList.add(norLinkOffsets);
-
-			HashMap<Integer, Float> weightMap = weightList.get(i);
-			for (int index : weightMap.keySet())
-			{
-				Vector3f nor = norList.get(i);
-
-				Vector4f extNor = new Vector4f();
-				extNor.x = nor.x;
-				extNor.y = nor.y;
-				extNor.z = nor.z;
-				extNor.w = 0;
-
-				Vector4f offset = new Vector4f();
-				Matrix4f.transform(tranTrans[index], extNor, offset);
-
-				norLinkOffsets.put(index, offset);
-			}
-		}
-	}
-
-	private void draw(int currentList)
-	{
-		Matrix4f[] globalTrans = new Matrix4f[linksize];
-		Matrix4f[] invTranTrans = new Matrix4f[linksize];
-
-		// Compute inverted transposed matrices for normals
-
-		for (int i = 0; i < linksize; ++i)
-		{
-			globalTrans[i] = links[i].getGlobalTrans();
-
-			invTranTrans[i] = new Matrix4f();
-			Matrix4f.invert(globalTrans[i], invTranTrans[i]);
-			invTranTrans[i].m30 = invTranTrans[i].m31 = invTranTrans[i].m32 = 0;
-
-			Matrix4f.transpose(invTranTrans[i], invTranTrans[i]);
-		}
-
-		// Compute the weighted-average positions of vertices
-
-		Vector3f[] realVerList = new Vector3f[verSize];
-
-		for (int i = 0; i < verSize; ++i)
-		{
-			realVerList[i] = new Vector3f();
-
-			HashMap<Integer, Float> weightMap = weightList.get(i);
-			HashMap<Integer, Vector4f> verLinkOffsetsMap = verLinkOffsetsList
-					.get(i);
-
-			for (int index : weightMap.keySet())
-			{
-				float weight = weightMap.get(index);
-				Vector4f offset = verLinkOffsetsMap.get(index);
-
-				Vector4f linkVer = new Vector4f();
-				Matrix4f.transform(globalTrans[index], offset, linkVer);
-
-				realVerList[i].x += linkVer.x * weight;
-				realVerList[i].y += linkVer.y * weight;
-				realVerList[i].z += linkVer.z * weight;
-			}
-		}
-
-		// Compute the weighted-average directions of normals
-
-		Vector3f[] realNorList = new Vector3f[verSize];
-
-		for (int i = 0; i < verSize; ++i)
-		{
-			realNorList[i] = new Vector3f();
-
-			HashMap<Integer, Float> weightMap = weightList.get(i);
-			HashMap<Integer, Vector4f> norLinkOffsetsMap = norLinkOffsetsList
-					.get(i);
-
-			for (int index : weightMap.keySet())
-			{
-				float weight = weightMap.get(index);
-				Vector4f offset = norLinkOffsetsMap.get(index);
-
-				Vector4f linkNor = new Vector4f();
-				Matrix4f.transform(invTranTrans[index], offset, linkNor);
-
-				realNorList[i].x += linkNor.x * weight;
-				realNorList[i].y += linkNor.y * weight;
-				realNorList[i].z += linkNor.z * weight;
-			}
-		}
-
-		glNewList(currentList, GL_COMPILE);
-		{
-			glPushMatrix();
-
-			glMaterialf(GL_FRONT, GL_SHININESS, SHINE);
-			glMaterial(GL_FRONT, GL_SPECULAR, specularBuffer);
-
-			glScalef(SCALE, SCALE, SCALE);
-			glTranslatef(0, -1, 2);
-			glRotatef(180, 0, 1, 0);
-			glRotatef(-45, 1, 0, 0);
-
-			shaderProgram.bind();
-			shaderProgram.setUniformi("tex", 0);
-
-			// Render each mesh with a material
-
-			int idx = 0;
-			for (ArrayList<ArrayList<Integer>> mesh : meshList)
-			{
-				String mtlName = mtlList.get(idx);
-
-				Material material;
-
-				if (mutableMtls.containsKey(mtlName))
-				{
-					material = mutableMtls.get(mtlName)[team];
-				}
-				else
-				{
-					material = mtlMap.get(mtlName);
-				}
-
-				material.bind();
-				shaderProgram.setUniformi("hasTex", material.hasTexture() ? 1
-						: 0);
-
-				// Draw each face
-
-				for (ArrayList<Integer> face : mesh)
-				{
-					glBegin(GL_POLYGON);
-					{
-						int faceSize = face.size();
-
-						for (int i = faceSize - 1; i >= 0; --i)
-						{
-							int point = face.get(i);
-
-							Vector3f nor = realNorList[point];
-							glNormal3f(nor.x, nor.y, nor.z);
-
-							Vector3f tex = texList.get(point);
-							glTexCoord2f(tex.x, tex.y);
-
-							Vector3f ver = realVerList[point];
-							glVertex3f(ver.x, ver.y, ver.z);
-						}
-					}
-					glEnd();
-				}
-
-				++idx;
-			}
-
-			Texture.unbind();
-			ShaderProgram.unbind();
-
-			glPopMatrix();
-		}
-		glEndList();
-	}
-
-	@Override
-	public void render()
-	{
-		glPushMatrix();
-
-		glTranslatef(pos.x, pos.y, pos.z);
-
-		glRotatef(rot.y, 0, 1, 0);
-
-		glCallList(handDown ? list : handUpList);
-
-		broom.render();
-
-		if (this == screen.getCurrentPlayer())
-		{
-			glRotatef(-rot.y, 0, 1, 0);
-			glCallList(triangleList);
-		}
-
-		glPopMatrix();
-	}
-
-	@Override
-	public boolean checkCollision(CollisionObject other)
-	{
-		Vector3f dPos = new Vector3f();
-		Vector3f dVel = new Vector3f();
-		Vector3f.sub(pos, other.pos, dPos);
-		Vector3f.sub(velocity, other.velocity, dVel);
-
-		float dotPro = Vector3f.dot(dPos, dVel);
-
-		if (dotPro >= -0.01f)
-		{
-			return false;
-		}
-
-		if (other instanceof Player)
-		{
-			return dPos.length() < 2 * SECOND_RADIUS + COLLISION_DELTA;
-		}
-		else
-		{
-			return dPos.length() < radius + other.radius + COLLISION_DELTA;
-		}
-	}
-
-	public boolean checkCollision(Player other, float radius)
-	{
-		Vector3f dPos = new Vector3f();
-		Vector3f dVel = new Vector3f();
-		Vector3f.sub(pos, other.pos, dPos);
-		Vector3f.sub(velocity, other.velocity, dVel);
-
-		float dotPro = Vector3f.dot(dPos, dVel);
-
-		if (dotPro >= -0.01f)
-		{
-			return false;
-		}
-
-		return dPos.length() < radius + other.radius;
-	}
-
-	public void moveY(int sign)
-	{
-		pos.y += sign * DY;
-
-		if (pos.y > PlayScreen.TOP)
-		{
-			pos.y = PlayScreen.TOP;
-		}
-		else if (pos.y < PlayScreen.BOTTOM)
-		{
-			pos.y = PlayScreen.BOTTOM;
-		}
-	}
-
-	public void rotY(int sign, float delta)
-	{
-		rot.y += sign * delta * W;
-
-		if (rot.y > 180.0f)
-		{
-			rot.y -= 360.0f;
-		}
-		else if (rot.y < -180.0f)
-		{
-			rot.y += 360.0f;
-		}
-	}
-
-	public void resetRotX()
-	{
-		rot.x = 0;
-	}
-
-	public void accelerate()
-	{
-		if (speed < MAX_V)
-		{
-			speed += ACCELERATOR;
-		}
-	}
-
-	public void accelerate(float alpha)
-	{
-		if (speed <= MAX_V * alpha)
-		{
-			speed += ACCELERATOR;
-		}
-		else
-		{
-			speed = MAX_V * alpha;
-		}
-	}
-
-	public void decelerate()
-	{
-		if (speed > MIN_V)
-		{
-			speed -= ACCELERATOR;
-		}
-	}
-
-	@Override
-	protected void refreshVelocity()
-	{
-		if (controllable)
-		{
-			velocity.x = (float) (-Math.sin(Math.toRadians(rot.y)) * speed);
-			velocity.z = (float) (-Math.cos(Math.toRadians(rot.y)) * speed);
-			velocity.y = 0;
-		}
-		else
-		{
-			velocity.y += GRAVITY;
-		}
-	}
-
-	@Override
-	protected void doOutHeight(Vector3f newPos)
-	{
-		if (newPos.y < PlayScreen.BOTTOM)
-		{
-			controllable = true;
-			newPos.y = PlayScreen.BOTTOM;
-		}
-
-		if (newPos.y > PlayScreen.TOP)
-		{
-			newPos.y = PlayScreen.TOP;
-		}
-
-	}
-
-	@Override
-	protected void doOutOval(Vector3f newPos, float delta)
-	{
-		if (Math.abs(newPos.x) > PlayScreen.SHORT_AXIS * COFF * 0.9
-				&& Math.abs(newPos.z) > PlayScreen.LONG_AXIS * COFF * 0.9)
-		{
-			setRotBasedOnDX(Vector3f.sub(new Vector3f(0, 0, 0), newPos, null));
-			fall();
-			return;
-		}
-		if ((newPos.x >= PlayScreen.SHORT_AXIS * COFF)
-				|| (newPos.x <= -PlayScreen.SHORT_AXIS * COFF))
-		{
-			rot.y = -1 * rot.y;
-		}
-		if ((newPos.z >= PlayScreen.LONG_AXIS * COFF)
-				|| (newPos.z <= -PlayScreen.LONG_AXIS * COFF))
-		{
-			rot.y = 180 - rot.y;
-		}
-		fall();
-	}
-
-	public boolean isControllable()
-	{
-		return controllable;
-	}
-
-	@Override
-	public void reset()
-	{
-		super.reset();
-		rot.set(0, inUserTeam ? 0 : 180, 0);
-		isCollided = false;
-		controllable = true;
-		handDown = true;
-	}
-
-	public void fall()
-	{
-
-		speed = 0;
-
-		controllable = false;
-	}
-
-	public void setBasedOnV()
-	{
-		velocity.y = 0;
-		speed = velocity.length();
-		if (speed < 0.001f)
-		{
-			return;
-		}
-		setRotBasedOnDX(velocity);
-	}
-
-	public void setRotBasedOnDX(Vector3f dx)
-	{
-		float roty = (float) Math.asin(dx.x / dx.length());
-
-		if (dx.z > 0)
-		{
-			roty -= Math.PI;
-		}
-		else
-		{
-			roty *= -1;
-		}
-
-		roty = (float) Math.toDegrees(roty);
-
-		rotYToValue(roty);
-
-		if (dx.y > DY)
-		{
-			moveY(1);
-		}
-		else if (dx.y < -DY)
-		{
-			moveY(-1);
-		}
-	}
-
-	public void rotYToValue(float roty)
-	{
-		float w = roty - rot.y;
-
-		while (w > 180)
-		{
-			w -= 360;
-		}
-		while (w <= -180)
-		{
-			w += 360;
-		}
-
-		if (Math.abs(w) > DR)
-		{
-			w = Math.signum(w) * DR;
-		}
-
-		rot.y += w;
-	}
-
-	public boolean avoidOval()
-	{
-		if ((pos.x >= PlayScreen.SHORT_AXIS * COFF * 0.9)
-				|| (pos.x <= -PlayScreen.SHORT_AXIS * COFF * 0.9))
-		{
-			rotYToValue(-rot.y);
-			return true;
-		}
-		if ((pos.z >= PlayScreen.LONG_AXIS * COFF * 0.9)
-				|| (pos.z <= -PlayScreen.LONG_AXIS * COFF * 0.9))
-		{
-			rotYToValue(180 - rot.y);
-			return true;
-		}
-		return false;
-	}
-
-	public boolean isCollided()
-	{
-		return isCollided;
-	}
-
-	public void setCollided(boolean isCollided)
-	{
-		this.isCollided = isCollided;
-	}
-
-	public int getInterval()
-	{
-		return interval;
-	}
-
-	public void setInterval(int interval)
-	{
-		this.interval = interval;
-	}
-
-	public boolean checkBoundary()
-	{
-		if ((pos.x >= PlayScreen.SHORT_AXIS * COFF * 0.9)
-				|| (pos.x <= -PlayScreen.SHORT_AXIS * COFF * 0.9))
-		{
-			return true;
-		}
-		if ((pos.z >= PlayScreen.LONG_AXIS * COFF * 0.9)
-				|| (pos.z <= -PlayScreen.LONG_AXIS * COFF * 0.9))
-		{
-			return true;
-		}
-		return false;
-	}
-
-	public void swapScaleSpeed(Player other, float alpha)
-	{
-		float tmp;
-
-		tmp = rot.y;
-		rot.y = other.rot.y;
-		other.rot.y = tmp;
-
-		tmp = speed;
-		speed = other.speed * alpha;
-		other.speed = tmp * alpha;
-	}
-}
+package edu.columbia.quidditch.render.collisionobject;
+
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import org.lwjgl.BufferUtils;
+import org.lwjgl.util.vector.Matrix4f;
+import org.lwjgl.util.vector.Vector3f;
+
+import edu.columbia.quidditch.MainGame;
+import edu.columbia.quidditch.basic.Material;
+import edu.columbia.quidditch.basic.ShaderProgram;
+import edu.columbia.quidditch.basic.Texture;
+import edu.columbia.quidditch.render.Broom;
+import edu.columbia.quidditch.render.Model;
+import edu.columbia.quidditch.render.link.AnimationClip;
+import edu.columbia.quidditch.render.link.Animator;
+import edu.columbia.quidditch.render.link.Link;
+import edu.columbia.quidditch.render.screen.PlayScreen;
+import edu.columbia.quidditch.util.AssetLoader;
+import edu.columbia.quidditch.util.CompiledModel;
+import edu.columbia.quidditch.util.IntArray;
+import edu.columbia.quidditch.util.SkinData;
+
+/**
+ * Player class
+ * 
+ * @author Yuqing Guan, Yilin Xiong, Jihan Li
+ * 
+ */
+public class Player extends CollisionObject
+{
+	public static final int TEAM_GRYFFINDOR = 0;
+	public static final int TEAM_SLYTHERIN = 1;
+	public static final int TEAM_RAVENCLAW = 2;
+	public static final int TEAM_HUFFLEPUFF = 3;
+
+	private static final float SHINE = 25;
+	private static final float SCALE = 21;
+
+	private static final float RADIUS = 42;
+	private static final float SECOND_RADIUS = 32;
+
+	private static final float W = 0.25f;
+	private static final float DY = 2f;
+	private static final float DR = 5f;
+	private static final float ACCELERATOR = 0.002f;
+	private static final float GRAVITY = -0.02f;
+
+	private static final float MIN_V = 0.01f;
+	private static final float MAX_V = 0.3f;
+
+	private static final String MODEL_NAME = "res/char/char.iqe";
+
+	private static final String SKINNED_VERTEX_SHADER_NAME = "shaders/skinned.vsh";
+	private static final String FRAGMENT_SHADER_NAME = "shaders/default.fsh";
+
+	// Location of vertex attributes in my skinning program
+	private static final int JOINT_INDICES_LOC = 6;
+	private static final int JOINT_WEIGHTS_LOC = 7;
+
+	private static final int MAX_INFLUENCES = SkinData.MAX_INFLUENCES;
+
+	// Joints in the palette of the skinning program, which has room for
+	// three rows of each joint
+	private static final int MAX_PALETTE_SIZE = 64;
+
+	// Uniform components left for the built-in matrices and lights
+	private static final int RESERVED_UNIFORM_COMPONENTS = 128;
+
+	// Poses of the shared meshes. Joints other than the hand are in the same
+	// fixed posture for every player
+	private static final int POSE_BIND = 0;
+	private static final int POSE_HAND_DOWN = 1;
+	private static final int POSE_HAND_UP = 2;
+	private static final int POSE_COUNT = 3;
+
+	private static final int TEAM_COUNT = 4;
+
+	// Milliseconds to blend from one clip into the next
+	private static final float FADE_TIME = 150;
+
+	// Clips of the skinning path, as angles of the joints over time. The
+	// fixed posture holds the joints that no clip animates
+	private static final AnimationClip FLYING = new AnimationClip("flying",
+			new int[] {26, 42, 43}, new float[] {0, 1000, 2000},
+			new float[][] { {45, -15, -15}, {40, -25, -25}, {45, -15, -15}},
+			true);
+
+	private static final AnimationClip REACHING = new AnimationClip(
+			"reaching", new int[] {60}, new float[] {0, 300},
+			new float[][] { {0}, {90}}, false);
+
+	private static final AnimationClip THROWING = new AnimationClip(
+			"throwing", new int[] {28, 60}, new float[] {0, 150, 500},
+			new float[][] { {-165, 90}, {-150, 120}, {-165, 0}}, false);
+
+	private static final AnimationClip FALLING = new AnimationClip("falling",
+			new int[] {27, 28, 30, 31, 39, 40}, new float[] {0, 400, 800},
+			new float[][] { {-165, -165, 15, 15, -80, -80},
+					{-120, -120, 35, 35, -40, -40},
+					{-165, -165, 15, 15, -80, -80}}, true);
+
+	// Parent of each joint, and its position and rotation, seven floats each
+	private static int[] jointParents;
+	private static float[] jointPQs;
+
+	// UV coordinates of the vertices, two floats each
+	private static float[] texCoords;
+	private static ArrayList<IntArray> meshList;
+
+	private static ArrayList<String> mtlList;
+	private static HashMap<String, Material> mtlMap;
+
+	// Bone weights and bind-space offsets shared by all players
+	private static SkinData skinData;
+
+	// Global transforms of the joints in the bind pose
+	private static Matrix4f[] invBindTrans;
+
+	// Vertex positions and normals in the bind pose, three floats each
+	private static float[] bindVers, bindNors;
+
+	private static int linksize, verSize;
+
+	private static FloatBuffer specularBuffer;
+
+	private boolean controllable = true;
+	private boolean inUserTeam = true;
+	private boolean isCollided = false;
+	private int interval;
+
+	private static HashMap<String, Material[]> mutableMtls;
+
+	private static int triangleList;
+
+	// Joint of each palette entry
+	private static int[] paletteJoints;
+
+	// Palette indices of the joints of each vertex
+	private static float[] skinIndices;
+
+	private static ShaderProgram skinningProgram = null;
+	private static int jointsLoc;
+
+	// Display list of each team and pose, created when first needed and
+	// shared by all players
+	private static int[] meshLists;
+
+	/**
+	 * Start reading the model and the textures of the teams in the
+	 * background
+	 */
+	public static void preload()
+	{
+		AssetLoader loader = AssetLoader.getDefault();
+
+		loader.loadModel(MODEL_NAME);
+
+		for (int i = 0; i < TEAM_COUNT; ++i)
+		{
+			loader.loadTexture(getTeamTextureName("coat", i));
+			loader.loadTexture(getTeamTextureName("emblem", i));
+			loader.loadTexture(getTeamTextureName("shirt", i));
+		}
+	}
+
+	/**
+	 * Get the image file of a part of the clothes of a team
+	 * 
+	 * @param part
+	 * @param team
+	 * @return
+	 */
+	private static String getTeamTextureName(String part, int team)
+	{
+		return "res/char/textures/" + part + team + ".png";
+	}
+
+	/**
+	 * Set up what all players share, once the model is read
+	 */
+	private static void upload()
+	{
+		CompiledModel model = CompiledModel.get(MODEL_NAME);
+
+		jointParents = model.getJointParentArray();
+		jointPQs = model.getJointPQArray();
+
+		linksize = jointParents.length;
+
+		bindVers = model.getVerArray();
+		bindNors = model.getNorArray();
+		texCoords = model.getTexArray();
+
+		verSize = bindVers.length / 3;
+
+		meshList = model.getMeshList();
+		mtlList = model.getMtlList();
+
+		mtlMap = model.getMtlMap();
+
+		skinData = model.getSkinData();
+
+		computeBindPose();
+		buildPalette();
+
+		meshLists = new int[TEAM_COUNT * POSE_COUNT];
+		Arrays.fill(meshLists, NO_LIST);
+
+		specularBuffer = BufferUtils.createFloatBuffer(4);
+		specularBuffer.put(0.6f).put(0.6f).put(0.6f).put(0.6f).flip();
+
+		Texture[] coats, emblems, shirts;
+
+		coats = new Texture[4];
+		emblems = new Texture[4];
+		shirts = new Texture[4];
+
+		for (int i = 0; i < 4; ++i)
+		{
+			coats[i] = Texture.createFromFile(getTeamTextureName("coat", i));
+			emblems[i] = Texture.createFromFile(getTeamTextureName("emblem",
+					i));
+			shirts[i] = Texture.createFromFile(getTeamTextureName("shirt", i));
+		}
+
+		mutableMtls = new HashMap<String, Material[]>();
+
+		Material[] mutableMtl;
+		String mtlName;
+		Material originMtl;
+
+		mutableMtl = new Material[4];
+		mtlName = "Material7";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(coats[i]);
+		}
+
+		mutableMtl = new Material[4];
+		mtlName = "Material8";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(coats[i]);
+		}
+
+		mutableMtl = new Material[4];
+		mtlName = "Material9";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(coats[i]);
+		}
+
+		mutableMtl = new Material[4];
+		mtlName = "Material10";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(emblems[i]);
+		}
+
+		mutableMtl = new Material[4];
+		mtlName = "Material11";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(coats[i]);
+		}
+
+		mutableMtl = new Material[4];
+		mtlName = "Material12";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(coats[i]);
+		}
+
+		mutableMtl = new Material[4];
+		mtlName = "Material13";
+		originMtl = mtlMap.get(mtlName);
+		mutableMtls.put(mtlName, mutableMtl);
+
+		for (int i = 0; i < 4; ++i)
+		{
+			mutableMtl[i] = originMtl.copy();
+			mutableMtl[i].setTexture(shirts[i]);
+		}
+
+		triangleList = glGenLists(1);
+
+		glNewList(triangleList, GL_COMPILE);
+
+		glDisable(GL_LIGHTING);
+
+		glColor3f(0, 0, 0.9f);
+
+		glBegin(GL_TRIANGLES);
+		{
+			glVertex3d(-6, 70, 0);
+			glVertex3d(6, 70, 0);
+			glVertex3d(0, 60, 0);
+		}
+		glEnd();
+
+		glColor3f(0, 0, 0);
+
+		glBegin(GL_LINE_LOOP);
+		{
+			glVertex3d(-6, 70, 0);
+			glVertex3d(6, 70, 0);
+			glVertex3d(0, 60, 0);
+		}
+		glEnd();
+
+		glEnable(GL_LIGHTING);
+
+		glEndList();
+	}
+
+	/**
+	 * Create the joints of a player in the pose of the model file
+	 * 
+	 * @return
+	 */
+	private static Link[] createLinks()
+	{
+		Link[] links = new Link[linksize];
+
+		for (int i = 0; i < linksize; ++i)
+		{
+			int base = i * 7;
+
+			links[i] = new Link(jointPQs[base], jointPQs[base + 1],
+					jointPQs[base + 2], jointPQs[base + 3], jointPQs[base + 4],
+					jointPQs[base + 5], jointPQs[base + 6]);
+		}
+
+		for (int i = 0; i < linksize; ++i)
+		{
+			int parent = jointParents[i];
+
+			if (parent >= 0)
+			{
+				links[parent].addChild(links[i]);
+			}
+		}
+
+		return links;
+	}
+
+	/**
+	 * Convert the vertex positions and normals to links' local coordinates
+	 * in the pose of the model file, once for all players
+	 */
+	private static void computeBindPose()
+	{
+		Link[] links = createLinks();
+
+		invBindTrans = new Matrix4f[linksize];
+		Matrix4f[] tranBindTrans = new Matrix4f[linksize];
+
+		for (int i = 0; i < linksize; ++i)
+		{
+			Matrix4f globalTrans = links[i].getGlobalTrans();
+
+			invBindTrans[i] = new Matrix4f();
+			tranBindTrans[i] = new Matrix4f();
+
+			Matrix4f.invert(globalTrans, invBindTrans[i]);
+			Matrix4f.transpose(globalTrans, tranBindTrans[i]);
+		}
+
+		skinData.computeOffsets(bindVers, bindNors, invBindTrans,
+				tranBindTrans);
+	}
+
+	/**
+	 * Number the joints used by the skin, and convert the joints of each
+	 * vertex into palette indices for the skinning program
+	 */
+	private static void buildPalette()
+	{
+		int[] joints = skinData.getJoints();
+		float[] weights = skinData.getWeights();
+
+		int influenceCount = verSize * MAX_INFLUENCES;
+
+		int[] paletteIndices = new int[linksize];
+		Arrays.fill(paletteIndices, -1);
+
+		int paletteSize = 0;
+
+		for (int k = 0; k < influenceCount; ++k)
+		{
+			if (weights[k] > 0 && paletteIndices[joints[k]] < 0)
+			{
+				paletteIndices[joints[k]] = paletteSize++;
+			}
+		}
+
+		paletteJoints = new int[paletteSize];
+
+		for (int i = 0; i < linksize; ++i)
+		{
+			if (paletteIndices[i] >= 0)
+			{
+				paletteJoints[paletteIndices[i]] = i;
+			}
+		}
+
+		// Unused slots have no weight, so any palette index will do
+		skinIndices = new float[influenceCount];
+
+		for (int k = 0; k < influenceCount; ++k)
+		{
+			skinIndices[k] = weights[k] > 0 ? paletteIndices[joints[k]] : 0;
+		}
+	}
+
+	/**
+	 * Check whether the joint palette fits in the uniforms of the skinning
+	 * program. If not, players are skinned on CPU
+	 * 
+	 * @return
+	 */
+	private static boolean isGpuSkinningSupported()
+	{
+		if (paletteJoints.length > MAX_PALETTE_SIZE)
+		{
+			return false;
+		}
+
+		int components = MAX_PALETTE_SIZE * 12 + RESERVED_UNIFORM_COMPONENTS;
+		return glGetInteger(GL_MAX_VERTEX_UNIFORM_COMPONENTS) >= components;
+	}
+
+	/**
+	 * Get the skinning program, or null if players are skinned on CPU
+	 * 
+	 * @return
+	 */
+	private static ShaderProgram getSkinningProgram()
+	{
+		if (skinningProgram == null && isGpuSkinningSupported())
+		{
+			HashMap<Integer, String> attributes = new HashMap<Integer, String>();
+			attributes.put(JOINT_INDICES_LOC, "jointIndices");
+			attributes.put(JOINT_WEIGHTS_LOC, "jointWeights");
+
+			skinningProgram = ShaderProgram.createFromFiles(
+					SKINNED_VERTEX_SHADER_NAME, FRAGMENT_SHADER_NAME,
+					attributes);
+			jointsLoc = skinningProgram.getUniformLocation("joints");
+		}
+
+		return skinningProgram;
+	}
+
+	// Rows of the skinning matrices of the palette, refreshed when the pose
+	// changes
+	private FloatBuffer jointBuffer;
+	private boolean jointsDirty;
+
+	// Global transform of each joint in the current pose, and the product
+	// with the inverse bind transform, reused for every update
+	private Matrix4f[] globalTrans;
+	private Matrix4f skinTrans;
+
+	// Plays the clips on the links, only on the skinning path
+	private Animator animator;
+
+	private ShaderProgram shaderProgram;
+
+	private Link[] links;
+	private Model broom;
+
+	private int team, handUpList;
+	private boolean handDown;
+
+	public Player(MainGame game, PlayScreen screen, int team,
+			boolean inUserTeam, Vector3f defaultPos)
+	{
+		super(game, screen, RADIUS, defaultPos);
+
+		if (mtlMap == null)
+		{
+			upload();
+		}
+
+		this.inUserTeam = inUserTeam;
+		setInterval((int) Math.floor(Math.random() * 300) + 1);
+
+		broom = Broom.create(game);
+
+		if (!inUserTeam)
+		{
+			rot.y = 180;
+		}
+
+		handDown = true;
+		this.team = team;
+
+		links = createLinks();
+		initFixedPosture();
+
+		globalTrans = new Matrix4f[linksize];
+
+		for (int i = 0; i < linksize; ++i)
+		{
+			globalTrans[i] = new Matrix4f();
+		}
+
+		skinTrans = new Matrix4f();
+
+		shaderProgram = getSkinningProgram();
+
+		if (shaderProgram == null)
+		{
+			shaderProgram = ShaderProgram.getDefaultShader();
+		}
+		else
+		{
+			jointBuffer = BufferUtils
+					.createFloatBuffer(paletteJoints.length * 12);
+			jointsDirty = true;
+
+			animator = new Animator(links);
+			animator.play(FLYING, 0);
+		}
+
+		createList();
+	}
+
+	public int getTeam()
+	{
+		return team;
+	}
+
+	private void initFixedPosture()
+	{
+		links[18].setTheta(45);
+		links[26].setTheta(45);
+
+		links[30].setTheta(15);
+		links[31].setTheta(15);
+
+		links[42].setTheta(-15);
+		links[43].setTheta(-15);
+
+		links[27].setTheta(-165);
+		links[39].setTheta(-80);
+
+		links[28].setTheta(-165);
+		links[40].setTheta(-80);
+
+		links[56].setTheta(0);
+	}
+
+	public void handDown()
+	{
+		handDown = true;
+
+		// Let a throw finish before flying on, and keep falling until landed
+		if (animator != null && controllable
+				&& (animator.getClip() != THROWING || animator.isFinished()))
+		{
+			animator.play(FLYING, FADE_TIME);
+		}
+	}
+
+	public void handUp()
+	{
+		handDown = false;
+
+		if (animator != null && controllable)
+		{
+			animator.play(REACHING, FADE_TIME);
+		}
+	}
+
+	/**
+	 * Put the hand down with a throwing swing
+	 */
+	public void throwBall()
+	{
+		handDown = true;
+
+		if (animator != null && controllable)
+		{
+			animator.play(THROWING, FADE_TIME);
+		}
+	}
+
+	/**
+	 * Whether the pose is applied by the skinning program, so that joints
+	 * can change without rebuilding the display lists
+	 * 
+	 * @return
+	 */
+	private boolean isGpuSkinned()
+	{
+		return jointBuffer != null;
+	}
+
+	public void setTeam(int team)
+	{
+		this.team = team;
+		createList();
+	}
+
+	/**
+	 * Take the shared lists of the team, so players of the same team only
+	 * skin the mesh once
+	 */
+	@Override
+	protected void createList()
+	{
+		if (isGpuSkinned())
+		{
+			// The mesh stays in the bind pose, the hand is raised by the
+			// skinning program
+			list = getMeshList(POSE_BIND);
+			return;
+		}
+
+		list = getMeshList(POSE_HAND_DOWN);
+		handUpList = getMeshList(POSE_HAND_UP);
+	}
+
+	/**
+	 * Get the list of the mesh of the team in a pose, skinning it if no
+	 * player has done so yet
+	 * 
+	 * @param pose
+	 * @return
+	 */
+	private int getMeshList(int pose)
+	{
+		int key = team * POSE_COUNT + pose;
+
+		if (meshLists[key] != NO_LIST)
+		{
+			return meshLists[key];
+		}
+
+		int newList = glGenLists(1);
+
+		if (pose == POSE_BIND)
+		{
+			draw(newList, bindVers, bindNors);
+		}
+		else
+		{
+			links[60].setTheta(pose == POSE_HAND_UP ? 90 : 0);
+			skin(newList);
+		}
+
+		meshLists[key] = newList;
+
+		return newList;
+	}
+
+	/**
+	 * Skin the mesh in the current pose on CPU and draw it into a list
+	 * 
+	 * @param currentList
+	 */
+	private void skin(int currentList)
+	{
+		Matrix4f[] invTranTrans = new Matrix4f[linksize];
+
+		Link.getGlobalTrans(links, globalTrans);
+
+		// Compute inverted transposed matrices for normals
+
+		for (int i = 0; i < linksize; ++i)
+		{
+			invTranTrans[i] = new Matrix4f();
+			Matrix4f.invert(globalTrans[i], invTranTrans[i]);
+			invTranTrans[i].m30 = invTranTrans[i].m31 = invTranTrans[i].m32 = 0;
+
+			Matrix4f.transpose(invTranTrans[i], invTranTrans[i]);
+		}
+
+		int[] joints = skinData.getJoints();
+		float[] weights = skinData.getWeights();
+		float[] verOffsets = skinData.getVerOffsets();
+		float[] norOffsets = skinData.getNorOffsets();
+
+		float[] realVers = new float[verSize * 3];
+		float[] realNors = new float[verSize * 3];
+
+		// Compute the weighted-average positions of vertices and directions
+		// of normals
+
+		for (int i = 0; i < verSize; ++i)
+		{
+			float verX = 0, verY = 0, verZ = 0;
+			float norX = 0, norY = 0, norZ = 0;
+
+			for (int k = 0; k < MAX_INFLUENCES; ++k)
+			{
+				int slot = i * MAX_INFLUENCES + k;
+				float weight = weights[slot];
+
+				if (weight == 0)
+				{
+					break;
+				}
+
+				Matrix4f trans = globalTrans[joints[slot]];
+				Matrix4f norTrans = invTranTrans[joints[slot]];
+
+				float x = verOffsets[slot * 3];
+				float y = verOffsets[slot * 3 + 1];
+				float z = verOffsets[slot * 3 + 2];
+
+				verX += (trans.m00 * x + trans.m10 * y + trans.m20 * z + trans.m30)
+						* weight;
+				verY += (trans.m01 * x + trans.m11 * y + trans.m21 * z + trans.m31)
+						* weight;
+				verZ += (trans.m02 * x + trans.m12 * y + trans.m22 * z + trans.m32)
+						* weight;
+
+				x = norOffsets[slot * 3];
+				y = norOffsets[slot * 3 + 1];
+				z = norOffsets[slot * 3 + 2];
+
+				norX += (norTrans.m00 * x + norTrans.m10 * y + norTrans.m20 * z)
+						* weight;
+				norY += (norTrans.m01 * x + norTrans.m11 * y + norTrans.m21 * z)
+						* weight;
+				norZ += (norTrans.m02 * x + norTrans.m12 * y + norTrans.m22 * z)
+						* weight;
+			}
+
+			realVers[i * 3] = verX;
+			realVers[i * 3 + 1] = verY;
+			realVers[i * 3 + 2] = verZ;
+
+			realNors[i * 3] = norX;
+			realNors[i * 3 + 1] = norY;
+			realNors[i * 3 + 2] = norZ;
+		}
+
+		draw(currentList, realVers, realNors);
+	}
+
+	/**
+	 * Draw the mesh with some vertex positions and normals into a list. If
+	 * the mesh is skinned on GPU, the joints of each vertex are also set
+	 * 
+	 * @param currentList
+	 * @param vers
+	 * @param nors
+	 */
+	private void draw(int currentList, float[] vers, float[] nors)
+	{
+		boolean gpuSkinned = isGpuSkinned();
+		float[] weights = skinData.getWeights();
+
+		glNewList(currentList, GL_COMPILE);
+		{
+			glPushMatrix();
+
+			glMaterialf(GL_FRONT, GL_SHININESS, SHINE);
+			glMaterial(GL_FRONT, GL_SPECULAR, specularBuffer);
+
+			glScalef(SCALE, SCALE, SCALE);
+			glTranslatef(0, -1, 2);
+			glRotatef(180, 0, 1, 0);
+			glRotatef(-45, 1, 0, 0);
+
+			shaderProgram.bind();
+			shaderProgram.setUniformi("tex", 0);
+
+			// Render each mesh with a material
+
+			int idx = 0;
+			for (IntArray mesh : meshList)
+			{
+				String mtlName = mtlList.get(idx);
+
+				Material material;
+
+				if (mutableMtls.containsKey(mtlName))
+				{
+					material = mutableMtls.get(mtlName)[team];
+				}
+				else
+				{
+					material = mtlMap.get(mtlName);
+				}
+
+				material.bind();
+				shaderProgram.setUniformi("hasTex", material.hasTexture() ? 1
+						: 0);
+
+				// Draw each face
+
+				// Each face is its size followed by its points
+				int start = 0;
+
+				while (start < mesh.size())
+				{
+					int faceSize = mesh.get(start);
+
+					glBegin(GL_POLYGON);
+					{
+						for (int i = faceSize; i > 0; --i)
+						{
+							int point = mesh.get(start + i);
+
+							glNormal3f(nors[point * 3], nors[point * 3 + 1],
+									nors[point * 3 + 2]);
+
+							glTexCoord2f(texCoords[point * 2],
+									texCoords[point * 2 + 1]);
+
+							if (gpuSkinned)
+							{
+								int base = point * MAX_INFLUENCES;
+
+								glVertexAttrib4f(JOINT_INDICES_LOC,
+										skinIndices[base],
+										skinIndices[base + 1],
+										skinIndices[base + 2],
+										skinIndices[base + 3]);
+								glVertexAttrib4f(JOINT_WEIGHTS_LOC,
+										weights[base], weights[base + 1],
+										weights[base + 2], weights[base + 3]);
+							}
+
+							glVertex3f(vers[point * 3], vers[point * 3 + 1],
+									vers[point * 3 + 2]);
+						}
+					}
+					glEnd();
+
+					start += faceSize + 1;
+				}
+
+				++idx;
+			}
+
+			Texture.unbind();
+			ShaderProgram.unbind();
+
+			glPopMatrix();
+		}
+		glEndList();
+	}
+
+	@Override
+	public void render()
+	{
+		glPushMatrix();
+
+		glTranslatef(pos.x, pos.y, pos.z);
+
+		glRotatef(rot.y, 0, 1, 0);
+
+		if (isGpuSkinned())
+		{
+			renderSkinned();
+		}
+		else
+		{
+			glCallList(handDown ? list : handUpList);
+		}
+
+		broom.render();
+
+		if (this == screen.getCurrentPlayer())
+		{
+			glRotatef(-rot.y, 0, 1, 0);
+			glCallList(triangleList);
+		}
+
+		glPopMatrix();
+	}
+
+	/**
+	 * Upload the joints of the current pose and draw the mesh in the bind
+	 * pose, which the skinning program moves to the current pose
+	 */
+	private void renderSkinned()
+	{
+		if (jointsDirty)
+		{
+			updateJoints();
+		}
+
+		// The uniforms belong to the program shared by all players
+		shaderProgram.bind();
+		glUniform4(jointsLoc, jointBuffer);
+
+		glCallList(list);
+	}
+
+	/**
+	 * Put the skinning matrix of each joint in the palette into the buffer,
+	 * which maps a vertex from the bind pose to the current pose
+	 */
+	private void updateJoints()
+	{
+		Link.getGlobalTrans(links, globalTrans);
+
+		jointBuffer.clear();
+
+		for (int joint : paletteJoints)
+		{
+			Matrix4f.mul(globalTrans[joint], invBindTrans[joint], skinTrans);
+
+			jointBuffer.put(skinTrans.m00).put(skinTrans.m10)
+					.put(skinTrans.m20).put(skinTrans.m30);
+			jointBuffer.put(skinTrans.m01).put(skinTrans.m11)
+					.put(skinTrans.m21).put(skinTrans.m31);
+			jointBuffer.put(skinTrans.m02).put(skinTrans.m12)
+					.put(skinTrans.m22).put(skinTrans.m32);
+		}
+
+		jointBuffer.flip();
+		jointsDirty = false;
+	}
+
+	@Override
+	public boolean checkCollision(CollisionObject other)
+	{
+		Vector3f dPos = new Vector3f();
+		Vector3f dVel = new Vector3f();
+		Vector3f.sub(pos, other.pos, dPos);
+		Vector3f.sub(velocity, other.velocity, dVel);
+
+		float dotPro = Vector3f.dot(dPos, dVel);
+
+		if (dotPro >= -0.01f)
+		{
+			return false;
+		}
+
+		if (other instanceof Player)
+		{
+			return dPos.length() < 2 * SECOND_RADIUS + COLLISION_DELTA;
+		}
+		else
+		{
+			return dPos.length() < radius + other.radius + COLLISION_DELTA;
+		}
+	}
+
+	public boolean checkCollision(Player other, float radius)
+	{
+		Vector3f dPos = new Vector3f();
+		Vector3f dVel = new Vector3f();
+		Vector3f.sub(pos, other.pos, dPos);
+		Vector3f.sub(velocity, other.velocity, dVel);
+
+		float dotPro = Vector3f.dot(dPos, dVel);
+
+		if (dotPro >= -0.01f)
+		{
+			return false;
+		}
+
+		return dPos.length() < radius + other.radius;
+	}
+
+	public void moveY(int sign)
+	{
+		pos.y += sign * DY;
+
+		if (pos.y > PlayScreen.TOP)
+		{
+			pos.y = PlayScreen.TOP;
+		}
+		else if (pos.y < PlayScreen.BOTTOM)
+		{
+			pos.y = PlayScreen.BOTTOM;
+		}
+	}
+
+	public void rotY(int sign, float delta)
+	{
+		rot.y += sign * delta * W;
+
+		if (rot.y > 180.0f)
+		{
+			rot.y -= 360.0f;
+		}
+		else if (rot.y < -180.0f)
+		{
+			rot.y += 360.0f;
+		}
+	}
+
+	public void resetRotX()
+	{
+		rot.x = 0;
+	}
+
+	public void accelerate()
+	{
+		if (speed < MAX_V)
+		{
+			speed += ACCELERATOR;
+		}
+	}
+
+	public void accelerate(float alpha)
+	{
+		if (speed <= MAX_V * alpha)
+		{
+			speed += ACCELERATOR;
+		}
+		else
+		{
+			speed = MAX_V * alpha;
+		}
+	}
+
+	public void decelerate()
+	{
+		if (speed > MIN_V)
+		{
+			speed -= ACCELERATOR;
+		}
+	}
+
+	@Override
+	protected void refreshVelocity()
+	{
+		if (controllable)
+		{
+			velocity.x = (float) (-Math.sin(Math.toRadians(rot.y)) * speed);
+			velocity.z = (float) (-Math.cos(Math.toRadians(rot.y)) * speed);
+			velocity.y = 0;
+		}
+		else
+		{
+			velocity.y += GRAVITY;
+		}
+	}
+
+	@Override
+	protected void doOutHeight(Vector3f newPos)
+	{
+		if (newPos.y < PlayScreen.BOTTOM)
+		{
+			controllable = true;
+			newPos.y = PlayScreen.BOTTOM;
+		}
+
+		if (newPos.y > PlayScreen.TOP)
+		{
+			newPos.y = PlayScreen.TOP;
+		}
+
+	}
+
+	@Override
+	protected void doOutOval(Vector3f newPos, float delta)
+	{
+		if (Math.abs(newPos.x) > PlayScreen.SHORT_AXIS * COFF * 0.9
+				&& Math.abs(newPos.z) > PlayScreen.LONG_AXIS * COFF * 0.9)
+		{
+			setRotBasedOnDX(Vector3f.sub(new Vector3f(0, 0, 0), newPos, null));
+			fall();
+			return;
+		}
+		if ((newPos.x >= PlayScreen.SHORT_AXIS * COFF)
+				|| (newPos.x <= -PlayScreen.SHORT_AXIS * COFF))
+		{
+			rot.y = -1 * rot.y;
+		}
+		if ((newPos.z >= PlayScreen.LONG_AXIS * COFF)
+				|| (newPos.z <= -PlayScreen.LONG_AXIS * COFF))
+		{
+			rot.y = 180 - rot.y;
+		}
+		fall();
+	}
+
+	public boolean isControllable()
+	{
+		return controllable;
+	}
+
+	@Override
+	public void reset()
+	{
+		super.reset();
+		rot.set(0, inUserTeam ? 0 : 180, 0);
+		isCollided = false;
+		controllable = true;
+		handDown = true;
+
+		if (animator != null)
+		{
+			animator.play(FLYING, FADE_TIME);
+		}
+	}
+
+	public void fall()
+	{
+
+		speed = 0;
+
+		controllable = false;
+
+		if (animator != null)
+		{
+			animator.play(FALLING, FADE_TIME);
+		}
+	}
+
+	@Override
+	public void move(float delta)
+	{
+		super.move(delta);
+
+		if (animator != null)
+		{
+			animator.update(delta);
+			jointsDirty = true;
+		}
+	}
+
+	public void setBasedOnV()
+	{
+		velocity.y = 0;
+		speed = velocity.length();
+		if (speed < 0.001f)
+		{
+			return;
+		}
+		setRotBasedOnDX(velocity);
+	}
+
+	public void setRotBasedOnDX(Vector3f dx)
+	{
+		float roty = (float) Math.asin(dx.x / dx.length());
+
+		if (dx.z > 0)
+		{
+			roty -= Math.PI;
+		}
+		else
+		{
+			roty *= -1;
+		}
+
+		roty = (float) Math.toDegrees(roty);
+
+		rotYToValue(roty);
+
+		if (dx.y > DY)
+		{
+			moveY(1);
+		}
+		else if (dx.y < -DY)
+		{
+			moveY(-1);
+		}
+	}
+
+	public void rotYToValue(float roty)
+	{
+		float w = roty - rot.y;
+
+		while (w > 180)
+		{
+			w -= 360;
+		}
+		while (w <= -180)
+		{
+			w += 360;
+		}
+
+		if (Math.abs(w) > DR)
+		{
+			w = Math.signum(w) * DR;
+		}
+
+		rot.y += w;
+	}
+
+	public boolean avoidOval()
+	{
+		if ((pos.x >= PlayScreen.SHORT_AXIS * COFF * 0.9)
+				|| (pos.x <= -PlayScreen.SHORT_AXIS * COFF * 0.9))
+		{
+			rotYToValue(-rot.y);
+			return true;
+		}
+		if ((pos.z >= PlayScreen.LONG_AXIS * COFF * 0.9)
+				|| (pos.z <= -PlayScreen.LONG_AXIS * COFF * 0.9))
+		{
+			rotYToValue(180 - rot.y);
+			return true;
+		}
+		return false;
+	}
+
+	public boolean isCollided()
+	{
+		return isCollided;
+	}
+
+	public void setCollided(boolean isCollided)
+	{
+		this.isCollided = isCollided;
+	}
+
+	public int getInterval()
+	{
+		return interval;
+	}
+
+	public void setInterval(int interval)
+	{
+		this.interval = interval;
+	}
+
+	public boolean checkBoundary()
+	{
+		if ((pos.x >= PlayScreen.SHORT_AXIS * COFF * 0.9)
+				|| (pos.x <= -PlayScreen.SHORT_AXIS * COFF * 0.9))
+		{
+			return true;
+		}
+		if ((pos.z >= PlayScreen.LONG_AXIS * COFF * 0.9)
+				|| (pos.z <= -PlayScreen.LONG_AXIS * COFF * 0.9))
+		{
+			return true;
+		}
+		return false;
+	}
+
+	public void swapScaleSpeed(Player other, float alpha)
+	{
+		float tmp;
+
+		tmp = rot.y;
+		rot.y = other.rot.y;
+		other.rot.y = tmp;
+
+		tmp = speed;
+		speed = other.speed * alpha;
+		other.speed = tmp * alpha;
+	}
+}
@@ -0,0 +1,144 @@
+package edu.columbia.quidditch.render.link;
+
+import org.lwjgl.util.vector.Vector3f;
+
+/**
+ * Keyframes of the angles of some joints. Each joint turns around the axis
+ * of its link, as with Link.setTheta, and the rotations between keyframes
+ * are interpolated as quaternions
+ */
+public class AnimationClip
+{
+	private String name;
+
+	private int[] joints;
+	private float[] times;
+
+	// Angles in degrees, keyframe by keyframe
+	private float[] thetas;
+
+	private boolean loop;
+
+	// Rotations of the two keyframes around the sampled time
+	private float[] key0, key1;
+
+	/**
+	 * Create a clip
+	 * 
+	 * @param name
+	 * @param joints
+	 *            indices of the links animated by the clip
+	 * @param times
+	 *            time of each keyframe in milliseconds, increasing from 0
+	 * @param thetas
+	 *            angle of each joint in each keyframe
+	 * @param loop
+	 *            whether the clip starts again after the last keyframe,
+	 *            which should then equal the first one
+	 */
+	public AnimationClip(String name, int[] joints, float[] times,
+			float[][] thetas, boolean loop)
+	{
+		this.name = name;
+		this.joints = joints;
+		this.times = times;
+		this.loop = loop;
+
+		this.thetas = new float[times.length * joints.length];
+
+		for (int k = 0; k < times.length; ++k)
+		{
+			System.arraycopy(thetas[k], 0, this.thetas, k * joints.length,
+					joints.length);
+		}
+
+		key0 = new float[4];
+		key1 = new float[4];
+	}
+
+	public String getName()
+	{
+		return name;
+	}
+
+	public boolean isLoop()
+	{
+		return loop;
+	}
+
+	/**
+	 * Get the indices of the links animated by the clip
+	 * 
+	 * @return
+	 */
+	public int[] getJoints()
+	{
+		return joints;
+	}
+
+	/**
+	 * Get the time of the last keyframe
+	 * 
+	 * @return
+	 */
+	public float getDuration()
+	{
+		return times[times.length - 1];
+	}
+
+	/**
+	 * Put the rotations of the animated joints at a time into an array,
+	 * leaving the other joints unchanged. Clips are shared, so sampling must
+	 * be done in one thread
+	 * 
+	 * @param time
+	 *            milliseconds since the clip started
+	 * @param links
+	 * @param rotations
+	 *            quaternion of each link, four floats per link
+	 */
+	public void sample(float time, Link[] links, float[] rotations)
+	{
+		float duration = getDuration();
+
+		if (loop && duration > 0)
+		{
+			time %= duration;
+		}
+		else
+		{
+			time = Math.min(time, duration);
+		}
+
+		// Find the keyframes around the time
+		int next = 1;
+
+		while (next < times.length - 1 && times[next] < time)
+		{
+			++next;
+		}
+
+		int prev = next - 1;
+
+		if (times.length == 1)
+		{
+			next = prev = 0;
+		}
+
+		float span = times[next] - times[prev];
+		float t = span > 0 ? (time - times[prev]) / span : 0;
+
+		for (int i = 0; i < joints.length; ++i)
+		{
+			int joint = joints[i];
+			Vector3f axis = links[joint].getAxis();
+
+			Quaternions.fromAxisAngle(axis.x, axis.y, axis.z, thetas[prev
+					* joints.length + i], key0, 0);
+			Quaternions.fromAxisAngle(axis.x, axis.y, axis.z, thetas[next
+					* joints.length + i], key1, 0);
+
+			Quaternions.slerp(key0, 0, key1, 0, t, rotations, joint * 4);
+		}
+	}
+}
@@ -0,0 +1,175 @@
+package edu.columbia.quidditch.render.link;
+
+import java.util.Arrays;
+
+/**
+ * Play animation clips on a skeleton, cross-fading from the current pose
+ * when a new clip starts. Joints not animated by any clip stay in the rest
+ * pose, which is the pose of the links when the animator is created. Only
+ * the joints of the current clip and of the pose faded from are written, so
+ * the other links keep their cached global transforms. All buffers are
+ * allocated up front, so updating allocates nothing
+ */
+public class Animator
+{
+	private Link[] links;
+
+	// Quaternion of each link in the rest pose, the pose faded from and the
+	// pose written in the last update. Joints not written are kept at rest
+	private float[] rest, from, to;
+
+	// Joints of the pose faded from, joints written in the last update and
+	// joints written in this update
+	private boolean[] faded, posed, touched;
+
+	private AnimationClip clip;
+	private float time;
+
+	private float fadeTime, fadeElapsed;
+
+	public Animator(Link[] links)
+	{
+		this.links = links;
+
+		rest = new float[links.length * 4];
+		from = new float[links.length * 4];
+		to = new float[links.length * 4];
+
+		for (int i = 0; i < links.length; ++i)
+		{
+			links[i].getRotation(rest, i * 4);
+		}
+
+		System.arraycopy(rest, 0, to, 0, rest.length);
+
+		faded = new boolean[links.length];
+		posed = new boolean[links.length];
+		touched = new boolean[links.length];
+	}
+
+	/**
+	 * Start a clip, unless it is already playing. The pose is blended from
+	 * where the links are now, so starting a clip in the middle of a fade
+	 * does not make the joints jump
+	 * 
+	 * @param newClip
+	 * @param fade
+	 *            milliseconds to blend from the current pose into the new clip
+	 */
+	public void play(AnimationClip newClip, float fade)
+	{
+		if (newClip == clip)
+		{
+			return;
+		}
+
+		fadeTime = clip == null ? 0 : fade;
+		fadeElapsed = 0;
+
+		if (fadeTime > 0)
+		{
+			System.arraycopy(to, 0, from, 0, to.length);
+			System.arraycopy(posed, 0, faded, 0, posed.length);
+		}
+
+		clip = newClip;
+		time = 0;
+	}
+
+	public AnimationClip getClip()
+	{
+		return clip;
+	}
+
+	/**
+	 * Whether the current clip has reached its last keyframe. Looping clips
+	 * never finish
+	 * 
+	 * @return
+	 */
+	public boolean isFinished()
+	{
+		return clip == null || !clip.isLoop() && time >= clip.getDuration();
+	}
+
+	/**
+	 * Advance the clip and pose the links it animates. Joints no longer
+	 * animated are put back to rest once
+	 * 
+	 * @param delta
+	 *            milliseconds since the last update
+	 */
+	public void update(float delta)
+	{
+		if (clip == null)
+		{
+			return;
+		}
+
+		time += delta;
+		fadeElapsed += delta;
+
+		boolean fading = fadeElapsed < fadeTime;
+
+		// Find the joints of the clip and of the pose faded from
+		if (fading)
+		{
+			System.arraycopy(faded, 0, touched, 0, faded.length);
+		}
+		else
+		{
+			Arrays.fill(touched, false);
+		}
+
+		for (int joint : clip.getJoints())
+		{
+			touched[joint] = true;
+		}
+
+		// Joints faded from but not in the clip are blended back to rest
+		for (int i = 0; i < links.length; ++i)
+		{
+			if (touched[i])
+			{
+				System.arraycopy(rest, i * 4, to, i * 4, 4);
+			}
+		}
+
+		clip.sample(time, links, to);
+
+		if (fading)
+		{
+			float t = fadeElapsed / fadeTime;
+
+			for (int i = 0; i < links.length; ++i)
+			{
+				if (touched[i])
+				{
+					Quaternions.slerp(from, i * 4, to, i * 4, t, to, i * 4);
+				}
+			}
+		}
+
+		for (int i = 0; i < links.length; ++i)
+		{
+			int offset = i * 4;
+
+			if (touched[i])
+			{
+				links[i].setRotation(to[offset], to[offset + 1],
+						to[offset + 2], to[offset + 3]);
+			}
+			else if (posed[i])
+			{
+				System.arraycopy(rest, offset, to, offset, 4);
+
+				links[i].setRotation(rest[offset], rest[offset + 1],
+						rest[offset + 2], rest[offset + 3]);
+			}
+		}
+
+		boolean[] swap = posed;
+		posed = touched;
+		touched = swap;
+	}
+}
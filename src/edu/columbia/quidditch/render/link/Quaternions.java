@@ -0,0 +1,97 @@
+package edu.columbia.quidditch.render.link;
+
+/**
+ * Quaternion math on (x, y, z, w) stored in float arrays, so that poses can
+ * be blended without allocating
+ */
+final class Quaternions
+{
+	// Below this angle, linear interpolation is accurate enough
+	private static final float SLERP_EPSILON = 1e-3f;
+
+	private Quaternions()
+	{
+	}
+
+	/**
+	 * Put the rotation by an angle around a unit axis
+	 * 
+	 * @param axisX
+	 * @param axisY
+	 * @param axisZ
+	 * @param degrees
+	 * @param dst
+	 * @param offset
+	 */
+	public static void fromAxisAngle(float axisX, float axisY, float axisZ,
+			float degrees, float[] dst, int offset)
+	{
+		double radHalfTheta = Math.toRadians(degrees) / 2;
+		float sinHalfTheta = (float) Math.sin(radHalfTheta);
+
+		dst[offset] = axisX * sinHalfTheta;
+		dst[offset + 1] = axisY * sinHalfTheta;
+		dst[offset + 2] = axisZ * sinHalfTheta;
+		dst[offset + 3] = (float) Math.cos(radHalfTheta);
+	}
+
+	/**
+	 * Spherical linear interpolation along the shorter arc. The destination
+	 * may be one of the sources
+	 * 
+	 * @param a
+	 * @param aOffset
+	 * @param b
+	 * @param bOffset
+	 * @param t
+	 *            0 for a and 1 for b
+	 * @param dst
+	 * @param dstOffset
+	 */
+	public static void slerp(float[] a, int aOffset, float[] b, int bOffset,
+			float t, float[] dst, int dstOffset)
+	{
+		float ax = a[aOffset], ay = a[aOffset + 1], az = a[aOffset + 2], aw = a[aOffset + 3];
+		float bx = b[bOffset], by = b[bOffset + 1], bz = b[bOffset + 2], bw = b[bOffset + 3];
+
+		float cos = ax * bx + ay * by + az * bz + aw * bw;
+
+		// q and -q are the same rotation, take the nearer one
+		if (cos < 0)
+		{
+			cos = -cos;
+			bx = -bx;
+			by = -by;
+			bz = -bz;
+			bw = -bw;
+		}
+
+		float wa, wb;
+
+		if (1 - cos > SLERP_EPSILON)
+		{
+			double angle = Math.acos(cos);
+			double sin = Math.sin(angle);
+
+			wa = (float) (Math.sin((1 - t) * angle) / sin);
+			wb = (float) (Math.sin(t * angle) / sin);
+		}
+		else
+		{
+			wa = 1 - t;
+			wb = t;
+		}
+
+		float x = wa * ax + wb * bx;
+		float y = wa * ay + wb * by;
+		float z = wa * az + wb * bz;
+		float w = wa * aw + wb * bw;
+
+		float length = (float) Math.sqrt(x * x + y * y + z * z + w * w);
+
+		dst[dstOffset] = x / length;
+		dst[dstOffset + 1] = y / length;
+		dst[dstOffset + 2] = z / length;
+		dst[dstOffset + 3] = w / length;
+	}
+}
@@ -0,0 +1,103 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.columbia.quidditch.render.screen.LoadScreen;
+import edu.columbia.quidditch.util.Heightfield;
+import edu.columbia.quidditch.util.TerraFile;
+
+/**
+ * On-disk cache of generated terrains, named by the key of their parameters
+ */
+public class TerraCache
+{
+	private static final String CACHE_PATH = "res/terra/cache";
+
+	private static final int LAYER_COUNT = 3;
+
+	/**
+	 * Get the cache file of some parameters
+	 * 
+	 * @param params
+	 * @return
+	 */
+	public static String getFileName(TerraParams params)
+	{
+		return CACHE_PATH + File.separator + "terra-" + params.getKey()
+				+ ".map";
+	}
+
+	/**
+	 * Load the terrain of the parameters from the cache. If it is not cached
+	 * yet, generate and cache it
+	 * 
+	 * @param params
+	 * @return height map, snow offset map and grass offset map
+	 */
+	public static Heightfield[] get(TerraParams params)
+	{
+		Heightfield[] layers = load(params);
+
+		if (layers == null)
+		{
+			LoadScreen.log("Generating terrain with seed " + params.getSeed());
+			layers = new TerraGenerator(params).generate();
+
+			save(params, layers);
+		}
+
+		return layers;
+	}
+
+	/**
+	 * Load the terrain of the parameters if it is cached
+	 * 
+	 * @param params
+	 * @return the layers, or null if it is not cached or cannot be read
+	 */
+	public static Heightfield[] load(TerraParams params)
+	{
+		String fileName = getFileName(params);
+
+		if (!new File(fileName).exists())
+		{
+			return null;
+		}
+
+		try
+		{
+			LoadScreen.log("Loading cached terrain from " + fileName);
+			return TerraFile.load(fileName, params.getCols(), params.getCols(),
+					params.getCellSize(), LAYER_COUNT);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Cache a generated terrain
+	 * 
+	 * @param params
+	 * @param layers
+	 */
+	public static void save(TerraParams params, Heightfield[] layers)
+	{
+		String fileName = getFileName(params);
+
+		try
+		{
+			LoadScreen.log("Caching terrain to " + fileName);
+
+			new File(CACHE_PATH).mkdirs();
+			TerraFile.save(fileName, params.getCellSize(), layers);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
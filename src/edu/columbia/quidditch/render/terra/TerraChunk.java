@@ -0,0 +1,137 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.*;
+
+import edu.columbia.quidditch.basic.Frustum;
+
+/**
+ * A square block of the terrain with its own vertex buffer, so that blocks out
+ * of sight can be skipped
+ */
+public class TerraChunk
+{
+	// Position, normal, UV coordinate, snow offset and grass offset
+	public static final int FLOATS_PER_VERTEX = 10;
+
+	private static final int BYTES_PER_FLOAT = 4;
+	private static final int STRIDE = FLOATS_PER_VERTEX * BYTES_PER_FLOAT;
+
+	private static final int NORMAL_OFFSET = 3 * BYTES_PER_FLOAT;
+	private static final int TEX_OFFSET = 6 * BYTES_PER_FLOAT;
+	private static final int SNOW_OFFSET = 8 * BYTES_PER_FLOAT;
+	private static final int GRASS_OFFSET = 9 * BYTES_PER_FLOAT;
+
+	private static final int NO_BUFFER = 0;
+
+	private int vbo = NO_BUFFER;
+	private float minX, minY, minZ, maxX, maxY, maxZ;
+
+	/**
+	 * A chunk with its bounding box. It has no vertices of its own until they
+	 * are uploaded, and can be drawn from a shared grid instead
+	 * 
+	 * @param minX
+	 * @param minY
+	 * @param minZ
+	 * @param maxX
+	 * @param maxY
+	 * @param maxZ
+	 */
+	public TerraChunk(float minX, float minY, float minZ, float maxX,
+			float maxY, float maxZ)
+	{
+		this.minX = minX;
+		this.minY = minY;
+		this.minZ = minZ;
+
+		this.maxX = maxX;
+		this.maxY = maxY;
+		this.maxZ = maxZ;
+	}
+
+	/**
+	 * Upload the vertices of the chunk into its own vertex buffer
+	 * 
+	 * @param vertices
+	 *            interleaved vertices, FLOATS_PER_VERTEX floats each
+	 */
+	public void upload(FloatBuffer vertices)
+	{
+		vbo = glGenBuffers();
+		glBindBuffer(GL_ARRAY_BUFFER, vbo);
+		glBufferData(GL_ARRAY_BUFFER, vertices, GL_STATIC_DRAW);
+		glBindBuffer(GL_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Check whether the chunk may be seen
+	 * 
+	 * @param frustum
+	 * @return
+	 */
+	public boolean isVisible(Frustum frustum)
+	{
+		return frustum.intersectsBox(minX, minY, minZ, maxX, maxY, maxZ);
+	}
+
+	/**
+	 * Get the distance from a point to the bounding box of the chunk
+	 * 
+	 * @param x
+	 * @param y
+	 * @param z
+	 * @return
+	 */
+	public float distanceTo(float x, float y, float z)
+	{
+		float dX = Math.max(0, Math.max(minX - x, x - maxX));
+		float dY = Math.max(0, Math.max(minY - y, y - maxY));
+		float dZ = Math.max(0, Math.max(minZ - z, z - maxZ));
+
+		return (float) Math.sqrt(dX * dX + dY * dY + dZ * dZ);
+	}
+
+	/**
+	 * Draw the chunk with the bound index buffer. The vertex, normal and
+	 * texture coordinate arrays must be enabled
+	 * 
+	 * @param indexOffset
+	 *            offset in bytes in the index buffer
+	 * @param indexCount
+	 * @param snowLoc
+	 *            location of the snow offset attribute
+	 * @param grassLoc
+	 *            location of the grass offset attribute
+	 */
+	public void render(int indexOffset, int indexCount, int snowLoc,
+			int grassLoc)
+	{
+		glBindBuffer(GL_ARRAY_BUFFER, vbo);
+
+		glVertexPointer(3, GL_FLOAT, STRIDE, 0);
+		glNormalPointer(GL_FLOAT, STRIDE, NORMAL_OFFSET);
+		glTexCoordPointer(2, GL_FLOAT, STRIDE, TEX_OFFSET);
+		glVertexAttribPointer(snowLoc, 1, GL_FLOAT, false, STRIDE, SNOW_OFFSET);
+		glVertexAttribPointer(grassLoc, 1, GL_FLOAT, false, STRIDE,
+				GRASS_OFFSET);
+
+		glDrawElements(GL_TRIANGLES, indexCount, GL_UNSIGNED_SHORT,
+				indexOffset);
+	}
+
+	/**
+	 * Release the vertex buffer
+	 */
+	public void delete()
+	{
+		if (vbo != NO_BUFFER)
+		{
+			glDeleteBuffers(vbo);
+			vbo = NO_BUFFER;
+		}
+	}
+}
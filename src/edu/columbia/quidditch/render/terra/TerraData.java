@@ -0,0 +1,91 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.nio.FloatBuffer;
+
+import edu.columbia.quidditch.util.HeightQuadtree;
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Everything prepared off the OpenGL thread for a terrain, which only has to
+ * be uploaded
+ */
+public class TerraData
+{
+	private Heightfield[] layers;
+
+	// Bounding boxes of the chunks, row by row
+	private TerraChunk[] chunks;
+
+	// Either the texels of the map texture or the vertices of every chunk
+	private FloatBuffer texels;
+	private FloatBuffer[] chunkVertices;
+
+	private HeightQuadtree quadtree;
+
+	TerraData(Heightfield[] layers)
+	{
+		this.layers = layers;
+	}
+
+	/**
+	 * Get the height map, snow offset map and grass offset map
+	 * 
+	 * @return
+	 */
+	public Heightfield[] getLayers()
+	{
+		return layers;
+	}
+
+	public TerraChunk[] getChunks()
+	{
+		return chunks;
+	}
+
+	void setChunks(TerraChunk[] chunks)
+	{
+		this.chunks = chunks;
+	}
+
+	/**
+	 * Get the height, snow offset and grass offset of each grid point, or
+	 * null if the vertices are packed for each chunk
+	 * 
+	 * @return
+	 */
+	public FloatBuffer getTexels()
+	{
+		return texels;
+	}
+
+	void setTexels(FloatBuffer texels)
+	{
+		this.texels = texels;
+	}
+
+	/**
+	 * Get the interleaved vertices of each chunk, or null if the maps are
+	 * packed as texels
+	 * 
+	 * @return
+	 */
+	public FloatBuffer[] getChunkVertices()
+	{
+		return chunkVertices;
+	}
+
+	void setChunkVertices(FloatBuffer[] chunkVertices)
+	{
+		this.chunkVertices = chunkVertices;
+	}
+
+	public HeightQuadtree getQuadtree()
+	{
+		return quadtree;
+	}
+
+	void setQuadtree(HeightQuadtree quadtree)
+	{
+		this.quadtree = quadtree;
+	}
+}
@@ -0,0 +1,261 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import edu.columbia.quidditch.filter.CombineFilter;
+import edu.columbia.quidditch.filter.Filter;
+import edu.columbia.quidditch.filter.GaussianFilter;
+import edu.columbia.quidditch.filter.MeanFilter;
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Generate a terrain from its parameters. Every random number comes from the
+ * seed, so the same parameters always give the same terrain
+ */
+public class TerraGenerator
+{
+	// Seeds of different layers are derived from the terrain seed
+	private static final long HEIGHT_SALT = 0x48454947L;
+	private static final long SNOW_SALT = 0x534e4f57L;
+	private static final long GRASS_SALT = 0x47524153L;
+
+	private TerraParams params;
+	private ForkJoinPool pool;
+
+	private Heightfield heightMap, snowMap, grassMap;
+
+	public TerraGenerator(TerraParams params)
+	{
+		this.params = params;
+		pool = Filter.getDefaultPool();
+	}
+
+	/**
+	 * Generate the height map, snow offset map and grass offset map
+	 * 
+	 * @return
+	 */
+	public Heightfield[] generate()
+	{
+		createNoise();
+		smooth();
+		flatten();
+
+		return getLayers();
+	}
+
+	/**
+	 * The first stage, fill all maps with random values
+	 */
+	public void createNoise()
+	{
+		heightMap = generateRandomMap(HEIGHT_SALT);
+		snowMap = generateRandomMap(SNOW_SALT);
+		grassMap = generateRandomMap(GRASS_SALT);
+	}
+
+	/**
+	 * The second stage, smooth all maps and scale them to their ranges
+	 */
+	public void smooth()
+	{
+		heightMap = smoothHeightMap(heightMap);
+		snowMap = smoothOffsetMap(snowMap, params.getHalfSnowFilterSize(),
+				params.getMaxSnowOffset());
+		grassMap = smoothOffsetMap(grassMap,
+				params.getHalfGrassFilterSize(), params.getMaxGrassOffset());
+	}
+
+	/**
+	 * The last stage, flatten the pitch
+	 */
+	public void flatten()
+	{
+		flatten(heightMap);
+	}
+
+	/**
+	 * Get the height map, snow offset map and grass offset map of the
+	 * finished stages
+	 * 
+	 * @return
+	 */
+	public Heightfield[] getLayers()
+	{
+		return new Heightfield[]
+		{ heightMap, snowMap, grassMap };
+	}
+
+	/**
+	 * Randomly generate a map
+	 * 
+	 * @param salt
+	 * @return
+	 */
+	private Heightfield generateRandomMap(long salt)
+	{
+		int cols = params.getCols();
+
+		Random random = new Random(params.getSeed() ^ salt);
+		Heightfield randomMap = new Heightfield(cols, cols);
+		float[] data = randomMap.getData();
+
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = random.nextFloat();
+		}
+
+		return randomMap;
+	}
+
+	/**
+	 * Smooth a random height map
+	 * 
+	 * @param heightMap
+	 * @return
+	 */
+	private Heightfield smoothHeightMap(Heightfield heightMap)
+	{
+		stretch(heightMap);
+
+		int halfFilterSize = params.getHalfFilterSize();
+		float gaussianProp = params.getGaussianProp();
+
+		Filter gaussianFilter = new GaussianFilter(halfFilterSize,
+				halfFilterSize);
+		Filter meanFilter = new MeanFilter(halfFilterSize, halfFilterSize);
+
+		CombineFilter filter = new CombineFilter(halfFilterSize,
+				halfFilterSize);
+		filter.addFilter(gaussianFilter, gaussianProp);
+		filter.addFilter(meanFilter, 1.0f - gaussianProp);
+
+		// Use both a Gaussian and a mean filter to smooth the map
+		heightMap = filter.convolute(heightMap, pool);
+
+		stretch(heightMap);
+
+		return heightMap;
+	}
+
+	/**
+	 * Adjust the heights
+	 * 
+	 * @param heightMap
+	 */
+	private void stretch(Heightfield heightMap)
+	{
+		float highest = params.getHighest();
+		float lowest = params.getLowest();
+
+		float high = lowest, low = highest;
+		float[] data = heightMap.getData();
+
+		for (int i = 0; i < data.length; ++i)
+		{
+			if (data[i] > high)
+			{
+				high = data[i];
+			}
+
+			if (data[i] < low)
+			{
+				low = data[i];
+			}
+		}
+
+		float ratio = (highest - lowest) / (high - low);
+
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (data[i] - low) * ratio + lowest;
+		}
+	}
+
+	/**
+	 * Flatten the pitch in the center of the map, and let the height rise
+	 * gradually around it
+	 * 
+	 * @param heightMap
+	 */
+	private void flatten(Heightfield heightMap)
+	{
+		int cols = params.getCols();
+		int halfCols = cols / 2;
+
+		int flatCol = (int) (params.getFlatX() / params.getCellSize());
+		int flatRow = (int) (params.getFlatZ() / params.getCellSize());
+
+		int multipleFlat = params.getMultipleFlat();
+		int multipleFlatCol = flatCol * multipleFlat;
+		int multipleFlatRow = flatRow * multipleFlat;
+
+		float pitch = params.getPitch();
+		float flatSlope = params.getFlatSlope();
+
+		for (int col = halfCols - multipleFlatCol; col <= halfCols
+				+ multipleFlatCol; ++col)
+		{
+			if (col < 0 || col >= cols)
+			{
+				continue;
+			}
+
+			float colCenter = Math.abs(col - halfCols) / (float) flatCol;
+
+			for (int row = halfCols - multipleFlatRow; row <= halfCols
+					+ multipleFlatRow; ++row)
+			{
+				if (row < 0 || row >= cols)
+				{
+					continue;
+				}
+
+				float rowCenter = Math.abs(row - halfCols) / (float) flatRow;
+				float center = (float) Math.sqrt(colCenter * colCenter
+						+ rowCenter * rowCenter);
+
+				if (center < 1 + 1e-6)
+				{
+					heightMap.set(row, col, pitch);
+				}
+				else
+				{
+					center -= 1;
+
+					// StrictMath gives the same result on every machine
+					heightMap.set(row, col, (float) (pitch + (heightMap.get(
+							row, col) - pitch)
+							* StrictMath.pow(center / (multipleFlat - 1),
+									flatSlope)));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Smooth a random offset map so that the heights of different layers
+	 * (snow, dirt, grass) will not be identical for each position
+	 * 
+	 * @param randomMap
+	 * @param halfFilterSize
+	 * @param maxOffset
+	 * @return
+	 */
+	private Heightfield smoothOffsetMap(Heightfield randomMap,
+			int halfFilterSize, float maxOffset)
+	{
+		Filter filter = new GaussianFilter(halfFilterSize, halfFilterSize);
+		Heightfield offsetMap = filter.convolute(randomMap, pool);
+
+		float[] data = offsetMap.getData();
+
+		for (int i = 0; i < data.length; ++i)
+		{
+			data[i] = (data[i] - 0.5f) * maxOffset;
+		}
+
+		return offsetMap;
+	}
+}
@@ -0,0 +1,166 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.nio.ShortBuffer;
+
+import static org.lwjgl.opengl.GL15.*;
+
+import org.lwjgl.BufferUtils;
+
+/**
+ * Index buffers of a terrain chunk at several levels of detail. Level n uses
+ * every 2^n-th vertex. When a neighbor of a chunk is one level coarser, the
+ * vertices on the shared edge are snapped to the coarser vertices, so there
+ * are no cracks between them
+ */
+public class TerraLod
+{
+	// Sides whose neighbors are coarser
+	public static final int NORTH = 1;
+	public static final int SOUTH = 2;
+	public static final int WEST = 4;
+	public static final int EAST = 8;
+
+	private static final int MASK_COUNT = 16;
+
+	private static final int BYTES_PER_SHORT = 2;
+
+	private int cells, levelCount;
+	private int ibo;
+
+	// Offset in bytes and number of indices for each level and mask
+	private int[][] offsets, counts;
+
+	/**
+	 * Build all index buffers and upload them into a single buffer object
+	 * 
+	 * @param cells
+	 *            number of cells along each side of a chunk, a power of 2
+	 * @param levelCount
+	 */
+	public TerraLod(int cells, int levelCount)
+	{
+		this.cells = cells;
+		this.levelCount = levelCount;
+
+		offsets = new int[levelCount][MASK_COUNT];
+		counts = new int[levelCount][MASK_COUNT];
+
+		int total = 0;
+
+		for (int level = 0; level < levelCount; ++level)
+		{
+			int cellsInLevel = cells >> level;
+			int count = cellsInLevel * cellsInLevel * 6;
+
+			for (int mask = 0; mask < MASK_COUNT; ++mask)
+			{
+				offsets[level][mask] = total * BYTES_PER_SHORT;
+				counts[level][mask] = count;
+				total += count;
+			}
+		}
+
+		ShortBuffer indices = BufferUtils.createShortBuffer(total);
+
+		for (int level = 0; level < levelCount; ++level)
+		{
+			for (int mask = 0; mask < MASK_COUNT; ++mask)
+			{
+				putIndices(indices, level, mask);
+			}
+		}
+
+		indices.flip();
+
+		ibo = glGenBuffers();
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+		glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices, GL_STATIC_DRAW);
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
+	}
+
+	/**
+	 * Append the triangles of a level whose coarser neighbors are in the mask
+	 * 
+	 * @param indices
+	 * @param level
+	 * @param mask
+	 */
+	private void putIndices(ShortBuffer indices, int level, int mask)
+	{
+		int step = 1 << level;
+
+		for (int row = 0; row < cells; row += step)
+		{
+			for (int col = 0; col < cells; col += step)
+			{
+				short v00 = getIndex(row, col, step, mask);
+				short v01 = getIndex(row, col + step, step, mask);
+				short v10 = getIndex(row + step, col, step, mask);
+				short v11 = getIndex(row + step, col + step, step, mask);
+
+				indices.put(v00).put(v10).put(v01);
+				indices.put(v01).put(v10).put(v11);
+			}
+		}
+	}
+
+	/**
+	 * Get the index of a vertex, snapped to the coarser grid if it is on an
+	 * edge next to a coarser chunk. The triangles touching the removed
+	 * vertices become degenerate or fan out from the coarser vertices
+	 * 
+	 * @param row
+	 * @param col
+	 * @param step
+	 * @param mask
+	 * @return
+	 */
+	private short getIndex(int row, int col, int step, int mask)
+	{
+		int coarse = step * 2;
+
+		if ((row == 0 && (mask & NORTH) != 0)
+				|| (row == cells && (mask & SOUTH) != 0))
+		{
+			col -= col % coarse;
+		}
+
+		if ((col == 0 && (mask & WEST) != 0)
+				|| (col == cells && (mask & EAST) != 0))
+		{
+			row -= row % coarse;
+		}
+
+		return (short) (row * (cells + 1) + col);
+	}
+
+	/**
+	 * Bind the index buffer
+	 */
+	public void bind()
+	{
+		glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, ibo);
+	}
+
+	public int getLevelCount()
+	{
+		return levelCount;
+	}
+
+	/**
+	 * Get the offset in bytes of the indices in the buffer
+	 * 
+	 * @param level
+	 * @param mask
+	 * @return
+	 */
+	public int getOffset(int level, int mask)
+	{
+		return offsets[level][mask];
+	}
+
+	public int getCount(int level, int mask)
+	{
+		return counts[level][mask];
+	}
+}
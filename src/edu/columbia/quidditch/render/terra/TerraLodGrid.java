@@ -0,0 +1,165 @@
+package edu.columbia.quidditch.render.terra;
+
+/**
+ * The levels of detail of a square grid of chunks in the current frame.
+ * Places in the grid may be empty
+ */
+public class TerraLodGrid
+{
+	private static final int EMPTY = -1;
+
+	private int size;
+	private int[] levels;
+
+	/**
+	 * @param size
+	 *            number of chunks along each side
+	 */
+	public TerraLodGrid(int size)
+	{
+		this.size = size;
+		levels = new int[size * size];
+	}
+
+	/**
+	 * Choose the level of detail of each chunk by its distance to the eye. A
+	 * chunk uses every 2^n-th vertex when it is at least lodDistance *
+	 * 2^(n-1) away. Neighboring chunks may only differ by one level,
+	 * otherwise their shared edge could not be stitched
+	 * 
+	 * @param chunks
+	 *            chunks row by row, null for empty places
+	 * @param eyeX
+	 * @param eyeY
+	 * @param eyeZ
+	 * @param lodDistance
+	 * @param levelCount
+	 */
+	public void select(TerraChunk[] chunks, float eyeX, float eyeY,
+			float eyeZ, float lodDistance, int levelCount)
+	{
+		for (int i = 0; i < levels.length; ++i)
+		{
+			if (chunks[i] == null)
+			{
+				levels[i] = EMPTY;
+				continue;
+			}
+
+			float distance = chunks[i].distanceTo(eyeX, eyeY, eyeZ);
+
+			int level = 0;
+			float threshold = lodDistance;
+
+			while (level < levelCount - 1 && distance >= threshold)
+			{
+				++level;
+				threshold *= 2;
+			}
+
+			levels[i] = level;
+		}
+
+		boolean changed = true;
+
+		while (changed)
+		{
+			changed = false;
+
+			for (int i = 0; i < levels.length; ++i)
+			{
+				if (levels[i] == EMPTY)
+				{
+					continue;
+				}
+
+				int row = i / size, col = i % size;
+				int limit = levels[i];
+
+				if (row > 0)
+				{
+					limit = limitBy(limit, levels[i - size]);
+				}
+
+				if (row < size - 1)
+				{
+					limit = limitBy(limit, levels[i + size]);
+				}
+
+				if (col > 0)
+				{
+					limit = limitBy(limit, levels[i - 1]);
+				}
+
+				if (col < size - 1)
+				{
+					limit = limitBy(limit, levels[i + 1]);
+				}
+
+				if (limit < levels[i])
+				{
+					levels[i] = limit;
+					changed = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lower a level to at most one above the level of a neighbor
+	 * 
+	 * @param level
+	 * @param neighbor
+	 * @return
+	 */
+	private static int limitBy(int level, int neighbor)
+	{
+		if (neighbor == EMPTY)
+		{
+			return level;
+		}
+
+		return Math.min(level, neighbor + 1);
+	}
+
+	public int getLevel(int row, int col)
+	{
+		return levels[row * size + col];
+	}
+
+	/**
+	 * Get the sides of a chunk whose neighbors are coarser
+	 * 
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	public int getCoarserSides(int row, int col)
+	{
+		int i = row * size + col;
+		int level = levels[i];
+		int mask = 0;
+
+		if (row > 0 && levels[i - size] > level)
+		{
+			mask |= TerraLod.NORTH;
+		}
+
+		if (row < size - 1 && levels[i + size] > level)
+		{
+			mask |= TerraLod.SOUTH;
+		}
+
+		if (col > 0 && levels[i - 1] > level)
+		{
+			mask |= TerraLod.WEST;
+		}
+
+		if (col < size - 1 && levels[i + 1] > level)
+		{
+			mask |= TerraLod.EAST;
+		}
+
+		return mask;
+	}
+}
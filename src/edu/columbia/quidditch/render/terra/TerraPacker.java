@@ -0,0 +1,175 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.nio.FloatBuffer;
+
+import org.lwjgl.BufferUtils;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * Pack the maps of a terrain into the interleaved vertices of its chunks.
+ * Locations out of the maps wrap around
+ */
+public class TerraPacker
+{
+	private int chunkCells;
+	private float cellSize;
+
+	// The UV coordinates repeat every texSize
+	private float texSize;
+
+	/**
+	 * @param chunkCells
+	 *            number of cells along each side of a chunk
+	 * @param cellSize
+	 * @param texSize
+	 */
+	public TerraPacker(int chunkCells, float cellSize, float texSize)
+	{
+		this.chunkCells = chunkCells;
+		this.cellSize = cellSize;
+		this.texSize = texSize;
+	}
+
+	/**
+	 * Compute the normal of every point of a row from its four neighbors
+	 * 
+	 * @param heightMap
+	 * @param row
+	 * @param normals
+	 *            x, y and z of the normals of the whole map row by row
+	 */
+	public void computeNormalRow(Heightfield heightMap, int row,
+			float[] normals)
+	{
+		int cols = heightMap.getCols();
+
+		for (int col = 0; col < cols; ++col)
+		{
+			float x = heightMap.getWrapped(row, col - 1)
+					- heightMap.getWrapped(row, col + 1);
+			float y = 2 * cellSize;
+			float z = heightMap.getWrapped(row - 1, col)
+					- heightMap.getWrapped(row + 1, col);
+
+			float sum = (float) Math.sqrt(x * x + y * y + z * z);
+
+			int i = (row * cols + col) * 3;
+
+			normals[i] = x / sum;
+			normals[i + 1] = y / sum;
+			normals[i + 2] = z / sum;
+		}
+	}
+
+	/**
+	 * Compute the normals of a whole map
+	 * 
+	 * @param heightMap
+	 * @return
+	 */
+	public float[] computeNormals(Heightfield heightMap)
+	{
+		float[] normals = new float[heightMap.getRows() * heightMap.getCols()
+				* 3];
+
+		for (int row = 0; row < heightMap.getRows(); ++row)
+		{
+			computeNormalRow(heightMap, row, normals);
+		}
+
+		return normals;
+	}
+
+	/**
+	 * Pack the position, normal, UV coordinate and offsets of each vertex of
+	 * a chunk
+	 * 
+	 * @param layers
+	 *            height map, snow offset map and grass offset map
+	 * @param normals
+	 * @param firstRow
+	 *            the row of the first vertex in the maps
+	 * @param firstCol
+	 *            the column of the first vertex in the maps
+	 * @param originX
+	 *            x of the first vertex
+	 * @param originZ
+	 *            z of the first vertex
+	 * @return
+	 */
+	public FloatBuffer packChunk(Heightfield[] layers, float[] normals,
+			int firstRow, int firstCol, float originX, float originZ)
+	{
+		Heightfield heightMap = layers[0];
+		Heightfield snowMap = layers[1];
+		Heightfield grassMap = layers[2];
+
+		int cols = heightMap.getCols();
+		int side = chunkCells + 1;
+
+		FloatBuffer vertices = BufferUtils.createFloatBuffer(side * side
+				* TerraChunk.FLOATS_PER_VERTEX);
+
+		for (int i = 0; i < side; ++i)
+		{
+			int row = heightMap.wrapRow(firstRow + i);
+			float z = originZ + i * cellSize;
+			float texZ = z / texSize;
+
+			for (int j = 0; j < side; ++j)
+			{
+				int col = heightMap.wrapCol(firstCol + j);
+				float x = originX + j * cellSize;
+				float texX = x / texSize;
+
+				int n = (row * cols + col) * 3;
+
+				// Set the vertex position, normal, UV coordinate and random
+				// offsets of heights of snow and grass layers
+				vertices.put(x).put(heightMap.get(row, col)).put(z);
+				vertices.put(normals[n]).put(normals[n + 1]).put(normals[n + 2]);
+				vertices.put(texX).put(texZ);
+				vertices.put(snowMap.get(row, col));
+				vertices.put(grassMap.get(row, col));
+			}
+		}
+
+		vertices.flip();
+
+		return vertices;
+	}
+
+	/**
+	 * Create a chunk with the bounding box of its vertices
+	 * 
+	 * @param heightMap
+	 * @param firstRow
+	 * @param firstCol
+	 * @param originX
+	 * @param originZ
+	 * @return
+	 */
+	public TerraChunk createChunk(Heightfield heightMap, int firstRow,
+			int firstCol, float originX, float originZ)
+	{
+		int side = chunkCells + 1;
+		float chunkSize = chunkCells * cellSize;
+
+		float low = Float.MAX_VALUE, high = -Float.MAX_VALUE;
+
+		for (int i = 0; i < side; ++i)
+		{
+			for (int j = 0; j < side; ++j)
+			{
+				float height = heightMap.getWrapped(firstRow + i, firstCol + j);
+
+				low = Math.min(low, height);
+				high = Math.max(high, height);
+			}
+		}
+
+		return new TerraChunk(originX, low, originZ, originX + chunkSize,
+				high, originZ + chunkSize);
+	}
+}
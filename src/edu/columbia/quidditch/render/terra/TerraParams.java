@@ -0,0 +1,240 @@
+package edu.columbia.quidditch.render.terra;
+
+/**
+ * Everything which determines a generated terrain. Two terrains generated
+ * from equal parameters are identical, so the parameters also name the cached
+ * terrain file
+ */
+public class TerraParams
+{
+	public static final long DEFAULT_SEED = 0x5155494444495443L;
+
+	// Bump when the generator changes, so old cached terrains are not used
+	private static final int GENERATOR_VERSION = 1;
+
+	private long seed;
+
+	private int cols;
+	private float cellSize;
+
+	// The highest and lowest hight
+	private float highest = 3000.0f;
+	private float lowest = -1000.0f;
+
+	// The smoothing result will be calculated by 75% Gaussian and 25% mean
+	// filter
+	private float gaussianProp = 0.75f;
+
+	// Different filter sizes
+	private int halfFilterSize = 30;
+	private int halfSnowFilterSize = 2;
+	private int halfGrassFilterSize = 8;
+
+	// The height of snow and grass will be offseted randomly
+	private float maxSnowOffset = 800.0f;
+	private float maxGrassOffset = 800.0f;
+
+	// The flat region for the pitch in the center of the map
+	private float pitch = -200.0f;
+
+	private int flatX = 1000;
+	private int flatZ = 1350;
+
+	private int multipleFlat = 3;
+	private float flatSlope = 0.3f;
+
+	/**
+	 * Default parameters for a square map
+	 * 
+	 * @param seed
+	 * @param cols
+	 *            number of columns (rows)
+	 * @param cellSize
+	 */
+	public TerraParams(long seed, int cols, float cellSize)
+	{
+		this.seed = seed;
+		this.cols = cols;
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Get a key which differs whenever any parameter differs
+	 * 
+	 * @return
+	 */
+	public String getKey()
+	{
+		String text = GENERATOR_VERSION + ";" + seed + ";" + cols + ";"
+				+ cellSize + ";" + highest + ";" + lowest + ";" + gaussianProp
+				+ ";" + halfFilterSize + ";" + halfSnowFilterSize + ";"
+				+ halfGrassFilterSize + ";" + maxSnowOffset + ";"
+				+ maxGrassOffset + ";" + pitch + ";" + flatX + ";" + flatZ
+				+ ";" + multipleFlat + ";" + flatSlope;
+
+		// FNV-1a
+		long hash = 0xcbf29ce484222325L;
+
+		for (int i = 0; i < text.length(); ++i)
+		{
+			hash ^= text.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+
+		return String.format("%016x", hash);
+	}
+
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	public void setSeed(long seed)
+	{
+		this.seed = seed;
+	}
+
+	public int getCols()
+	{
+		return cols;
+	}
+
+	public float getCellSize()
+	{
+		return cellSize;
+	}
+
+	public float getHighest()
+	{
+		return highest;
+	}
+
+	public float getLowest()
+	{
+		return lowest;
+	}
+
+	/**
+	 * Set the range of heights before the pitch is flattened
+	 * 
+	 * @param lowest
+	 * @param highest
+	 */
+	public void setHeightRange(float lowest, float highest)
+	{
+		this.lowest = lowest;
+		this.highest = highest;
+	}
+
+	public float getGaussianProp()
+	{
+		return gaussianProp;
+	}
+
+	public void setGaussianProp(float gaussianProp)
+	{
+		this.gaussianProp = gaussianProp;
+	}
+
+	public int getHalfFilterSize()
+	{
+		return halfFilterSize;
+	}
+
+	public void setHalfFilterSize(int halfFilterSize)
+	{
+		this.halfFilterSize = halfFilterSize;
+	}
+
+	public int getHalfSnowFilterSize()
+	{
+		return halfSnowFilterSize;
+	}
+
+	public void setHalfSnowFilterSize(int halfSnowFilterSize)
+	{
+		this.halfSnowFilterSize = halfSnowFilterSize;
+	}
+
+	public int getHalfGrassFilterSize()
+	{
+		return halfGrassFilterSize;
+	}
+
+	public void setHalfGrassFilterSize(int halfGrassFilterSize)
+	{
+		this.halfGrassFilterSize = halfGrassFilterSize;
+	}
+
+	public float getMaxSnowOffset()
+	{
+		return maxSnowOffset;
+	}
+
+	public void setMaxSnowOffset(float maxSnowOffset)
+	{
+		this.maxSnowOffset = maxSnowOffset;
+	}
+
+	public float getMaxGrassOffset()
+	{
+		return maxGrassOffset;
+	}
+
+	public void setMaxGrassOffset(float maxGrassOffset)
+	{
+		this.maxGrassOffset = maxGrassOffset;
+	}
+
+	public float getPitch()
+	{
+		return pitch;
+	}
+
+	public void setPitch(float pitch)
+	{
+		this.pitch = pitch;
+	}
+
+	public int getFlatX()
+	{
+		return flatX;
+	}
+
+	public int getFlatZ()
+	{
+		return flatZ;
+	}
+
+	/**
+	 * Set the half size of the flat pitch in world units
+	 * 
+	 * @param flatX
+	 * @param flatZ
+	 */
+	public void setFlatSize(int flatX, int flatZ)
+	{
+		this.flatX = flatX;
+		this.flatZ = flatZ;
+	}
+
+	public int getMultipleFlat()
+	{
+		return multipleFlat;
+	}
+
+	public void setMultipleFlat(int multipleFlat)
+	{
+		this.multipleFlat = multipleFlat;
+	}
+
+	public float getFlatSlope()
+	{
+		return flatSlope;
+	}
+
+	public void setFlatSlope(float flatSlope)
+	{
+		this.flatSlope = flatSlope;
+	}
+}
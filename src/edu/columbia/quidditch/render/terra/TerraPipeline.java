@@ -0,0 +1,369 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import org.lwjgl.BufferUtils;
+
+import edu.columbia.quidditch.filter.Filter;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+import edu.columbia.quidditch.util.HeightQuadtree;
+import edu.columbia.quidditch.util.Heightfield;
+import edu.columbia.quidditch.util.TerraFile;
+
+/**
+ * Prepare a terrain on worker threads in stages: noise, smoothing,
+ * flattening, normals and packing, so that only uploading is left for the
+ * OpenGL thread
+ */
+public class TerraPipeline implements Callable<TerraData>
+{
+	private static final int STAGE_COUNT = 5;
+
+	// Height, snow offset and grass offset
+	private static final int LAYER_COUNT = 3;
+
+	private String terraName;
+	private TerraParams params;
+
+	private int cols, chunkCells, chunkCount;
+	private float cellSize, halfSize;
+
+	private boolean packTexels;
+
+	private TerraPacker packer;
+
+	// Stages finished, or skipped because the maps were loaded
+	private int finishedStages;
+
+	/**
+	 * @param terraName
+	 *            the terrain file to load first, or null to use the cache
+	 * @param params
+	 *            parameters to generate the terrain if it cannot be loaded
+	 * @param chunkCells
+	 *            number of cells along each side of a chunk
+	 * @param packTexels
+	 *            pack the maps as texels of a texture instead of vertices of
+	 *            each chunk
+	 */
+	public TerraPipeline(String terraName, TerraParams params, int chunkCells,
+			boolean packTexels)
+	{
+		this.terraName = terraName;
+		this.params = params;
+		this.chunkCells = chunkCells;
+		this.packTexels = packTexels;
+
+		cols = params.getCols();
+		cellSize = params.getCellSize();
+		halfSize = cols * cellSize / 2;
+
+		chunkCount = cols / chunkCells;
+
+		packer = new TerraPacker(chunkCells, cellSize, halfSize * 2);
+	}
+
+	/**
+	 * Run the pipeline in a new thread
+	 * 
+	 * @return
+	 */
+	public Future<TerraData> start()
+	{
+		FutureTask<TerraData> task = new FutureTask<TerraData>(this);
+
+		LoadScreen.expect(STAGE_COUNT);
+
+		Thread thread = new Thread(task, "Terrain pipeline");
+		thread.setDaemon(true);
+		thread.start();
+
+		return task;
+	}
+
+	@Override
+	public TerraData call() throws Exception
+	{
+		finishedStages = 0;
+
+		try
+		{
+			Heightfield[] layers = loadLayers();
+			TerraData data = new TerraData(layers);
+
+			if (packTexels)
+			{
+				beginStage(4, "normals will be computed on GPU");
+				beginStage(5, "packing texels");
+				data.setTexels(packTexels(layers));
+			}
+			else
+			{
+				beginStage(4, "computing normals");
+				float[] normals = computeNormals(layers[0]);
+
+				beginStage(5, "packing vertices");
+				data.setChunkVertices(packVertices(layers, normals));
+			}
+
+			data.setChunks(createChunks(layers[0]));
+			data.setQuadtree(new HeightQuadtree(layers[0]));
+
+			return data;
+		}
+		finally
+		{
+			// Also finish the stages of a failed pipeline, so that the
+			// progress bar is not left waiting for them
+			finishStages(STAGE_COUNT);
+		}
+	}
+
+	/**
+	 * Report the beginning of a stage, after finishing the stages before it
+	 * on the progress bar. Stages skipped over are finished as well
+	 * 
+	 * @param stage
+	 *            from 1 to STAGE_COUNT
+	 * @param text
+	 */
+	private void beginStage(int stage, String text)
+	{
+		finishStages(stage - 1);
+
+		LoadScreen.log("Terrain stage " + stage + " of " + STAGE_COUNT + ": "
+				+ text);
+	}
+
+	/**
+	 * Finish the stages up to and including one on the progress bar
+	 * 
+	 * @param stage
+	 */
+	private void finishStages(int stage)
+	{
+		if (stage > finishedStages)
+		{
+			LoadScreen.advance(stage - finishedStages);
+			finishedStages = stage;
+		}
+	}
+
+	/**
+	 * Load the terrain file, or the cached terrain, or generate it
+	 * 
+	 * @return
+	 */
+	private Heightfield[] loadLayers()
+	{
+		boolean saveToFile = false;
+
+		if (terraName != null && new File(terraName).exists())
+		{
+			try
+			{
+				LoadScreen.log("Loading terrain from " + terraName);
+				return TerraFile.load(terraName, cols, cols, cellSize,
+						LAYER_COUNT);
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+
+				// If failed to load old terrain, generate new terrain and
+				// save it
+				saveToFile = true;
+			}
+		}
+
+		Heightfield[] layers = TerraCache.load(params);
+
+		if (layers == null)
+		{
+			TerraGenerator generator = new TerraGenerator(params);
+
+			beginStage(1, "generating noise with seed " + params.getSeed());
+			generator.createNoise();
+
+			beginStage(2, "smoothing");
+			generator.smooth();
+
+			beginStage(3, "flattening the pitch");
+			generator.flatten();
+
+			layers = generator.getLayers();
+			TerraCache.save(params, layers);
+		}
+
+		if (saveToFile)
+		{
+			try
+			{
+				TerraFile.save(terraName, cellSize, layers);
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+
+		return layers;
+	}
+
+	/**
+	 * Run tasks in the pool of the filters and wait for all of them
+	 * 
+	 * @param tasks
+	 * @throws Exception
+	 */
+	private static void invokeAll(ArrayList<Callable<Void>> tasks)
+			throws Exception
+	{
+		for (Future<Void> future : Filter.getDefaultPool().invokeAll(tasks))
+		{
+			// Throw the exception of a failed task
+			future.get();
+		}
+	}
+
+	/**
+	 * Compute the normal of every grid point from its four neighbors
+	 * 
+	 * @param heightMap
+	 * @return x, y and z of the normals row by row
+	 * @throws Exception
+	 */
+	private float[] computeNormals(final Heightfield heightMap)
+			throws Exception
+	{
+		final float[] normals = new float[cols * cols * 3];
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		for (int row = 0; row < cols; ++row)
+		{
+			final int taskRow = row;
+
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					packer.computeNormalRow(heightMap, taskRow, normals);
+					return null;
+				}
+			});
+		}
+
+		invokeAll(tasks);
+
+		return normals;
+	}
+
+	/**
+	 * Pack the height, snow offset and grass offset of each grid point
+	 * 
+	 * @param layers
+	 * @return
+	 */
+	private FloatBuffer packTexels(Heightfield[] layers)
+	{
+		Heightfield heightMap = layers[0];
+		Heightfield snowMap = layers[1];
+		Heightfield grassMap = layers[2];
+
+		FloatBuffer texels = BufferUtils.createFloatBuffer(cols * cols * 3);
+
+		for (int row = 0; row < cols; ++row)
+		{
+			for (int col = 0; col < cols; ++col)
+			{
+				texels.put(heightMap.get(row, col));
+				texels.put(snowMap.get(row, col));
+				texels.put(grassMap.get(row, col));
+			}
+		}
+
+		texels.flip();
+
+		return texels;
+	}
+
+	/**
+	 * Pack the position, normal, UV coordinate and offsets of each vertex of
+	 * each chunk
+	 * 
+	 * @param layers
+	 * @param normals
+	 * @return
+	 * @throws Exception
+	 */
+	private FloatBuffer[] packVertices(final Heightfield[] layers,
+			final float[] normals) throws Exception
+	{
+		final FloatBuffer[] chunkVertices = new FloatBuffer[chunkCount
+				* chunkCount];
+
+		ArrayList<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+		for (int chunkRow = 0; chunkRow < chunkCount; ++chunkRow)
+		{
+			final int taskChunkRow = chunkRow;
+
+			tasks.add(new Callable<Void>()
+			{
+				@Override
+				public Void call()
+				{
+					for (int chunkCol = 0; chunkCol < chunkCount; ++chunkCol)
+					{
+						int row = taskChunkRow * chunkCells;
+						int col = chunkCol * chunkCells;
+
+						chunkVertices[taskChunkRow * chunkCount + chunkCol] = packer
+								.packChunk(layers, normals, row, col, col
+										* cellSize - halfSize, row * cellSize
+										- halfSize);
+					}
+
+					return null;
+				}
+			});
+		}
+
+		invokeAll(tasks);
+
+		return chunkVertices;
+	}
+
+	/**
+	 * Compute the bounding box of each chunk
+	 * 
+	 * @param heightMap
+	 * @return
+	 */
+	private TerraChunk[] createChunks(Heightfield heightMap)
+	{
+		TerraChunk[] chunks = new TerraChunk[chunkCount * chunkCount];
+
+		for (int chunkRow = 0; chunkRow < chunkCount; ++chunkRow)
+		{
+			for (int chunkCol = 0; chunkCol < chunkCount; ++chunkCol)
+			{
+				int row = chunkRow * chunkCells;
+				int col = chunkCol * chunkCells;
+
+				chunks[chunkRow * chunkCount + chunkCol] = packer.createChunk(
+						heightMap, row, col, col * cellSize - halfSize, row
+								* cellSize - halfSize);
+			}
+		}
+
+		return chunks;
+	}
+}
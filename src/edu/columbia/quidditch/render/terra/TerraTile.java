@@ -0,0 +1,181 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+import edu.columbia.quidditch.util.Heightfield;
+
+/**
+ * One tile of a streamed terrain. The maps and vertices are prepared in a
+ * loader thread, and the vertices are uploaded later in the OpenGL thread
+ */
+public class TerraTile
+{
+	private static final int BYTES_PER_FLOAT = 4;
+
+	private int tileX, tileZ;
+
+	// Maps of the tile with one extra row and column on each side
+	private Heightfield heightMap;
+
+	private TerraChunk[] chunks;
+
+	// Released once uploaded
+	private FloatBuffer[] chunkVertices;
+
+	private long size;
+
+	// The last frame in which the tile was drawn or queried
+	private long lastUsed;
+
+	/**
+	 * Load a tile and prepare the vertices of its chunks
+	 * 
+	 * @param tileSet
+	 * @param tileX
+	 * @param tileZ
+	 * @param chunkCells
+	 * @return
+	 * @throws IOException
+	 */
+	public static TerraTile load(TerraTileSet tileSet, int tileX, int tileZ,
+			int chunkCells) throws IOException
+	{
+		Heightfield[] layers = tileSet.loadTile(tileX, tileZ);
+
+		float cellSize = tileSet.getCellSize();
+		float tileSize = tileSet.getTileSize();
+		float worldOrigin = tileSet.getWorldOrigin();
+
+		// Textures repeat once per tile, the same as on the whole map
+		TerraPacker packer = new TerraPacker(chunkCells, cellSize, tileSize);
+		float[] normals = packer.computeNormals(layers[0]);
+
+		int chunkCount = tileSet.getTileCols() / chunkCells;
+
+		TerraChunk[] chunks = new TerraChunk[chunkCount * chunkCount];
+		FloatBuffer[] chunkVertices = new FloatBuffer[chunks.length];
+
+		for (int chunkRow = 0; chunkRow < chunkCount; ++chunkRow)
+		{
+			for (int chunkCol = 0; chunkCol < chunkCount; ++chunkCol)
+			{
+				int i = chunkRow * chunkCount + chunkCol;
+
+				// Skip the extra row and column
+				int firstRow = 1 + chunkRow * chunkCells;
+				int firstCol = 1 + chunkCol * chunkCells;
+
+				float originX = worldOrigin + tileX * tileSize + chunkCol
+						* chunkCells * cellSize;
+				float originZ = worldOrigin + tileZ * tileSize + chunkRow
+						* chunkCells * cellSize;
+
+				chunkVertices[i] = packer.packChunk(layers, normals, firstRow,
+						firstCol, originX, originZ);
+				chunks[i] = packer.createChunk(layers[0], firstRow, firstCol,
+						originX, originZ);
+			}
+		}
+
+		return new TerraTile(tileX, tileZ, layers[0], chunks, chunkVertices);
+	}
+
+	private TerraTile(int tileX, int tileZ, Heightfield heightMap,
+			TerraChunk[] chunks, FloatBuffer[] chunkVertices)
+	{
+		this.tileX = tileX;
+		this.tileZ = tileZ;
+		this.heightMap = heightMap;
+		this.chunks = chunks;
+		this.chunkVertices = chunkVertices;
+
+		size = (long) heightMap.getRows() * heightMap.getCols()
+				* BYTES_PER_FLOAT;
+
+		for (FloatBuffer vertices : chunkVertices)
+		{
+			size += (long) vertices.capacity() * BYTES_PER_FLOAT;
+		}
+	}
+
+	/**
+	 * Upload the vertices of all chunks. Must be called in the OpenGL thread
+	 */
+	public void upload()
+	{
+		for (int i = 0; i < chunks.length; ++i)
+		{
+			chunks[i].upload(chunkVertices[i]);
+		}
+
+		chunkVertices = null;
+	}
+
+	/**
+	 * Release the vertex buffers of all chunks. Must be called in the OpenGL
+	 * thread
+	 */
+	public void delete()
+	{
+		for (TerraChunk chunk : chunks)
+		{
+			chunk.delete();
+		}
+	}
+
+	/**
+	 * Get the height at a location inside the tile, in cells from its first
+	 * vertex
+	 * 
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	public float getHeight(float row, float col)
+	{
+		// Skip the extra row and column
+		return heightMap.getInterpolated(row + 1, col + 1);
+	}
+
+	public int getTileX()
+	{
+		return tileX;
+	}
+
+	public int getTileZ()
+	{
+		return tileZ;
+	}
+
+	/**
+	 * Get the chunks stored row by row
+	 * 
+	 * @return
+	 */
+	public TerraChunk[] getChunks()
+	{
+		return chunks;
+	}
+
+	/**
+	 * Get the memory held by the tile in bytes, in main memory or graphics
+	 * memory
+	 * 
+	 * @return
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+
+	public long getLastUsed()
+	{
+		return lastUsed;
+	}
+
+	public void setLastUsed(long lastUsed)
+	{
+		this.lastUsed = lastUsed;
+	}
+}
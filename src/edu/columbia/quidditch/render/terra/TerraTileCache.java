@@ -0,0 +1,142 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Resident tiles of a streamed terrain, kept in order of last use. When the
+ * tiles take more memory than the budget, the least recently used ones are
+ * evicted, except those used in the current frame
+ */
+public class TerraTileCache
+{
+	private LinkedHashMap<Long, TerraTile> tiles;
+
+	private long budget, size;
+
+	/**
+	 * Create a cache
+	 * 
+	 * @param budget
+	 *            the memory in bytes the tiles may take
+	 */
+	public TerraTileCache(long budget)
+	{
+		this.budget = budget;
+
+		// Iterate from the least recently used tile
+		tiles = new LinkedHashMap<Long, TerraTile>(16, 0.75f, true);
+	}
+
+	/**
+	 * Combine the indices of a tile into one key
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 */
+	public static long getKey(int tileX, int tileZ)
+	{
+		return ((long) tileZ << 32) | (tileX & 0xffffffffL);
+	}
+
+	/**
+	 * Get a resident tile and mark it as used in a frame
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 * @param frame
+	 * @return the tile, or null if it is not resident
+	 */
+	public TerraTile get(int tileX, int tileZ, long frame)
+	{
+		TerraTile tile = tiles.get(getKey(tileX, tileZ));
+
+		if (tile != null)
+		{
+			tile.setLastUsed(frame);
+		}
+
+		return tile;
+	}
+
+	/**
+	 * Check whether a tile is resident without marking it as used
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 */
+	public boolean contains(int tileX, int tileZ)
+	{
+		return tiles.containsKey(getKey(tileX, tileZ));
+	}
+
+	/**
+	 * Add an uploaded tile
+	 * 
+	 * @param tile
+	 * @param frame
+	 */
+	public void put(TerraTile tile, long frame)
+	{
+		tile.setLastUsed(frame);
+
+		TerraTile old = tiles.put(getKey(tile.getTileX(), tile.getTileZ()),
+				tile);
+
+		if (old != null)
+		{
+			size -= old.getSize();
+		}
+
+		size += tile.getSize();
+	}
+
+	/**
+	 * Remove the least recently used tiles until the tiles fit in the budget.
+	 * Tiles used in the current frame are never removed
+	 * 
+	 * @param frame
+	 * @return the removed tiles, whose buffers should be deleted
+	 */
+	public List<TerraTile> evict(long frame)
+	{
+		List<TerraTile> evicted = new ArrayList<TerraTile>();
+		Iterator<TerraTile> iter = tiles.values().iterator();
+
+		while (size > budget && iter.hasNext())
+		{
+			TerraTile tile = iter.next();
+
+			if (tile.getLastUsed() >= frame)
+			{
+				// Every following tile was used more recently
+				break;
+			}
+
+			iter.remove();
+			size -= tile.getSize();
+			evicted.add(tile);
+		}
+
+		return evicted;
+	}
+
+	/**
+	 * Get the memory taken by the resident tiles in bytes
+	 * 
+	 * @return
+	 */
+	public long getSize()
+	{
+		return size;
+	}
+
+	public int getTileCount()
+	{
+		return tiles.size();
+	}
+}
@@ -0,0 +1,280 @@
+package edu.columbia.quidditch.render.terra;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+import edu.columbia.quidditch.render.screen.LoadScreen;
+import edu.columbia.quidditch.util.Heightfield;
+import edu.columbia.quidditch.util.TerraFile;
+
+/**
+ * A large terrain stored on disk as a square grid of tiles, so that it can be
+ * loaded piece by piece. Each tile file holds its maps with one extra row and
+ * column on each side, so normals at the edges can be computed without the
+ * neighboring tiles
+ */
+public class TerraTileSet
+{
+	private static final String INDEX_NAME = "tileset.properties";
+
+	// Height, snow offset and grass offset
+	private static final int LAYER_COUNT = 3;
+
+	private String path;
+
+	private int tilesAcross, tileCols;
+	private float cellSize;
+
+	/**
+	 * Open the tile set in a directory
+	 * 
+	 * @param path
+	 * @return the tile set, or null if there is no tile set in the directory
+	 */
+	public static TerraTileSet open(String path)
+	{
+		File indexFile = new File(path, INDEX_NAME);
+
+		if (!indexFile.exists())
+		{
+			return null;
+		}
+
+		Properties index = new Properties();
+
+		try
+		{
+			FileInputStream istream = new FileInputStream(indexFile);
+
+			try
+			{
+				index.load(istream);
+			}
+			finally
+			{
+				istream.close();
+			}
+
+			return new TerraTileSet(path,
+					Integer.parseInt(index.getProperty("tilesAcross")),
+					Integer.parseInt(index.getProperty("tileCols")),
+					Float.parseFloat(index.getProperty("cellSize")));
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+		catch (NumberFormatException e)
+		{
+			e.printStackTrace();
+			return null;
+		}
+	}
+
+	/**
+	 * Generate a terrain and split it into tiles
+	 * 
+	 * @param path
+	 *            the directory of the tiles
+	 * @param params
+	 *            parameters of the whole terrain
+	 * @param tileCols
+	 *            number of cells along each side of a tile
+	 * @return
+	 * @throws IOException
+	 */
+	public static TerraTileSet bake(String path, TerraParams params,
+			int tileCols) throws IOException
+	{
+		int cols = params.getCols();
+
+		if (cols % tileCols != 0)
+		{
+			throw new IllegalArgumentException("Terrain of " + cols
+					+ " columns cannot be split into tiles of " + tileCols);
+		}
+
+		LoadScreen.log("Baking " + (cols / tileCols) + "x" + (cols / tileCols)
+				+ " terrain tiles to " + path);
+
+		TerraTileSet tileSet = new TerraTileSet(path, cols / tileCols,
+				tileCols, params.getCellSize());
+
+		Heightfield[] layers = new TerraGenerator(params).generate();
+
+		new File(path).mkdirs();
+
+		int apronCols = tileSet.getApronCols();
+
+		for (int tileZ = 0; tileZ < tileSet.tilesAcross; ++tileZ)
+		{
+			for (int tileX = 0; tileX < tileSet.tilesAcross; ++tileX)
+			{
+				Heightfield[] tileLayers = new Heightfield[LAYER_COUNT];
+
+				for (int k = 0; k < LAYER_COUNT; ++k)
+				{
+					tileLayers[k] = new Heightfield(apronCols, apronCols);
+
+					for (int i = 0; i < apronCols; ++i)
+					{
+						for (int j = 0; j < apronCols; ++j)
+						{
+							tileLayers[k].set(i, j, layers[k].getWrapped(tileZ
+									* tileCols + i - 1, tileX * tileCols + j
+									- 1));
+						}
+					}
+				}
+
+				TerraFile.save(tileSet.getFileName(tileX, tileZ),
+						params.getCellSize(), tileLayers);
+			}
+		}
+
+		Properties index = new Properties();
+		index.setProperty("tilesAcross", String.valueOf(tileSet.tilesAcross));
+		index.setProperty("tileCols", String.valueOf(tileCols));
+		index.setProperty("cellSize", String.valueOf(params.getCellSize()));
+
+		FileOutputStream ostream = new FileOutputStream(new File(path,
+				INDEX_NAME));
+
+		try
+		{
+			index.store(ostream, "Terrain tiles");
+		}
+		finally
+		{
+			ostream.close();
+		}
+
+		return tileSet;
+	}
+
+	private TerraTileSet(String path, int tilesAcross, int tileCols,
+			float cellSize)
+	{
+		this.path = path;
+		this.tilesAcross = tilesAcross;
+		this.tileCols = tileCols;
+		this.cellSize = cellSize;
+	}
+
+	/**
+	 * Get the file of a tile
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 */
+	public String getFileName(int tileX, int tileZ)
+	{
+		return path + File.separator + "tile_" + tileZ + "_" + tileX + ".map";
+	}
+
+	/**
+	 * Load the maps of a tile, including the extra rows and columns
+	 * 
+	 * @param tileX
+	 * @param tileZ
+	 * @return
+	 * @throws IOException
+	 */
+	public Heightfield[] loadTile(int tileX, int tileZ) throws IOException
+	{
+		int apronCols = getApronCols();
+
+		return TerraFile.load(getFileName(tileX, tileZ), apronCols,
+				apronCols, cellSize, LAYER_COUNT);
+	}
+
+	public int getTilesAcross()
+	{
+		return tilesAcross;
+	}
+
+	/**
+	 * Get the number of cells along each side of a tile
+	 * 
+	 * @return
+	 */
+	public int getTileCols()
+	{
+		return tileCols;
+	}
+
+	/**
+	 * Get the number of points along each side of a tile file, which has an
+	 * extra row and column on each side of the tileCols + 1 points
+	 * 
+	 * @return
+	 */
+	public int getApronCols()
+	{
+		return tileCols + 3;
+	}
+
+	public float getCellSize()
+	{
+		return cellSize;
+	}
+
+	/**
+	 * Get the width of a tile in world units
+	 * 
+	 * @return
+	 */
+	public float getTileSize()
+	{
+		return tileCols * cellSize;
+	}
+
+	/**
+	 * Get x and z of the first vertex of the first tile, so that the whole
+	 * terrain is centered at the origin
+	 * 
+	 * @return
+	 */
+	public float getWorldOrigin()
+	{
+		return -tilesAcross * getTileSize() / 2;
+	}
+
+	/**
+	 * Bake a tile set
+	 * 
+	 * @param args
+	 *            directory, seed, number of tiles along each side and number
+	 *            of cells along each side of a tile
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 4)
+		{
+			System.out.println("Usage: TerraTileSet <path> <seed> "
+					+ "<tilesAcross> <tileCols>");
+			return;
+		}
+
+		int tilesAcross = Integer.parseInt(args[2]);
+		int tileCols = Integer.parseInt(args[3]);
+
+		TerraParams params = new TerraParams(Long.parseLong(args[1]),
+				tilesAcross * tileCols, 25);
+
+		try
+		{
+			bake(args[0], params, tileCols);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package edu.columbia.quidditch.util;
+
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import edu.columbia.quidditch.basic.Texture;
+import edu.columbia.quidditch.basic.TextureData;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+
+/**
+ * Read models and decode images on worker threads, and upload them in the
+ * OpenGL thread when they are needed. The textures of a model are decoded as
+ * soon as its materials are read, and a model is handed over only with its
+ * textures uploaded, so that objects drawing it can upload their buffers
+ * right away. Requesting every asset before the first one is needed lets
+ * them all load at the same time. Each read in the background is a step of
+ * the progress bar on the loading screen
+ */
+public class AssetLoader
+{
+	private static AssetLoader defaultLoader = null;
+
+	private ExecutorService pool;
+
+	// Models and images read in the background, by file name, until they
+	// are handed over
+	private ConcurrentHashMap<String, Future<CompiledModel>> models;
+	private ConcurrentHashMap<String, Future<TextureData>> images;
+
+	// Uploaded textures, only written in the OpenGL thread. Their images are
+	// dropped once uploaded
+	private ConcurrentHashMap<String, Texture> textures;
+
+	/**
+	 * Get the loader shared by all models and textures, with a thread for
+	 * each processor
+	 * 
+	 * @return
+	 */
+	public static synchronized AssetLoader getDefault()
+	{
+		if (defaultLoader == null)
+		{
+			defaultLoader = new AssetLoader(Runtime.getRuntime()
+					.availableProcessors());
+		}
+
+		return defaultLoader;
+	}
+
+	/**
+	 * @param threads
+	 *            number of worker threads
+	 */
+	public AssetLoader(int threads)
+	{
+		pool = Executors.newFixedThreadPool(threads, new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable runnable)
+			{
+				Thread thread = new Thread(runnable, "Asset loader");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+
+		models = new ConcurrentHashMap<String, Future<CompiledModel>>();
+		images = new ConcurrentHashMap<String, Future<TextureData>>();
+
+		textures = new ConcurrentHashMap<String, Texture>();
+	}
+
+	/**
+	 * Start reading a model, followed by decoding its textures, unless it
+	 * was requested before. Can be called in any thread
+	 * 
+	 * @param modelName
+	 */
+	public void loadModel(final String modelName)
+	{
+		if (models.containsKey(modelName))
+		{
+			return;
+		}
+
+		FutureTask<CompiledModel> task = new FutureTask<CompiledModel>(
+				new Callable<CompiledModel>()
+				{
+					@Override
+					public CompiledModel call()
+					{
+						try
+						{
+							CompiledModel model = CompiledModel.load(modelName);
+
+							// The materials are known, so their images can be
+							// decoded while the OpenGL thread is busy with
+							// other assets
+							for (String textureName : model.getTextureNames())
+							{
+								loadTexture(textureName);
+							}
+
+							return model;
+						}
+						finally
+						{
+							LoadScreen.advance(1);
+						}
+					}
+				});
+
+		if (models.putIfAbsent(modelName, task) == null)
+		{
+			LoadScreen.expect(1);
+			pool.execute(task);
+		}
+	}
+
+	/**
+	 * Start decoding an image, unless it was requested or uploaded before.
+	 * Can be called in any thread
+	 * 
+	 * @param imageName
+	 */
+	public void loadTexture(final String imageName)
+	{
+		if (textures.containsKey(imageName) || images.containsKey(imageName))
+		{
+			return;
+		}
+
+		FutureTask<TextureData> task = new FutureTask<TextureData>(
+				new Callable<TextureData>()
+				{
+					@Override
+					public TextureData call() throws IOException
+					{
+						try
+						{
+							LoadScreen.log("Decoding texture from " + imageName);
+							return TextureData.decode(imageName);
+						}
+						finally
+						{
+							LoadScreen.advance(1);
+						}
+					}
+				});
+
+		if (images.putIfAbsent(imageName, task) != null)
+		{
+			return;
+		}
+
+		// The texture may have been uploaded since it was checked, after
+		// which its image is not needed
+		if (textures.containsKey(imageName))
+		{
+			images.remove(imageName, task);
+			return;
+		}
+
+		LoadScreen.expect(1);
+		pool.execute(task);
+	}
+
+	/**
+	 * Wait for a model and upload its textures. The loader lets go of the
+	 * model once it is handed over, so that its arrays can be freed when the
+	 * caller has uploaded them, and getting it again reads it again. Must be
+	 * called in the OpenGL thread
+	 * 
+	 * @param modelName
+	 * @return
+	 */
+	public CompiledModel getModel(String modelName)
+	{
+		loadModel(modelName);
+
+		CompiledModel model = waitFor(models.remove(modelName));
+
+		for (String textureName : model.getTextureNames())
+		{
+			model.setTexture(textureName, getTexture(textureName));
+		}
+
+		return model;
+	}
+
+	/**
+	 * Upload the texture of an image, which is decoded in this thread if it
+	 * was not requested before. Textures of the same image are shared. Must
+	 * be called in the OpenGL thread
+	 * 
+	 * @param imageName
+	 * @return
+	 */
+	public Texture getTexture(String imageName)
+	{
+		Texture texture = textures.get(imageName);
+
+		if (texture != null)
+		{
+			return texture;
+		}
+
+		Future<TextureData> image = images.get(imageName);
+		TextureData data;
+
+		if (image == null)
+		{
+			// Decoding here is quicker than waiting behind the other assets
+			// in the pool
+			try
+			{
+				LoadScreen.log("Loading texture from " + imageName);
+				data = TextureData.decode(imageName);
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				System.exit(1);
+				return null;
+			}
+		}
+		else
+		{
+			data = waitFor(image);
+		}
+
+		texture = new Texture(data);
+
+		textures.put(imageName, texture);
+		images.remove(imageName);
+
+		return texture;
+	}
+
+	/**
+	 * Wait for an asset read in the background
+	 * 
+	 * @param future
+	 * @return
+	 */
+	private static <T> T waitFor(Future<T> future)
+	{
+		try
+		{
+			return future.get();
+		}
+		catch (InterruptedException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+			return null;
+		}
+		catch (ExecutionException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+			return null;
+		}
+	}
+}
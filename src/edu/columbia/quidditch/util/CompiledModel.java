@@ -0,0 +1,317 @@
+package edu.columbia.quidditch.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import edu.columbia.quidditch.basic.Material;
+import edu.columbia.quidditch.basic.Texture;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+
+/**
+ * A model as it is drawn, independent of the text format it came from.
+ * Static models are an indexed mesh, and skinned models are vertex arrays
+ * with a skeleton. It is compiled into a binary file next to the source,
+ * which is loaded instead of parsing the source as long as the source files
+ * do not change
+ */
+public class CompiledModel
+{
+	public static final String COMPILED_EXTENSION = ".qmdl";
+
+	// Positions and normals have three floats each, and UV coordinates two
+	private float[] vers, texCoords, nors;
+
+	// Faces of each mesh, as the loader of the source lays them out
+	private ArrayList<IntArray> meshList;
+
+	private ArrayList<String> mtlList;
+	private HashMap<String, Material> mtlMap;
+
+	// Triangles of obj models, null for iqe models
+	private IndexedMesh indexedMesh;
+
+	// Skeleton of iqe models, empty for obj models
+	private int[] jointParents;
+	private float[] jointPQs;
+	private SkinData skinData;
+
+	// Files the model was compiled from
+	private ArrayList<String> sourceList;
+
+	/**
+	 * Get a model with its textures. The model is taken from the asset loader
+	 * if it was read in advance. Must be called in the OpenGL thread
+	 * 
+	 * @param modelName
+	 *            obj or iqe file
+	 * @return
+	 */
+	public static CompiledModel get(String modelName)
+	{
+		return AssetLoader.getDefault().getModel(modelName);
+	}
+
+	/**
+	 * Read a model, from its compiled file if it is up to date, or else by
+	 * parsing the source and compiling it for the next time. Materials only
+	 * have the names of their textures, so that it can be called in any
+	 * thread
+	 * 
+	 * @param modelName
+	 *            obj or iqe file
+	 * @return
+	 */
+	public static CompiledModel load(String modelName)
+	{
+		String compiledName = getCompiledName(modelName);
+
+		if (new File(compiledName).exists())
+		{
+			try
+			{
+				LoadScreen.log("Loading compiled model from " + compiledName);
+
+				CompiledModel model = ModelFile.load(compiledName);
+
+				if (model != null)
+				{
+					return model;
+				}
+
+				LoadScreen.log("Compiled model " + compiledName
+						+ " is out of date");
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+			}
+		}
+
+		CompiledModel model;
+
+		if (modelName.endsWith(".iqe"))
+		{
+			model = IQELoader.create(modelName).compile();
+		}
+		else
+		{
+			model = ObjLoader.create(modelName).compile();
+		}
+
+		try
+		{
+			LoadScreen.log("Compiling model to " + compiledName);
+			ModelFile.save(compiledName, model);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+
+		return model;
+	}
+
+	/**
+	 * Get the compiled file of a source file
+	 * 
+	 * @param modelName
+	 * @return
+	 */
+	public static String getCompiledName(String modelName)
+	{
+		return modelName + COMPILED_EXTENSION;
+	}
+
+	/**
+	 * Create a model from vertex arrays
+	 * 
+	 * @param vers
+	 * @param texCoords
+	 * @param nors
+	 * @param meshList
+	 * @param mtlList
+	 *            material of each mesh
+	 * @param mtlMap
+	 * @param sourceList
+	 *            model file followed by the files it refers to
+	 */
+	public CompiledModel(float[] vers, float[] texCoords, float[] nors,
+			ArrayList<IntArray> meshList, ArrayList<String> mtlList,
+			HashMap<String, Material> mtlMap, ArrayList<String> sourceList)
+	{
+		this.vers = vers;
+		this.texCoords = texCoords;
+		this.nors = nors;
+
+		this.meshList = meshList;
+
+		this.mtlList = mtlList;
+		this.mtlMap = mtlMap;
+
+		this.sourceList = sourceList;
+
+		jointParents = new int[0];
+		jointPQs = new float[0];
+	}
+
+	/**
+	 * Create a static model
+	 * 
+	 * @param indexedMesh
+	 * @param mtlMap
+	 * @param sourceList
+	 *            model file followed by the files it refers to
+	 */
+	public CompiledModel(IndexedMesh indexedMesh,
+			HashMap<String, Material> mtlMap, ArrayList<String> sourceList)
+	{
+		this(new float[0], new float[0], new float[0],
+				new ArrayList<IntArray>(), new ArrayList<String>(), mtlMap,
+				sourceList);
+
+		this.indexedMesh = indexedMesh;
+	}
+
+	/**
+	 * Set the skeleton and bone weights
+	 * 
+	 * @param jointParents
+	 * @param jointPQs
+	 *            position and rotation of each joint, seven floats each
+	 * @param skinData
+	 */
+	public void setSkeleton(int[] jointParents, float[] jointPQs,
+			SkinData skinData)
+	{
+		this.jointParents = jointParents;
+		this.jointPQs = jointPQs;
+		this.skinData = skinData;
+	}
+
+	/**
+	 * Get the positions of the vertices, three floats each
+	 * 
+	 * @return
+	 */
+	public float[] getVerArray()
+	{
+		return vers;
+	}
+
+	/**
+	 * Get the UV coordinates, two floats each
+	 * 
+	 * @return
+	 */
+	public float[] getTexArray()
+	{
+		return texCoords;
+	}
+
+	/**
+	 * Get the normals, three floats each
+	 * 
+	 * @return
+	 */
+	public float[] getNorArray()
+	{
+		return nors;
+	}
+
+	/**
+	 * Get the faces of each mesh, see ObjLoader.getMeshList and
+	 * IQELoader.getMeshList
+	 * 
+	 * @return
+	 */
+	public ArrayList<IntArray> getMeshList()
+	{
+		return meshList;
+	}
+
+	public ArrayList<String> getMtlList()
+	{
+		return mtlList;
+	}
+
+	public HashMap<String, Material> getMtlMap()
+	{
+		return mtlMap;
+	}
+
+	/**
+	 * Get the image files of the textures of the materials, each once
+	 * 
+	 * @return
+	 */
+	public ArrayList<String> getTextureNames()
+	{
+		ArrayList<String> textureNames = new ArrayList<String>();
+
+		for (Material material : mtlMap.values())
+		{
+			String textureName = material.getTextureName();
+
+			if (textureName != null && !textureNames.contains(textureName))
+			{
+				textureNames.add(textureName);
+			}
+		}
+
+		return textureNames;
+	}
+
+	/**
+	 * Give a loaded texture to the materials using its image file
+	 * 
+	 * @param textureName
+	 * @param texture
+	 */
+	public void setTexture(String textureName, Texture texture)
+	{
+		for (Material material : mtlMap.values())
+		{
+			if (textureName.equals(material.getTextureName()))
+			{
+				material.setTexture(texture, textureName);
+			}
+		}
+	}
+
+	public int[] getJointParentArray()
+	{
+		return jointParents;
+	}
+
+	public float[] getJointPQArray()
+	{
+		return jointPQs;
+	}
+
+	/**
+	 * Get the bone weights of the vertices
+	 * 
+	 * @return null if the model has no skeleton
+	 */
+	public SkinData getSkinData()
+	{
+		return skinData;
+	}
+
+	/**
+	 * Get the triangles of a static model
+	 * 
+	 * @return null for skinned models
+	 */
+	public IndexedMesh getIndexedMesh()
+	{
+		return indexedMesh;
+	}
+
+	public ArrayList<String> getSourceList()
+	{
+		return sourceList;
+	}
+}
@@ -0,0 +1,80 @@
+package edu.columbia.quidditch.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of floats, which stores the values without boxing them
+ */
+public class FloatArray
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private float[] data;
+	private int size;
+
+	public FloatArray()
+	{
+		this(INITIAL_CAPACITY);
+	}
+
+	public FloatArray(int capacity)
+	{
+		data = new float[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Make room for more values, doubling the capacity so that adding is
+	 * cheap on average
+	 * 
+	 * @param count
+	 *            number of values to be added
+	 */
+	private void ensureCapacity(int count)
+	{
+		if (size + count > data.length)
+		{
+			data = Arrays.copyOf(data, Math.max(data.length * 2, size + count));
+		}
+	}
+
+	public void add(float value)
+	{
+		ensureCapacity(1);
+		data[size++] = value;
+	}
+
+	public void add(float x, float y)
+	{
+		ensureCapacity(2);
+		data[size++] = x;
+		data[size++] = y;
+	}
+
+	public void add(float x, float y, float z)
+	{
+		ensureCapacity(3);
+		data[size++] = x;
+		data[size++] = y;
+		data[size++] = z;
+	}
+
+	public float get(int index)
+	{
+		return data[index];
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Copy the values into an array of the exact size
+	 * 
+	 * @return
+	 */
+	public float[] toArray()
+	{
+		return Arrays.copyOf(data, size);
+	}
+}
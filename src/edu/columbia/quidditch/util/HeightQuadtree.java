@@ -0,0 +1,341 @@
+package edu.columbia.quidditch.util;
+
+/**
+ * A quadtree of the lowest and highest heights over blocks of cells of a
+ * height field, used to find where a ray hits the surface without testing
+ * every cell. Coordinates are in cells: x is the column, z is the row and y is
+ * the height. The height field repeats in both directions, and cell (row, col)
+ * is made of the triangles (row, col), (row + 1, col), (row, col + 1) and
+ * (row, col + 1), (row + 1, col), (row + 1, col + 1)
+ */
+public class HeightQuadtree
+{
+	public static final float NO_HIT = -1;
+
+	private Heightfield heightMap;
+	private int rows, cols;
+
+	// Level 0 has one node for each cell, and each level halves the size
+	private int levelCount;
+	private int[] levelRows, levelCols;
+	private float[][] mins, maxs;
+
+	public HeightQuadtree(Heightfield heightMap)
+	{
+		this.heightMap = heightMap;
+
+		rows = heightMap.getRows();
+		cols = heightMap.getCols();
+
+		levelCount = 1;
+
+		while (((rows - 1) >> (levelCount - 1)) > 0
+				|| ((cols - 1) >> (levelCount - 1)) > 0)
+		{
+			++levelCount;
+		}
+
+		levelRows = new int[levelCount];
+		levelCols = new int[levelCount];
+		mins = new float[levelCount][];
+		maxs = new float[levelCount][];
+
+		for (int level = 0; level < levelCount; ++level)
+		{
+			levelRows[level] = (rows + (1 << level) - 1) >> level;
+			levelCols[level] = (cols + (1 << level) - 1) >> level;
+
+			mins[level] = new float[levelRows[level] * levelCols[level]];
+			maxs[level] = new float[levelRows[level] * levelCols[level]];
+		}
+
+		update();
+	}
+
+	/**
+	 * Rebuild the tree after the heights are changed
+	 */
+	public void update()
+	{
+		float[] min = mins[0], max = maxs[0];
+
+		for (int row = 0; row < rows; ++row)
+		{
+			for (int col = 0; col < cols; ++col)
+			{
+				float h00 = heightMap.get(row, col);
+				float h01 = heightMap.getWrapped(row, col + 1);
+				float h10 = heightMap.getWrapped(row + 1, col);
+				float h11 = heightMap.getWrapped(row + 1, col + 1);
+
+				min[row * cols + col] = Math.min(Math.min(h00, h01),
+						Math.min(h10, h11));
+				max[row * cols + col] = Math.max(Math.max(h00, h01),
+						Math.max(h10, h11));
+			}
+		}
+
+		for (int level = 1; level < levelCount; ++level)
+		{
+			int childRows = levelRows[level - 1];
+			int childCols = levelCols[level - 1];
+
+			float[] childMin = mins[level - 1], childMax = maxs[level - 1];
+			min = mins[level];
+			max = maxs[level];
+
+			for (int row = 0; row < levelRows[level]; ++row)
+			{
+				for (int col = 0; col < levelCols[level]; ++col)
+				{
+					float low = Float.MAX_VALUE, high = -Float.MAX_VALUE;
+
+					for (int r = row * 2; r < Math.min(row * 2 + 2, childRows); ++r)
+					{
+						for (int c = col * 2; c < Math.min(col * 2 + 2,
+								childCols); ++c)
+						{
+							low = Math.min(low, childMin[r * childCols + c]);
+							high = Math.max(high, childMax[r * childCols + c]);
+						}
+					}
+
+					min[row * levelCols[level] + col] = low;
+					max[row * levelCols[level] + col] = high;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Find the first point where a ray hits the surface
+	 * 
+	 * @param oX
+	 * @param oY
+	 * @param oZ
+	 * @param dX
+	 * @param dY
+	 * @param dZ
+	 * @param maxT
+	 *            the ray is o + t * d for t in [0, maxT]
+	 * @return t of the hit, or NO_HIT
+	 */
+	public float intersectRay(float oX, float oY, float oZ, float dX,
+			float dY, float dZ, float maxT)
+	{
+		int top = levelCount - 1;
+		float low = mins[top][0], high = maxs[top][0];
+
+		// Clip the ray to the range of heights first
+		float tMin = 0, tMax = maxT;
+
+		if (dY == 0)
+		{
+			if (oY < low || oY > high)
+			{
+				return NO_HIT;
+			}
+		}
+		else
+		{
+			float t1 = (low - oY) / dY, t2 = (high - oY) / dY;
+
+			tMin = Math.max(tMin, Math.min(t1, t2));
+			tMax = Math.min(tMax, Math.max(t1, t2));
+		}
+
+		if (tMin > tMax)
+		{
+			return NO_HIT;
+		}
+
+		// Test every repetition of the map which the clipped ray passes
+		float x0 = oX + dX * tMin, x1 = oX + dX * tMax;
+		float z0 = oZ + dZ * tMin, z1 = oZ + dZ * tMax;
+
+		int firstTileX = (int) Math.floor(Math.min(x0, x1) / cols);
+		int lastTileX = (int) Math.floor(Math.max(x0, x1) / cols);
+		int firstTileZ = (int) Math.floor(Math.min(z0, z1) / rows);
+		int lastTileZ = (int) Math.floor(Math.max(z0, z1) / rows);
+
+		float best = Float.MAX_VALUE;
+
+		for (int tileZ = firstTileZ; tileZ <= lastTileZ; ++tileZ)
+		{
+			for (int tileX = firstTileX; tileX <= lastTileX; ++tileX)
+			{
+				best = intersectNode(top, 0, 0, oX - tileX * cols, oY, oZ
+						- tileZ * rows, dX, dY, dZ, tMin, tMax, best);
+			}
+		}
+
+		return best == Float.MAX_VALUE ? NO_HIT : best;
+	}
+
+	/**
+	 * Find the first hit inside a node which is closer than the best one so
+	 * far
+	 * 
+	 * @param level
+	 * @param row
+	 * @param col
+	 * @param oX
+	 * @param oY
+	 * @param oZ
+	 * @param dX
+	 * @param dY
+	 * @param dZ
+	 * @param tMin
+	 * @param tMax
+	 * @param best
+	 * @return the closer one of the hit and best
+	 */
+	private float intersectNode(int level, int row, int col, float oX,
+			float oY, float oZ, float dX, float dY, float dZ, float tMin,
+			float tMax, float best)
+	{
+		int index = row * levelCols[level] + col;
+
+		float minX = col << level, maxX = Math.min((col + 1) << level, cols);
+		float minZ = row << level, maxZ = Math.min((row + 1) << level, rows);
+		float minY = mins[level][index], maxY = maxs[level][index];
+
+		float enter = tMin, exit = Math.min(tMax, best);
+
+		// Slab test against the bounding box of the node
+		if (dX == 0)
+		{
+			if (oX < minX || oX > maxX)
+			{
+				return best;
+			}
+		}
+		else
+		{
+			float t1 = (minX - oX) / dX, t2 = (maxX - oX) / dX;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+
+		if (dY == 0)
+		{
+			if (oY < minY || oY > maxY)
+			{
+				return best;
+			}
+		}
+		else
+		{
+			float t1 = (minY - oY) / dY, t2 = (maxY - oY) / dY;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+
+		if (dZ == 0)
+		{
+			if (oZ < minZ || oZ > maxZ)
+			{
+				return best;
+			}
+		}
+		else
+		{
+			float t1 = (minZ - oZ) / dZ, t2 = (maxZ - oZ) / dZ;
+
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+
+		if (enter > exit)
+		{
+			return best;
+		}
+
+		if (level == 0)
+		{
+			float h00 = heightMap.get(row, col);
+			float h01 = heightMap.getWrapped(row, col + 1);
+			float h10 = heightMap.getWrapped(row + 1, col);
+			float h11 = heightMap.getWrapped(row + 1, col + 1);
+
+			best = intersectTriangle(minX, h00, minZ, minX, h10, minZ + 1,
+					minX + 1, h01, minZ, oX, oY, oZ, dX, dY, dZ, tMin, tMax, best);
+			best = intersectTriangle(minX + 1, h01, minZ, minX, h10,
+					minZ + 1, minX + 1, h11, minZ + 1, oX, oY, oZ, dX, dY, dZ,
+					tMin, tMax, best);
+
+			return best;
+		}
+
+		int childLevel = level - 1;
+
+		for (int r = row * 2; r < Math.min(row * 2 + 2, levelRows[childLevel]); ++r)
+		{
+			for (int c = col * 2; c < Math.min(col * 2 + 2,
+					levelCols[childLevel]); ++c)
+			{
+				best = intersectNode(childLevel, r, c, oX, oY, oZ, dX, dY, dZ,
+						tMin, tMax, best);
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * Moller-Trumbore ray-triangle intersection
+	 * 
+	 * @return the closer one of the hit and best
+	 */
+	private static float intersectTriangle(float aX, float aY, float aZ,
+			float bX, float bY, float bZ, float cX, float cY, float cZ,
+			float oX, float oY, float oZ, float dX, float dY, float dZ,
+			float tMin, float tMax, float best)
+	{
+		float e1X = bX - aX, e1Y = bY - aY, e1Z = bZ - aZ;
+		float e2X = cX - aX, e2Y = cY - aY, e2Z = cZ - aZ;
+
+		float pX = dY * e2Z - dZ * e2Y;
+		float pY = dZ * e2X - dX * e2Z;
+		float pZ = dX * e2Y - dY * e2X;
+
+		float det = e1X * pX + e1Y * pY + e1Z * pZ;
+
+		if (Math.abs(det) < 1e-12f)
+		{
+			return best;
+		}
+
+		float inv = 1.0f / det;
+
+		float sX = oX - aX, sY = oY - aY, sZ = oZ - aZ;
+		float u = (sX * pX + sY * pY + sZ * pZ) * inv;
+
+		if (u < 0 || u > 1)
+		{
+			return best;
+		}
+
+		float qX = sY * e1Z - sZ * e1Y;
+		float qY = sZ * e1X - sX * e1Z;
+		float qZ = sX * e1Y - sY * e1X;
+
+		float v = (dX * qX + dY * qY + dZ * qZ) * inv;
+
+		if (v < 0 || u + v > 1)
+		{
+			return best;
+		}
+
+		float t = (e2X * qX + e2Y * qY + e2Z * qZ) * inv;
+
+		if (t >= tMin && t <= tMax && t < best)
+		{
+			return t;
+		}
+
+		return best;
+	}
+}
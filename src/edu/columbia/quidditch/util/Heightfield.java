@@ -0,0 +1,214 @@
+package edu.columbia.quidditch.util;
+
+import java.nio.FloatBuffer;
+
+/**
+ * A two-dimensional map of floats stored row by row in a single array. Rows
+ * and columns out of the map wrap around to the opposite edge, so the map can
+ * be repeated seamlessly
+ */
+public class Heightfield
+{
+	private int rows, cols;
+	private float[] data;
+
+	public Heightfield(int rows, int cols)
+	{
+		this(rows, cols, new float[rows * cols]);
+	}
+
+	/**
+	 * Wrap an existing array stored row by row
+	 * 
+	 * @param rows
+	 * @param cols
+	 * @param data
+	 */
+	public Heightfield(int rows, int cols, float[] data)
+	{
+		if (data.length != rows * cols)
+		{
+			throw new IllegalArgumentException("Expected " + rows * cols
+					+ " elements but got " + data.length);
+		}
+
+		this.rows = rows;
+		this.cols = cols;
+		this.data = data;
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+
+	public int getCols()
+	{
+		return cols;
+	}
+
+	/**
+	 * Get the backing array, element (row, col) is at row * cols + col
+	 * 
+	 * @return
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	/**
+	 * Get the index of the first element of a row in the backing array
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int getRowOffset(int row)
+	{
+		return row * cols;
+	}
+
+	public float get(int row, int col)
+	{
+		return data[row * cols + col];
+	}
+
+	public void set(int row, int col, float value)
+	{
+		data[row * cols + col] = value;
+	}
+
+	/**
+	 * Get an element, moving the location into the map if it is out of the
+	 * map
+	 * 
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	public float getWrapped(int row, int col)
+	{
+		return data[wrapRow(row) * cols + wrapCol(col)];
+	}
+
+	/**
+	 * Get the value at a fractional location by bilinear interpolation of
+	 * the four surrounding elements
+	 * 
+	 * @param row
+	 * @param col
+	 * @return
+	 */
+	public float getInterpolated(float row, float col)
+	{
+		float floorRow = (float) Math.floor(row);
+		float floorCol = (float) Math.floor(col);
+
+		int row0 = wrapRow((int) floorRow), row1 = row0 + 1;
+		int col0 = wrapCol((int) floorCol), col1 = col0 + 1;
+
+		if (row1 == rows)
+		{
+			row1 = 0;
+		}
+
+		if (col1 == cols)
+		{
+			col1 = 0;
+		}
+
+		float pRow = row - floorRow, pCol = col - floorCol;
+
+		float h00 = data[row0 * cols + col0];
+		float h01 = data[row0 * cols + col1];
+		float h10 = data[row1 * cols + col0];
+		float h11 = data[row1 * cols + col1];
+
+		return h00 * (1.0f - pCol) * (1.0f - pRow) + h11 * pCol * pRow + h01
+				* pCol * (1.0f - pRow) + h10 * pRow * (1.0f - pCol);
+	}
+
+	/**
+	 * Map a row to the corresponding one inside the map
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public int wrapRow(int row)
+	{
+		row %= rows;
+
+		if (row < 0)
+		{
+			row += rows;
+		}
+
+		return row;
+	}
+
+	/**
+	 * Map a column to the corresponding one inside the map
+	 * 
+	 * @param col
+	 * @return
+	 */
+	public int wrapCol(int col)
+	{
+		col %= cols;
+
+		if (col < 0)
+		{
+			col += cols;
+		}
+
+		return col;
+	}
+
+	/**
+	 * Get a view of a row sharing the backing array
+	 * 
+	 * @param row
+	 * @return
+	 */
+	public FloatBuffer getRowView(int row)
+	{
+		return FloatBuffer.wrap(data, row * cols, cols).slice();
+	}
+
+	/**
+	 * Check whether another map has the same size
+	 * 
+	 * @param other
+	 * @return
+	 */
+	public boolean sameSize(Heightfield other)
+	{
+		return rows == other.rows && cols == other.cols;
+	}
+
+	public Heightfield copy()
+	{
+		return new Heightfield(rows, cols, data.clone());
+	}
+
+	/**
+	 * Put all elements to a buffer in one bulk copy, e.g. a direct buffer to
+	 * be uploaded to the graphics memory
+	 * 
+	 * @param buffer
+	 */
+	public void store(FloatBuffer buffer)
+	{
+		buffer.put(data);
+	}
+
+	/**
+	 * Get all elements from a buffer in one bulk copy
+	 * 
+	 * @param buffer
+	 */
+	public void load(FloatBuffer buffer)
+	{
+		buffer.get(data);
+	}
+}
@@ -1,342 +1,368 @@
-package edu.columbia.quidditch.util;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.HashMap;
-
-import org.lwjgl.util.vector.Vector3f;
-
-import edu.columbia.quidditch.basic.Material;
-import edu.columbia.quidditch.basic.Texture;
-import edu.columbia.quidditch.render.screen.LoadScreen;
-
-/**
- * Load iqe and mtl file
- * 
- * @author Yuqing Guan
- * 
- */
-public class IQELoader
-{
-	private ArrayList<float[]> jointPQList;
-	private ArrayList<Integer> jointParentList;
-
-	private ArrayList<HashMap<Integer, Float>> weightList;
-
-	private ArrayList<Vector3f> verList, texList, norList;
-	private ArrayList<ArrayList<ArrayList<Integer>>> meshList;
-
-	private ArrayList<String> mtlList;
-	private HashMap<String, Material> mtlMap;
-
-	private HashMap<String, Texture> textureMap;
-
-	public static IQELoader create(String iqeName)
-	{
-		try
-		{
-			LoadScreen.log("Loading model from " + iqeName);
-			return new IQELoader(iqeName);
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-			System.exit(1);
-			return null;
-		}
-	}
-
-	/**
-	 * Load iqe file
-	 * 
-	 * @param iqeName
-	 *            file name
-	 * @throws IOException
-	 */
-	public IQELoader(String iqeName) throws IOException
-	{
-		File iqeFile = new File(iqeName);
-
-		jointParentList = new ArrayList<Integer>();
-		jointPQList = new ArrayList<float[]>();
-
-		verList = new ArrayList<Vector3f>();
-		texList = new ArrayList<Vector3f>();
-		norList = new ArrayList<Vector3f>();
-
-		meshList = new ArrayList<ArrayList<ArrayList<Integer>>>();
-
-		mtlList = new ArrayList<String>();
-		mtlMap = new HashMap<String, Material>();
-
-		weightList = new ArrayList<HashMap<Integer, Float>>();
-
-		ArrayList<ArrayList<Integer>> mesh = new ArrayList<ArrayList<Integer>>();
-		BufferedReader reader = new BufferedReader(new InputStreamReader(
-				new FileInputStream(iqeFile), "utf-8"));
-		String line, nextLine;
-
-		String mtlName = iqeName.substring(0, iqeName.length() - 3) + "mtl";
-		loadMtl(mtlName);
-
-		int offset = 0;
-
-		// Loop until the end of file
-		while ((line = reader.readLine()) != null)
-		{
-			line = line.trim();
-
-			// Split the line
-			String[] array = line.split("[ ]+");
-
-			if (array.length < 1)
-			{
-				continue;
-			}
-
-			if (array[0].equals("joint")) // joint
-			{
-				int parent = Integer.parseInt(array[2]);
-				jointParentList.add(parent);
-
-				nextLine = reader.readLine().trim();
-				array = nextLine.split("[ ]+");
-
-				float[] pq = new float[7];
-				jointPQList.add(pq);
-
-				for (int i = 0; i < 7; ++i)
-				{
-					pq[i] = Float.parseFloat(array[i + 1]);
-				}
-			}
-			else if (array[0].equals("mesh")) // mesh
-			{
-				if (!mesh.isEmpty())
-				{
-					meshList.add(mesh);
-				}
-
-				mesh = new ArrayList<ArrayList<Integer>>();
-
-				offset = verList.size();
-			}
-			else if (array[0].equals("material")) // material for current mesh
-			{
-				String mtl = exceptFirst(line);
-				mtl = mtl.substring(1);
-				mtl = mtl.substring(0, mtl.length() - 1);
-
-				mtlList.add(mtl);
-			}
-			else if (array[0].equals("vp")) // vertices
-			{
-				float x = Float.parseFloat(array[1]);
-				float y = Float.parseFloat(array[2]);
-				float z = Float.parseFloat(array[3]);
-
-				Vector3f ver = new Vector3f(x, y, z);
-				verList.add(ver);
-			}
-			else if (array[0].equals("vt")) // UV coordinates
-			{
-				float x = Float.parseFloat(array[1]);
-				float y = Float.parseFloat(array[2]);
-				float z = 0.0f;
-
-				Vector3f tex = new Vector3f(x, y, z);
-				texList.add(tex);
-			}
-			else if (array[0].equals("vn")) // vertex normals
-			{
-				float x = Float.parseFloat(array[1]);
-				float y = Float.parseFloat(array[2]);
-				float z = Float.parseFloat(array[3]);
-
-				Vector3f nor = new Vector3f(x, y, z);
-				norList.add(nor);
-			}
-			else if (array[0].equals("vb")) // bone weights
-			{
-				HashMap<Integer, Float> weightMap = new HashMap<Integer, Float>();
-				weightList.add(weightMap);
-
-				for (int i = 1; i < array.length; i += 2)
-				{
-					weightMap.put(Integer.parseInt(array[i]),
-							Float.parseFloat(array[i + 1]));
-				}
-			}
-			else if (array[0].equals("fm")) // face
-			{
-				ArrayList<Integer> face = new ArrayList<Integer>();
-
-				for (int i = 1; i < array.length; ++i)
-				{
-					face.add(Integer.parseInt(array[i]) + offset);
-				}
-
-				mesh.add(face);
-			}
-		}
-
-		if (!mesh.isEmpty())
-		{
-			meshList.add(mesh);
-		}
-
-		reader.close();
-	}
-
-	/**
-	 * Load mtl file
-	 * 
-	 * @param mtlName
-	 *            file name
-	 * @throws IOException
-	 */
-	private void loadMtl(String mtlName) throws IOException
-	{
-		File mtlFile = new File(mtlName);
-		String texturePath = mtlFile.getParent() + File.separator + "textures"
-				+ File.separator;
-
-		BufferedReader reader = new BufferedReader(new InputStreamReader(
-				new FileInputStream(mtlFile), "utf-8"));
-		String line;
-
-		Material material = null;
-
-		textureMap = new HashMap<String, Texture>();
-
-		// Loop until the end of file
-		while ((line = reader.readLine()) != null)
-		{
-			line = line.trim();
-
-			// Split the line
-			String[] array = line.split("[ ]+");
-
-			if (array.length < 1)
-			{
-				continue;
-			}
-
-			if (array[0].equals("newmtl")) // new material
-			{
-				material = new Material();
-				mtlMap.put(exceptFirst(line), material);
-			}
-			else if (array[0].equals("map_Kd")) // image file
-			{
-				String textureName = texturePath + exceptFirst(line);
-				Texture texture;
-
-				if (textureMap.containsKey(textureName))
-				{
-					texture = textureMap.get(textureName);
-				}
-				else
-				{
-					texture = Texture.createFromFile(textureName);
-					textureMap.put(textureName, texture);
-				}
-
-				material.setTexture(texture);
-			}
-			else if (array[0].equals("Kd")) // diffuse color
-			{
-				float r = Float.parseFloat(array[1]);
-				float g = Float.parseFloat(array[2]);
-				float b = Float.parseFloat(array[3]);
-
-				material.setDiffuse(r, g, b);
-			}
-			else if (array[0].equals("Ka")) // ambient color
-			{
-				float r = Float.parseFloat(array[1]);
-				float g = Float.parseFloat(array[2]);
-				float b = Float.parseFloat(array[3]);
-
-				material.setAmbient(r, g, b);
-			}
-			else if (array[0].equals("Ks")) // specular color
-			{
-				float r = Float.parseFloat(array[1]);
-				float g = Float.parseFloat(array[2]);
-				float b = Float.parseFloat(array[3]);
-
-				material.setSpecular(r, g, b);
-			}
-			else if (array[0].equals("d") || array[0].equals("Tr")) // transparency
-			{
-				float t = Float.parseFloat(array[1]);
-
-				material.setTransparency(t);
-			}
-		}
-
-		reader.close();
-	}
-
-	/**
-	 * Get the string after the first continuous spaces in order to parse file
-	 * names with spaces
-	 * 
-	 * @param line
-	 * @return
-	 */
-	private String exceptFirst(String line)
-	{
-		return line.substring(line.indexOf(" ") + 1);
-	}
-
-	public ArrayList<Vector3f> getVerList()
-	{
-		return verList;
-	}
-
-	public ArrayList<Vector3f> getTexList()
-	{
-		return texList;
-	}
-
-	public ArrayList<Vector3f> getNorList()
-	{
-		return norList;
-	}
-
-	public ArrayList<ArrayList<ArrayList<Integer>>> getMeshList()
-	{
-		return meshList;
-	}
-
-	public ArrayList<String> getMtlList()
-	{
-		return mtlList;
-	}
-
-	public HashMap<String, Material> getMtlMap()
-	{
-		return mtlMap;
-	}
-
-	public ArrayList<float[]> getJointPQList()
-	{
-		return jointPQList;
-	}
-
-	public ArrayList<Integer> getJointParentList()
-	{
-		return jointParentList;
-	}
-
-	public ArrayList<HashMap<Integer, Float>> getWeightList()
-	{
-		return weightList;
-	}
-}
+package edu.columbia.quidditch.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import edu.columbia.quidditch.basic.Material;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+
+/**
+ * Load iqe and mtl file
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public class IQELoader
+{
+	// Position (x, y, z) and rotation (x, y, z, w) of each joint
+	private FloatArray jointPQArray;
+	private IntArray jointParentArray;
+
+	private SkinData skinData;
+
+	// Positions and normals have three floats each, and UV coordinates two
+	private FloatArray verArray, texArray, norArray;
+
+	// Faces of each mesh, see getMeshList
+	private ArrayList<IntArray> meshList;
+
+	private ArrayList<String> mtlList;
+	private HashMap<String, Material> mtlMap;
+
+	// The model file followed by the files it refers to
+	private ArrayList<String> sourceList;
+
+	public static IQELoader create(String iqeName)
+	{
+		try
+		{
+			LoadScreen.log("Loading model from " + iqeName);
+			return new IQELoader(iqeName);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+			return null;
+		}
+	}
+
+	/**
+	 * Load iqe file
+	 * 
+	 * @param iqeName
+	 *            file name
+	 * @throws IOException
+	 */
+	public IQELoader(String iqeName) throws IOException
+	{
+		File iqeFile = new File(iqeName);
+
+		jointParentArray = new IntArray();
+		jointPQArray = new FloatArray();
+
+		verArray = new FloatArray();
+		texArray = new FloatArray();
+		norArray = new FloatArray();
+
+		meshList = new ArrayList<IntArray>();
+
+		mtlList = new ArrayList<String>();
+		mtlMap = new HashMap<String, Material>();
+
+		sourceList = new ArrayList<String>();
+		sourceList.add(iqeName);
+
+		skinData = new SkinData();
+
+		// Joints and weights of the current vertex
+		int[] vertexJoints = new int[SkinData.MAX_INFLUENCES];
+		float[] vertexWeights = new float[SkinData.MAX_INFLUENCES];
+
+		IntArray mesh = new IntArray();
+		Tokenizer tokenizer = new Tokenizer(iqeFile);
+
+		String mtlName = iqeName.substring(0, iqeName.length() - 3) + "mtl";
+		loadMtl(mtlName);
+
+		int offset = 0;
+
+		// Loop until the end of file
+		while (tokenizer.nextLine())
+		{
+			if (!tokenizer.nextToken())
+			{
+				continue;
+			}
+
+			if (tokenizer.isToken("joint")) // joint
+			{
+				tokenizer.nextToken(); // name
+
+				int parent = tokenizer.nextInt();
+				jointParentArray.add(parent);
+
+				// The pose is on the next line, after "pq"
+				tokenizer.nextLine();
+				tokenizer.nextToken();
+
+				for (int i = 0; i < 7; ++i)
+				{
+					jointPQArray.add(tokenizer.nextFloat());
+				}
+			}
+			else if (tokenizer.isToken("mesh")) // mesh
+			{
+				if (mesh.size() > 0)
+				{
+					meshList.add(mesh);
+				}
+
+				mesh = new IntArray();
+
+				offset = verArray.size() / 3;
+			}
+			else if (tokenizer.isToken("material")) // material for current mesh
+			{
+				String mtl = tokenizer.getRest();
+				mtl = mtl.substring(1);
+				mtl = mtl.substring(0, mtl.length() - 1);
+
+				mtlList.add(mtl);
+			}
+			else if (tokenizer.isToken("vp")) // vertices
+			{
+				float x = tokenizer.nextFloat();
+				float y = tokenizer.nextFloat();
+				float z = tokenizer.nextFloat();
+
+				verArray.add(x, y, z);
+			}
+			else if (tokenizer.isToken("vt")) // UV coordinates
+			{
+				float x = tokenizer.nextFloat();
+				float y = tokenizer.nextFloat();
+
+				texArray.add(x, y);
+			}
+			else if (tokenizer.isToken("vn")) // vertex normals
+			{
+				float x = tokenizer.nextFloat();
+				float y = tokenizer.nextFloat();
+				float z = tokenizer.nextFloat();
+
+				norArray.add(x, y, z);
+			}
+			else if (tokenizer.isToken("vb")) // bone weights
+			{
+				int count = 0;
+
+				while (tokenizer.nextToken())
+				{
+					if (count == vertexJoints.length)
+					{
+						vertexJoints = Arrays.copyOf(vertexJoints, count * 2);
+						vertexWeights = Arrays.copyOf(vertexWeights, count * 2);
+					}
+
+					vertexJoints[count] = tokenizer.readInt();
+					vertexWeights[count] = tokenizer.nextFloat();
+					++count;
+				}
+
+				skinData.addVertex(vertexJoints, vertexWeights, count);
+			}
+			else if (tokenizer.isToken("fm")) // face
+			{
+				// The number of points goes before them
+				int countIdx = mesh.size();
+				mesh.add(0);
+
+				int count = 0;
+
+				while (tokenizer.nextToken())
+				{
+					mesh.add(tokenizer.readInt() + offset);
+					++count;
+				}
+
+				mesh.set(countIdx, count);
+			}
+		}
+
+		if (mesh.size() > 0)
+		{
+			meshList.add(mesh);
+		}
+	}
+
+	/**
+	 * Load mtl file
+	 * 
+	 * @param mtlName
+	 *            file name
+	 * @throws IOException
+	 */
+	private void loadMtl(String mtlName) throws IOException
+	{
+		File mtlFile = new File(mtlName);
+		sourceList.add(mtlName);
+		String texturePath = mtlFile.getParent() + File.separator + "textures"
+				+ File.separator;
+
+		Tokenizer tokenizer = new Tokenizer(mtlFile);
+
+		Material material = null;
+
+		// Loop until the end of file
+		while (tokenizer.nextLine())
+		{
+			if (!tokenizer.nextToken())
+			{
+				continue;
+			}
+
+			if (tokenizer.isToken("newmtl")) // new material
+			{
+				material = new Material();
+				mtlMap.put(tokenizer.getRest(), material);
+			}
+			else if (tokenizer.isToken("map_Kd")) // image file
+			{
+				String textureName = texturePath + tokenizer.getRest();
+				material.setTextureName(textureName);
+			}
+			else if (tokenizer.isToken("Kd")) // diffuse color
+			{
+				float r = tokenizer.nextFloat();
+				float g = tokenizer.nextFloat();
+				float b = tokenizer.nextFloat();
+
+				material.setDiffuse(r, g, b);
+			}
+			else if (tokenizer.isToken("Ka")) // ambient color
+			{
+				float r = tokenizer.nextFloat();
+				float g = tokenizer.nextFloat();
+				float b = tokenizer.nextFloat();
+
+				material.setAmbient(r, g, b);
+			}
+			else if (tokenizer.isToken("Ks")) // specular color
+			{
+				float r = tokenizer.nextFloat();
+				float g = tokenizer.nextFloat();
+				float b = tokenizer.nextFloat();
+
+				material.setSpecular(r, g, b);
+			}
+			else if (tokenizer.isToken("d") || tokenizer.isToken("Tr")) // transparency
+			{
+				float t = tokenizer.nextFloat();
+
+				material.setTransparency(t);
+			}
+		}
+	}
+
+	/**
+	 * Put the loaded model into a compiled model
+	 * 
+	 * @return
+	 */
+	public CompiledModel compile()
+	{
+		CompiledModel model = new CompiledModel(verArray.toArray(),
+				texArray.toArray(), norArray.toArray(), meshList, mtlList,
+				mtlMap, sourceList);
+		model.setSkeleton(jointParentArray.toArray(), jointPQArray.toArray(),
+				skinData);
+
+		return model;
+	}
+
+	/**
+	 * Get the positions of the vertices, three floats each
+	 * 
+	 * @return
+	 */
+	public float[] getVerArray()
+	{
+		return verArray.toArray();
+	}
+
+	/**
+	 * Get the UV coordinates, two floats each
+	 * 
+	 * @return
+	 */
+	public float[] getTexArray()
+	{
+		return texArray.toArray();
+	}
+
+	/**
+	 * Get the normals, three floats each
+	 * 
+	 * @return
+	 */
+	public float[] getNorArray()
+	{
+		return norArray.toArray();
+	}
+
+	/**
+	 * Get the faces of each mesh. Each face is its number of points followed
+	 * by the index of each point
+	 * 
+	 * @return
+	 */
+	public ArrayList<IntArray> getMeshList()
+	{
+		return meshList;
+	}
+
+	public ArrayList<String> getMtlList()
+	{
+		return mtlList;
+	}
+
+	public HashMap<String, Material> getMtlMap()
+	{
+		return mtlMap;
+	}
+
+	/**
+	 * Get the position (x, y, z) and rotation (x, y, z, w) of the joints,
+	 * seven floats each
+	 * 
+	 * @return
+	 */
+	public float[] getJointPQArray()
+	{
+		return jointPQArray.toArray();
+	}
+
+	/**
+	 * Get the parent of each joint, -1 for roots
+	 * 
+	 * @return
+	 */
+	public int[] getJointParentArray()
+	{
+		return jointParentArray.toArray();
+	}
+
+	/**
+	 * Get the bone weights of the vertices
+	 * 
+	 * @return
+	 */
+	public SkinData getSkinData()
+	{
+		return skinData;
+	}
+}
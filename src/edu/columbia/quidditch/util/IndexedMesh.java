@@ -0,0 +1,92 @@
+package edu.columbia.quidditch.util;
+
+import java.util.ArrayList;
+
+/**
+ * Triangles sharing one array of interleaved vertices, with a range of
+ * indices for each material so that each material is one draw call
+ */
+public class IndexedMesh
+{
+	// Position, normal and UV coordinate
+	public static final int FLOATS_PER_VERTEX = 8;
+
+	public static final int NORMAL_OFFSET = 3;
+	public static final int TEX_OFFSET = 6;
+
+	private float[] vertices;
+	private int[] indices;
+
+	// Material, first index and index count of each range
+	private ArrayList<String> rangeMtlList;
+	private int[] rangeStarts, rangeCounts;
+
+	/**
+	 * Create a mesh
+	 * 
+	 * @param vertices
+	 *            FLOATS_PER_VERTEX floats each
+	 * @param indices
+	 *            three per triangle
+	 * @param rangeMtlList
+	 * @param rangeStarts
+	 * @param rangeCounts
+	 */
+	public IndexedMesh(float[] vertices, int[] indices,
+			ArrayList<String> rangeMtlList, int[] rangeStarts, int[] rangeCounts)
+	{
+		this.vertices = vertices;
+		this.indices = indices;
+
+		this.rangeMtlList = rangeMtlList;
+		this.rangeStarts = rangeStarts;
+		this.rangeCounts = rangeCounts;
+	}
+
+	public float[] getVertices()
+	{
+		return vertices;
+	}
+
+	public int getVertexCount()
+	{
+		return vertices.length / FLOATS_PER_VERTEX;
+	}
+
+	public int[] getIndices()
+	{
+		return indices;
+	}
+
+	public int getRangeCount()
+	{
+		return rangeMtlList.size();
+	}
+
+	public String getRangeMtl(int range)
+	{
+		return rangeMtlList.get(range);
+	}
+
+	/**
+	 * Get the first index of a range
+	 * 
+	 * @param range
+	 * @return
+	 */
+	public int getIndexStart(int range)
+	{
+		return rangeStarts[range];
+	}
+
+	/**
+	 * Get the number of indices of a range
+	 * 
+	 * @param range
+	 * @return
+	 */
+	public int getIndexCount(int range)
+	{
+		return rangeCounts[range];
+	}
+}
@@ -0,0 +1,96 @@
+package edu.columbia.quidditch.util;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of ints, which stores the values without boxing them
+ */
+public class IntArray
+{
+	private static final int INITIAL_CAPACITY = 16;
+
+	private int[] data;
+	private int size;
+
+	public IntArray()
+	{
+		this(INITIAL_CAPACITY);
+	}
+
+	public IntArray(int capacity)
+	{
+		data = new int[Math.max(capacity, 1)];
+	}
+
+	/**
+	 * Wrap values without copying them
+	 * 
+	 * @param values
+	 */
+	public IntArray(int[] values)
+	{
+		data = values;
+		size = values.length;
+	}
+
+	/**
+	 * Make room for more values, doubling the capacity so that adding is
+	 * cheap on average
+	 * 
+	 * @param count
+	 *            number of values to be added
+	 */
+	private void ensureCapacity(int count)
+	{
+		if (size + count > data.length)
+		{
+			data = Arrays.copyOf(data, Math.max(data.length * 2, size + count));
+		}
+	}
+
+	public void add(int value)
+	{
+		ensureCapacity(1);
+		data[size++] = value;
+	}
+
+	public void add(int x, int y)
+	{
+		ensureCapacity(2);
+		data[size++] = x;
+		data[size++] = y;
+	}
+
+	public void add(int x, int y, int z)
+	{
+		ensureCapacity(3);
+		data[size++] = x;
+		data[size++] = y;
+		data[size++] = z;
+	}
+
+	public int get(int index)
+	{
+		return data[index];
+	}
+
+	public void set(int index, int value)
+	{
+		data[index] = value;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Copy the values into an array of the exact size
+	 * 
+	 * @return
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(data, size);
+	}
+}
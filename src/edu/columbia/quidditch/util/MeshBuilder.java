@@ -0,0 +1,237 @@
+package edu.columbia.quidditch.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Turn the faces of an obj model into an indexed mesh. Polygons are split
+ * into fans of triangles, points with the same position, UV coordinate and
+ * normal become one vertex, and triangles are grouped by material
+ */
+public class MeshBuilder
+{
+	private static final int NO_INDEX = -1;
+
+	// Each of the three indices of a point must fit in 21 bits of a key
+	private static final int KEY_BITS = 21;
+	private static final int MAX_INDEX = (1 << KEY_BITS) - 2;
+
+	private static final long NO_KEY = -1;
+
+	private float[] vers, texCoords, nors;
+
+	private FloatArray vertices;
+
+	// Open addressing table from the key of a point to its vertex
+	private long[] keys;
+	private int[] values;
+	private int mask;
+
+	/**
+	 * Build an indexed mesh
+	 * 
+	 * @param vers
+	 *            positions, three floats each
+	 * @param texCoords
+	 *            UV coordinates, two floats each
+	 * @param nors
+	 *            normals, three floats each
+	 * @param meshList
+	 *            faces of each mesh as ObjLoader lays them out
+	 * @param mtlList
+	 *            material of each mesh
+	 * @return
+	 */
+	public static IndexedMesh build(float[] vers, float[] texCoords,
+			float[] nors, ArrayList<IntArray> meshList,
+			ArrayList<String> mtlList)
+	{
+		return new MeshBuilder(vers, texCoords, nors).build(meshList, mtlList);
+	}
+
+	private MeshBuilder(float[] vers, float[] texCoords, float[] nors)
+	{
+		this.vers = vers;
+		this.texCoords = texCoords;
+		this.nors = nors;
+
+		vertices = new FloatArray();
+	}
+
+	private IndexedMesh build(ArrayList<IntArray> meshList,
+			ArrayList<String> mtlList)
+	{
+		int pointCount = 0;
+
+		for (IntArray mesh : meshList)
+		{
+			pointCount += mesh.size() / 3;
+		}
+
+		// At most half full
+		int capacity = Integer.highestOneBit(Math.max(pointCount, 1) * 2) * 2;
+
+		keys = new long[capacity];
+		values = new int[capacity];
+		mask = capacity - 1;
+
+		Arrays.fill(keys, NO_KEY);
+
+		// Meshes of the same material share a range, in the order the
+		// materials first appear
+		ArrayList<String> rangeMtlList = new ArrayList<String>();
+		ArrayList<IntArray> rangeList = new ArrayList<IntArray>();
+
+		for (int i = 0; i < meshList.size(); ++i)
+		{
+			String mtlName = mtlList.get(i);
+			int range = rangeMtlList.indexOf(mtlName);
+
+			if (range < 0)
+			{
+				range = rangeMtlList.size();
+
+				rangeMtlList.add(mtlName);
+				rangeList.add(new IntArray());
+			}
+
+			addMesh(meshList.get(i), rangeList.get(range));
+		}
+
+		int[] rangeStarts = new int[rangeList.size()];
+		int[] rangeCounts = new int[rangeList.size()];
+
+		int indexCount = 0;
+
+		for (int i = 0; i < rangeList.size(); ++i)
+		{
+			rangeStarts[i] = indexCount;
+			rangeCounts[i] = rangeList.get(i).size();
+			indexCount += rangeCounts[i];
+		}
+
+		int[] indices = new int[indexCount];
+
+		for (int i = 0; i < rangeList.size(); ++i)
+		{
+			System.arraycopy(rangeList.get(i).toArray(), 0, indices,
+					rangeStarts[i], rangeCounts[i]);
+		}
+
+		return new IndexedMesh(vertices.toArray(), indices, rangeMtlList,
+				rangeStarts, rangeCounts);
+	}
+
+	/**
+	 * Triangulate the faces of a mesh into a range
+	 * 
+	 * @param mesh
+	 * @param range
+	 */
+	private void addMesh(IntArray mesh, IntArray range)
+	{
+		int pos = 0;
+
+		while (pos < mesh.size())
+		{
+			int faceSize = mesh.get(pos++);
+
+			// Lines and points have no area to draw
+			if (faceSize >= 3)
+			{
+				int first = getVertex(mesh, pos);
+				int last = getVertex(mesh, pos + 3);
+
+				// A fan around the first point, as GL_POLYGON draws a convex
+				// polygon
+				for (int j = 2; j < faceSize; ++j)
+				{
+					int next = getVertex(mesh, pos + j * 3);
+
+					range.add(first, last, next);
+					last = next;
+				}
+			}
+
+			pos += faceSize * 3;
+		}
+	}
+
+	/**
+	 * Find the vertex of a point, adding it if it is new
+	 * 
+	 * @param mesh
+	 * @param pos
+	 *            position of the point in the mesh
+	 * @return
+	 */
+	private int getVertex(IntArray mesh, int pos)
+	{
+		int verIdx = mesh.get(pos);
+		int texIdx = mesh.get(pos + 1);
+		int norIdx = mesh.get(pos + 2);
+
+		if (verIdx > MAX_INDEX || texIdx > MAX_INDEX || norIdx > MAX_INDEX)
+		{
+			throw new IllegalArgumentException("Too many vertices in mesh");
+		}
+
+		// Shift the missing index -1 to 0
+		long key = ((long) (verIdx + 1) << (2 * KEY_BITS))
+				| ((long) (texIdx + 1) << KEY_BITS) | (norIdx + 1);
+
+		int slot = hash(key) & mask;
+
+		while (keys[slot] != NO_KEY)
+		{
+			if (keys[slot] == key)
+			{
+				return values[slot];
+			}
+
+			slot = (slot + 1) & mask;
+		}
+
+		int vertex = vertices.size() / IndexedMesh.FLOATS_PER_VERTEX;
+
+		keys[slot] = key;
+		values[slot] = vertex;
+
+		vertices.add(vers[verIdx * 3], vers[verIdx * 3 + 1],
+				vers[verIdx * 3 + 2]);
+
+		// Points without a normal or UV coordinate get defaults
+		if (norIdx != NO_INDEX)
+		{
+			vertices.add(nors[norIdx * 3], nors[norIdx * 3 + 1],
+					nors[norIdx * 3 + 2]);
+		}
+		else
+		{
+			vertices.add(0, 0, 1);
+		}
+
+		if (texIdx != NO_INDEX)
+		{
+			vertices.add(texCoords[texIdx * 2], texCoords[texIdx * 2 + 1]);
+		}
+		else
+		{
+			vertices.add(0, 0);
+		}
+
+		return vertex;
+	}
+
+	/**
+	 * Mix the bits of a key, so that neighboring keys spread over the table
+	 * 
+	 * @param key
+	 * @return
+	 */
+	private static int hash(long key)
+	{
+		key *= 0x9e3779b97f4a7c15L;
+		return (int) (key ^ (key >>> 32));
+	}
+}
@@ -0,0 +1,408 @@
+package edu.columbia.quidditch.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Reorder an indexed mesh for the GPU. Triangles of each range are ordered
+ * so that their vertices are likely to be in the post-transform cache, after
+ * Tom Forsyth's linear-speed vertex cache optimisation, and then vertices
+ * are ordered by first use so that they are fetched sequentially
+ */
+public class MeshOptimizer
+{
+	// Size of the cache modeled when ordering triangles
+	private static final int CACHE_SIZE = 32;
+
+	// Size of the FIFO cache used to measure the miss ratio, as found on
+	// older hardware
+	public static final int MEASURE_CACHE_SIZE = 16;
+
+	private static final float CACHE_DECAY_POWER = 1.5f;
+	private static final float LAST_TRI_SCORE = 0.75f;
+	private static final float VALENCE_BOOST_SCALE = 2.0f;
+	private static final float VALENCE_BOOST_POWER = 0.5f;
+
+	private static final int NO_TRI = -1;
+	private static final int NOT_CACHED = -1;
+
+	/**
+	 * Reorder the triangles of each range and the vertices of a mesh
+	 * 
+	 * @param mesh
+	 * @return a mesh with the same triangles and ranges
+	 */
+	public static IndexedMesh optimize(IndexedMesh mesh)
+	{
+		int vertexCount = mesh.getVertexCount();
+		int[] indices = mesh.getIndices().clone();
+
+		MeshOptimizer optimizer = new MeshOptimizer(vertexCount);
+
+		for (int i = 0; i < mesh.getRangeCount(); ++i)
+		{
+			optimizer.reorderTriangles(indices, mesh.getIndexStart(i),
+					mesh.getIndexCount(i));
+		}
+
+		// Number the vertices in the order they are first used
+		int[] newVertices = new int[vertexCount];
+		Arrays.fill(newVertices, -1);
+
+		int next = 0;
+
+		for (int i = 0; i < indices.length; ++i)
+		{
+			if (newVertices[indices[i]] < 0)
+			{
+				newVertices[indices[i]] = next++;
+			}
+
+			indices[i] = newVertices[indices[i]];
+		}
+
+		float[] vertices = mesh.getVertices();
+		float[] newVertexArray = new float[vertices.length];
+
+		for (int i = 0; i < vertexCount; ++i)
+		{
+			// Unused vertices go to the end
+			if (newVertices[i] < 0)
+			{
+				newVertices[i] = next++;
+			}
+
+			System.arraycopy(vertices, i * IndexedMesh.FLOATS_PER_VERTEX,
+					newVertexArray, newVertices[i]
+							* IndexedMesh.FLOATS_PER_VERTEX,
+					IndexedMesh.FLOATS_PER_VERTEX);
+		}
+
+		int rangeCount = mesh.getRangeCount();
+
+		ArrayList<String> rangeMtlList = new ArrayList<String>();
+		int[] rangeStarts = new int[rangeCount];
+		int[] rangeCounts = new int[rangeCount];
+
+		for (int i = 0; i < rangeCount; ++i)
+		{
+			rangeMtlList.add(mesh.getRangeMtl(i));
+			rangeStarts[i] = mesh.getIndexStart(i);
+			rangeCounts[i] = mesh.getIndexCount(i);
+		}
+
+		return new IndexedMesh(newVertexArray, indices, rangeMtlList,
+				rangeStarts, rangeCounts);
+	}
+
+	/**
+	 * Get the average cache miss ratio, the number of vertices transformed
+	 * per triangle when drawing all the ranges through a FIFO cache of
+	 * MEASURE_CACHE_SIZE entries. It is between 0.5 for a regular grid and 3
+	 * for no reuse at all
+	 * 
+	 * @param mesh
+	 * @return
+	 */
+	public static float getAcmr(IndexedMesh mesh)
+	{
+		int[] indices = mesh.getIndices();
+
+		if (indices.length == 0)
+		{
+			return 0;
+		}
+
+		// Position of each vertex in the stream of misses, so that a vertex
+		// is cached if it missed within the last MEASURE_CACHE_SIZE misses
+		int[] missTimes = new int[mesh.getVertexCount()];
+		Arrays.fill(missTimes, -MEASURE_CACHE_SIZE - 1);
+
+		int misses = 0;
+
+		for (int index : indices)
+		{
+			if (misses - missTimes[index] > MEASURE_CACHE_SIZE)
+			{
+				missTimes[index] = misses++;
+			}
+		}
+
+		return (float) misses / (indices.length / 3);
+	}
+
+	/**
+	 * Score of a vertex, higher for vertices recently used and for
+	 * vertices with few triangles left, so that they are finished off
+	 * 
+	 * @param cachePos
+	 * @param remaining
+	 *            number of triangles not yet added
+	 * @return
+	 */
+	private static float getVertexScore(int cachePos, int remaining)
+	{
+		if (remaining == 0)
+		{
+			return -1;
+		}
+
+		float score = 0;
+
+		if (cachePos != NOT_CACHED)
+		{
+			if (cachePos < 3)
+			{
+				// The vertices of the last triangle are used regardless of
+				// the order, so they get a fixed score
+				score = LAST_TRI_SCORE;
+			}
+			else
+			{
+				float scale = 1.0f / (CACHE_SIZE - 3);
+				score = (float) Math.pow(1.0f - (cachePos - 3) * scale,
+						CACHE_DECAY_POWER);
+			}
+		}
+
+		score += VALENCE_BOOST_SCALE
+				* (float) Math.pow(remaining, -VALENCE_BOOST_POWER);
+
+		return score;
+	}
+
+	// Triangles of each vertex, vertex by vertex, with the number of those
+	// not yet added
+	private int[] triOffsets, triLists, remaining;
+
+	private int[] cachePos;
+	private float[] vertexScores;
+
+	// Cache as it is modeled, with room for the vertices pushed out by the
+	// last triangle
+	private int[] cache, newCache;
+
+	private MeshOptimizer(int vertexCount)
+	{
+		triOffsets = new int[vertexCount + 1];
+		remaining = new int[vertexCount];
+
+		cachePos = new int[vertexCount];
+		vertexScores = new float[vertexCount];
+
+		cache = new int[CACHE_SIZE + 3];
+		newCache = new int[CACHE_SIZE + 3];
+	}
+
+	/**
+	 * Reorder the triangles of a range of indices in place
+	 * 
+	 * @param indices
+	 * @param start
+	 * @param count
+	 */
+	private void reorderTriangles(int[] indices, int start, int count)
+	{
+		int triCount = count / 3;
+
+		if (triCount == 0)
+		{
+			return;
+		}
+
+		// Count the triangles of each vertex
+		Arrays.fill(remaining, 0);
+
+		for (int i = start; i < start + count; ++i)
+		{
+			++remaining[indices[i]];
+		}
+
+		for (int v = 0; v < remaining.length; ++v)
+		{
+			triOffsets[v + 1] = triOffsets[v] + remaining[v];
+		}
+
+		triLists = new int[count];
+
+		int[] fill = Arrays.copyOf(triOffsets, remaining.length);
+
+		for (int t = 0; t < triCount; ++t)
+		{
+			for (int k = 0; k < 3; ++k)
+			{
+				int v = indices[start + t * 3 + k];
+				triLists[fill[v]++] = t;
+			}
+		}
+
+		Arrays.fill(cachePos, NOT_CACHED);
+
+		for (int v = 0; v < remaining.length; ++v)
+		{
+			vertexScores[v] = getVertexScore(NOT_CACHED, remaining[v]);
+		}
+
+		float[] triScores = new float[triCount];
+		boolean[] added = new boolean[triCount];
+
+		for (int t = 0; t < triCount; ++t)
+		{
+			for (int k = 0; k < 3; ++k)
+			{
+				triScores[t] += vertexScores[indices[start + t * 3 + k]];
+			}
+		}
+
+		int[] order = new int[triCount];
+
+		int cacheSize = 0;
+
+		// Next triangle in the original order to fall back on
+		int cursor = 0;
+
+		int bestTri = findBest(triScores);
+
+		for (int n = 0; n < triCount; ++n)
+		{
+			if (bestTri == NO_TRI)
+			{
+				// Nothing in the cache has triangles left, so start anywhere
+				while (added[cursor])
+				{
+					++cursor;
+				}
+
+				bestTri = cursor;
+			}
+
+			order[n] = bestTri;
+			added[bestTri] = true;
+
+			// Put the vertices of the triangle in front of the cache, and
+			// remove the triangle from them
+			int newSize = 0;
+
+			for (int k = 0; k < 3; ++k)
+			{
+				int v = indices[start + bestTri * 3 + k];
+
+				newCache[newSize++] = v;
+				removeTri(v, bestTri);
+			}
+
+			for (int i = 0; i < cacheSize; ++i)
+			{
+				int v = cache[i];
+
+				if (v != newCache[0] && v != newCache[1] && v != newCache[2])
+				{
+					newCache[newSize++] = v;
+				}
+			}
+
+			int[] swap = cache;
+			cache = newCache;
+			newCache = swap;
+
+			// Rescore the vertices in the cache and those pushed out, along
+			// with their triangles
+			for (int i = 0; i < newSize; ++i)
+			{
+				int v = cache[i];
+
+				cachePos[v] = i < CACHE_SIZE ? i : NOT_CACHED;
+
+				float newScore = getVertexScore(cachePos[v], remaining[v]);
+				float diff = newScore - vertexScores[v];
+
+				vertexScores[v] = newScore;
+
+				for (int j = triOffsets[v]; j < triOffsets[v] + remaining[v]; ++j)
+				{
+					triScores[triLists[j]] += diff;
+				}
+			}
+
+			cacheSize = Math.min(newSize, CACHE_SIZE);
+
+			// A triangle may share several of the vertices, so the best one
+			// is only known once all of them are rescored
+			float bestScore = -1;
+			bestTri = NO_TRI;
+
+			for (int i = 0; i < cacheSize; ++i)
+			{
+				int v = cache[i];
+
+				for (int j = triOffsets[v]; j < triOffsets[v] + remaining[v]; ++j)
+				{
+					int t = triLists[j];
+
+					if (triScores[t] > bestScore)
+					{
+						bestScore = triScores[t];
+						bestTri = t;
+					}
+				}
+			}
+		}
+
+		// Write the triangles back in the new order
+		int[] reordered = new int[count];
+
+		for (int n = 0; n < triCount; ++n)
+		{
+			System.arraycopy(indices, start + order[n] * 3, reordered, n * 3,
+					3);
+		}
+
+		System.arraycopy(reordered, 0, indices, start, count);
+	}
+
+	/**
+	 * Remove an added triangle from the triangles of a vertex
+	 * 
+	 * @param v
+	 * @param tri
+	 */
+	private void removeTri(int v, int tri)
+	{
+		int first = triOffsets[v];
+		int last = first + remaining[v] - 1;
+
+		for (int j = first; j <= last; ++j)
+		{
+			if (triLists[j] == tri)
+			{
+				triLists[j] = triLists[last];
+				triLists[last] = tri;
+				--remaining[v];
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Find the triangle with the highest score
+	 * 
+	 * @param triScores
+	 * @return
+	 */
+	private static int findBest(float[] triScores)
+	{
+		int bestTri = NO_TRI;
+		float bestScore = -1;
+
+		for (int t = 0; t < triScores.length; ++t)
+		{
+			if (triScores[t] > bestScore)
+			{
+				bestScore = triScores[t];
+				bestTri = t;
+			}
+		}
+
+		return bestTri;
+	}
+}
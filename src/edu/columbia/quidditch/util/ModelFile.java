@@ -0,0 +1,700 @@
+package edu.columbia.quidditch.util;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.lwjgl.util.vector.Vector3f;
+
+import edu.columbia.quidditch.basic.Material;
+
+/**
+ * Read and write compiled models. A file begins with magic number, version,
+ * a checksum of the rest and the size of the source table, which lists the
+ * source files with their sizes, modification times and hashes. The vertex
+ * arrays, materials, meshes, joints, bone weights and indexed mesh follow,
+ * all little-endian
+ */
+public class ModelFile
+{
+	// "QMDL"
+	public static final int MAGIC = 0x514d444c;
+	public static final int VERSION = 3;
+
+	public static final int HEADER_SIZE = 20;
+
+	private static final int BYTES_PER_INT = 4;
+	private static final int BYTES_PER_LONG = 8;
+
+	// Bytes read at a time when the checksum is verified
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private static final Charset UTF_8 = Charset.forName("utf-8");
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Load a compiled model through a memory mapping, once its sources and
+	 * checksum are verified
+	 * 
+	 * @param modelName
+	 * @return the model, or null if its source files have changed
+	 * @throws IOException
+	 *             if the file is not a valid compiled model
+	 */
+	public static CompiledModel load(String modelName) throws IOException
+	{
+		FileInputStream istream = new FileInputStream(modelName);
+
+		try
+		{
+			FileChannel channel = istream.getChannel();
+
+			// Check the sources before mapping the file, so that an out of
+			// date file is not kept open while it is compiled again
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+
+			readFully(channel, header, 0);
+
+			int magic = header.getInt();
+			int version = header.getInt();
+			long checksum = header.getLong();
+			int tableSize = header.getInt();
+
+			if (magic != MAGIC || version != VERSION)
+			{
+				throw new IOException("Unsupported compiled model " + modelName);
+			}
+
+			if (tableSize < 0
+					|| HEADER_SIZE + (long) tableSize > channel.size())
+			{
+				throw new IOException("Unexpected size of compiled model "
+						+ modelName);
+			}
+
+			ByteBuffer table = ByteBuffer.allocate(tableSize);
+			table.order(ByteOrder.LITTLE_ENDIAN);
+
+			readFully(channel, table, HEADER_SIZE);
+
+			int sourceCount = table.getInt();
+			ArrayList<String> sourceList = new ArrayList<String>();
+
+			for (int i = 0; i < sourceCount; ++i)
+			{
+				String sourceName = getString(table);
+
+				long length = table.getLong();
+				long lastModified = table.getLong();
+				long hash = table.getLong();
+
+				if (!isUpToDate(new File(sourceName), length, lastModified,
+						hash))
+				{
+					return null;
+				}
+
+				sourceList.add(sourceName);
+			}
+
+			long dataOffset = HEADER_SIZE + tableSize;
+
+			table.rewind();
+
+			// Verify the data with plain reads as well, since a mapping cannot
+			// be released, and a file still mapped cannot be replaced on some
+			// systems. Once the checksum matches, the data is exactly as it was
+			// written
+			if (hash(channel, dataOffset, hash(table, FNV_OFFSET)) != checksum)
+			{
+				throw new IOException("Checksum mismatch in compiled model "
+						+ modelName);
+			}
+
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, dataOffset, channel.size()
+							- dataOffset);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			// Vertex arrays
+			float[] vers = getFloats(buffer, buffer.getInt());
+			float[] texCoords = getFloats(buffer, buffer.getInt());
+			float[] nors = getFloats(buffer, buffer.getInt());
+
+			// Materials, whose textures are loaded later
+			int mtlCount = buffer.getInt();
+
+			HashMap<String, Material> mtlMap = new HashMap<String, Material>();
+
+			for (int i = 0; i < mtlCount; ++i)
+			{
+				String mtlName = getString(buffer);
+				Material material = new Material();
+
+				material.setAmbient(buffer.getFloat(), buffer.getFloat(),
+						buffer.getFloat());
+				material.setDiffuse(buffer.getFloat(), buffer.getFloat(),
+						buffer.getFloat());
+				material.setSpecular(buffer.getFloat(), buffer.getFloat(),
+						buffer.getFloat());
+				material.setTransparency(buffer.getFloat());
+
+				String textureName = getString(buffer);
+
+				material.setTextureName(textureName);
+
+				mtlMap.put(mtlName, material);
+			}
+
+			// Meshes and their materials
+			int meshCount = buffer.getInt();
+
+			ArrayList<IntArray> meshList = new ArrayList<IntArray>();
+			ArrayList<String> mtlList = new ArrayList<String>();
+
+			for (int i = 0; i < meshCount; ++i)
+			{
+				meshList.add(new IntArray(getInts(buffer, buffer.getInt())));
+			}
+
+			int mtlListSize = buffer.getInt();
+
+			for (int i = 0; i < mtlListSize; ++i)
+			{
+				mtlList.add(getString(buffer));
+			}
+
+			CompiledModel model = new CompiledModel(vers, texCoords, nors,
+					meshList, mtlList, mtlMap, sourceList);
+
+			// Skeleton
+			int jointCount = buffer.getInt();
+			int skinnedCount = buffer.getInt();
+
+			if (jointCount > 0)
+			{
+				int[] jointParents = getInts(buffer, jointCount);
+				float[] jointPQs = getFloats(buffer, jointCount * 7);
+
+				int[] joints = getInts(buffer, skinnedCount
+						* SkinData.MAX_INFLUENCES);
+				float[] weights = getFloats(buffer, skinnedCount
+						* SkinData.MAX_INFLUENCES);
+
+				model.setSkeleton(jointParents, jointPQs, new SkinData(
+						skinnedCount, joints, weights));
+			}
+
+			// Indexed mesh
+			int vertexCount = buffer.getInt();
+
+			if (vertexCount > 0)
+			{
+				float[] vertices = getFloats(buffer, vertexCount
+						* IndexedMesh.FLOATS_PER_VERTEX);
+				int[] indices = getInts(buffer, buffer.getInt());
+
+				int rangeCount = buffer.getInt();
+
+				ArrayList<String> rangeMtlList = new ArrayList<String>();
+				int[] rangeStarts = new int[rangeCount];
+				int[] rangeCounts = new int[rangeCount];
+
+				for (int i = 0; i < rangeCount; ++i)
+				{
+					rangeMtlList.add(getString(buffer));
+					rangeStarts[i] = buffer.getInt();
+					rangeCounts[i] = buffer.getInt();
+				}
+
+				model = new CompiledModel(new IndexedMesh(vertices, indices,
+						rangeMtlList, rangeStarts, rangeCounts), mtlMap,
+						sourceList);
+			}
+
+			return model;
+		}
+		catch (RuntimeException e)
+		{
+			// Reading past the end or a negative count
+			throw new IOException("Malformed compiled model " + modelName, e);
+		}
+		finally
+		{
+			istream.close();
+		}
+	}
+
+	/**
+	 * Save a compiled model, along with the state of its source files
+	 * 
+	 * @param modelName
+	 * @param model
+	 * @throws IOException
+	 */
+	public static void save(String modelName, CompiledModel model)
+			throws IOException
+	{
+		ArrayList<String> sourceList = model.getSourceList();
+		ArrayList<IntArray> meshList = model.getMeshList();
+		ArrayList<String> mtlList = model.getMtlList();
+		HashMap<String, Material> mtlMap = model.getMtlMap();
+
+		int[] jointParents = model.getJointParentArray();
+		SkinData skinData = model.getSkinData();
+
+		int skinnedCount = skinData == null ? 0 : skinData.getVertexCount();
+
+		// Work out the size first
+		int tableSize = BYTES_PER_INT;
+
+		byte[][] sourceNames = new byte[sourceList.size()][];
+
+		for (int i = 0; i < sourceNames.length; ++i)
+		{
+			sourceNames[i] = sourceList.get(i).getBytes(UTF_8);
+			tableSize += BYTES_PER_INT + sourceNames[i].length + 3
+					* BYTES_PER_LONG;
+		}
+
+		int size = HEADER_SIZE + tableSize;
+
+		size += 3 * BYTES_PER_INT
+				+ (model.getVerArray().length + model.getTexArray().length + model
+						.getNorArray().length) * BYTES_PER_INT;
+
+		size += BYTES_PER_INT;
+
+		for (String mtlName : mtlMap.keySet())
+		{
+			Material material = mtlMap.get(mtlName);
+
+			size += getSize(mtlName) + 10 * BYTES_PER_INT
+					+ getSize(material.getTextureName());
+		}
+
+		size += BYTES_PER_INT;
+
+		for (IntArray mesh : meshList)
+		{
+			size += BYTES_PER_INT + mesh.size() * BYTES_PER_INT;
+		}
+
+		size += BYTES_PER_INT;
+
+		for (String mtlName : mtlList)
+		{
+			size += getSize(mtlName);
+		}
+
+		size += 2 * BYTES_PER_INT;
+
+		if (jointParents.length > 0)
+		{
+			size += jointParents.length * 8 * BYTES_PER_INT + skinnedCount
+					* SkinData.MAX_INFLUENCES * 2 * BYTES_PER_INT;
+		}
+
+		IndexedMesh indexedMesh = model.getIndexedMesh();
+
+		size += BYTES_PER_INT;
+
+		if (indexedMesh != null)
+		{
+			size += indexedMesh.getVertices().length * BYTES_PER_INT
+					+ BYTES_PER_INT + indexedMesh.getIndices().length
+					* BYTES_PER_INT + BYTES_PER_INT;
+
+			for (int i = 0; i < indexedMesh.getRangeCount(); ++i)
+			{
+				size += getSize(indexedMesh.getRangeMtl(i)) + 2
+						* BYTES_PER_INT;
+			}
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+
+		// Checksum is filled in at last
+		buffer.putLong(0);
+		buffer.putInt(tableSize);
+
+		buffer.putInt(sourceNames.length);
+
+		for (int i = 0; i < sourceNames.length; ++i)
+		{
+			File sourceFile = new File(sourceList.get(i));
+
+			buffer.putInt(sourceNames[i].length);
+			buffer.put(sourceNames[i]);
+
+			buffer.putLong(sourceFile.length());
+			buffer.putLong(sourceFile.lastModified());
+			buffer.putLong(hashFile(sourceFile));
+		}
+
+		putFloats(buffer, model.getVerArray());
+		putFloats(buffer, model.getTexArray());
+		putFloats(buffer, model.getNorArray());
+
+		buffer.putInt(mtlMap.size());
+
+		for (String mtlName : mtlMap.keySet())
+		{
+			Material material = mtlMap.get(mtlName);
+
+			putString(buffer, mtlName);
+
+			putVector(buffer, material.getAmbient());
+			putVector(buffer, material.getDiffuse());
+			putVector(buffer, material.getSpecular());
+			buffer.putFloat(material.getTransparency());
+
+			putString(buffer, material.getTextureName());
+		}
+
+		buffer.putInt(meshList.size());
+
+		for (IntArray mesh : meshList)
+		{
+			buffer.putInt(mesh.size());
+
+			for (int i = 0; i < mesh.size(); ++i)
+			{
+				buffer.putInt(mesh.get(i));
+			}
+		}
+
+		buffer.putInt(mtlList.size());
+
+		for (String mtlName : mtlList)
+		{
+			putString(buffer, mtlName);
+		}
+
+		buffer.putInt(jointParents.length);
+		buffer.putInt(skinnedCount);
+
+		if (jointParents.length > 0)
+		{
+			int influenceCount = skinnedCount * SkinData.MAX_INFLUENCES;
+
+			for (int parent : jointParents)
+			{
+				buffer.putInt(parent);
+			}
+
+			for (float value : model.getJointPQArray())
+			{
+				buffer.putFloat(value);
+			}
+
+			int[] joints = skinData.getJoints();
+			float[] weights = skinData.getWeights();
+
+			for (int i = 0; i < influenceCount; ++i)
+			{
+				buffer.putInt(joints[i]);
+			}
+
+			for (int i = 0; i < influenceCount; ++i)
+			{
+				buffer.putFloat(weights[i]);
+			}
+		}
+
+		if (indexedMesh == null)
+		{
+			buffer.putInt(0);
+		}
+		else
+		{
+			buffer.putInt(indexedMesh.getVertexCount());
+
+			for (float value : indexedMesh.getVertices())
+			{
+				buffer.putFloat(value);
+			}
+
+			buffer.putInt(indexedMesh.getIndices().length);
+
+			for (int index : indexedMesh.getIndices())
+			{
+				buffer.putInt(index);
+			}
+
+			buffer.putInt(indexedMesh.getRangeCount());
+
+			for (int i = 0; i < indexedMesh.getRangeCount(); ++i)
+			{
+				putString(buffer, indexedMesh.getRangeMtl(i));
+				buffer.putInt(indexedMesh.getIndexStart(i));
+				buffer.putInt(indexedMesh.getIndexCount(i));
+			}
+		}
+
+		buffer.position(HEADER_SIZE);
+		buffer.putLong(2 * BYTES_PER_INT, hash(buffer, FNV_OFFSET));
+
+		buffer.rewind();
+
+		FileOutputStream ostream = new FileOutputStream(modelName);
+
+		try
+		{
+			FileChannel channel = ostream.getChannel();
+
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+		}
+		finally
+		{
+			ostream.close();
+		}
+	}
+
+	/**
+	 * A source file is up to date if it has the recorded size, and either
+	 * the recorded modification time or, if it has only been touched, the
+	 * recorded content
+	 * 
+	 * @param sourceFile
+	 * @param length
+	 * @param lastModified
+	 * @param hash
+	 * @return
+	 * @throws IOException
+	 */
+	private static boolean isUpToDate(File sourceFile, long length,
+			long lastModified, long hash) throws IOException
+	{
+		if (!sourceFile.exists() || sourceFile.length() != length)
+		{
+			return false;
+		}
+
+		if (sourceFile.lastModified() == lastModified)
+		{
+			return true;
+		}
+
+		return hashFile(sourceFile) == hash;
+	}
+
+	/**
+	 * FNV-1a hash over the bytes of a file
+	 * 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	private static long hashFile(File file) throws IOException
+	{
+		byte[] data = new byte[(int) file.length()];
+
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+
+		try
+		{
+			input.readFully(data);
+		}
+		finally
+		{
+			input.close();
+		}
+
+		return hash(ByteBuffer.wrap(data), FNV_OFFSET);
+	}
+
+	/**
+	 * Continue an FNV-1a hash over the bytes from the position of a buffer
+	 * to its limit, leaving the position unchanged
+	 * 
+	 * @param buffer
+	 * @param hash
+	 *            FNV_OFFSET to start a hash
+	 * @return
+	 */
+	private static long hash(ByteBuffer buffer, long hash)
+	{
+		for (int i = buffer.position(); i < buffer.limit(); ++i)
+		{
+			hash ^= buffer.get(i) & 0xff;
+			hash *= FNV_PRIME;
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Continue an FNV-1a hash over the bytes of a channel from a position to
+	 * the end, read a chunk at a time
+	 * 
+	 * @param channel
+	 * @param position
+	 * @param hash
+	 * @return
+	 * @throws IOException
+	 */
+	private static long hash(FileChannel channel, long position, long hash)
+			throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		long size = channel.size();
+
+		while (position < size)
+		{
+			buffer.clear();
+			buffer.limit((int) Math.min(CHUNK_SIZE, size - position));
+
+			readFully(channel, buffer, position);
+
+			hash = hash(buffer, hash);
+			position += buffer.limit();
+		}
+
+		return hash;
+	}
+
+	/**
+	 * Read from a position of a channel until a buffer is full
+	 * 
+	 * @param channel
+	 * @param buffer
+	 * @param position
+	 * @throws IOException
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer,
+			long position) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			int count = channel.read(buffer, position);
+
+			if (count < 0)
+			{
+				throw new IOException("Unexpected end of compiled model");
+			}
+
+			position += count;
+		}
+
+		buffer.flip();
+	}
+
+	/**
+	 * Size of a string as written by putString
+	 * 
+	 * @param str
+	 * @return
+	 */
+	private static int getSize(String str)
+	{
+		return BYTES_PER_INT + (str == null ? 0 : str.getBytes(UTF_8).length);
+	}
+
+	/**
+	 * Write a string as its length in bytes and its UTF-8 bytes, or -1 for
+	 * null
+	 * 
+	 * @param buffer
+	 * @param str
+	 */
+	private static void putString(ByteBuffer buffer, String str)
+	{
+		if (str == null)
+		{
+			buffer.putInt(-1);
+			return;
+		}
+
+		byte[] bytes = str.getBytes(UTF_8);
+
+		buffer.putInt(bytes.length);
+		buffer.put(bytes);
+	}
+
+	private static String getString(ByteBuffer buffer)
+	{
+		int length = buffer.getInt();
+
+		if (length < 0)
+		{
+			return null;
+		}
+
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+
+		return new String(bytes, UTF_8);
+	}
+
+	private static void putVector(ByteBuffer buffer, Vector3f vector)
+	{
+		buffer.putFloat(vector.x).putFloat(vector.y).putFloat(vector.z);
+	}
+
+	/**
+	 * Write an array as its length and its elements
+	 * 
+	 * @param buffer
+	 * @param values
+	 */
+	private static void putFloats(ByteBuffer buffer, float[] values)
+	{
+		buffer.putInt(values.length);
+		buffer.asFloatBuffer().put(values);
+		buffer.position(buffer.position() + values.length * BYTES_PER_INT);
+	}
+
+	/**
+	 * Read some floats and move past them
+	 * 
+	 * @param buffer
+	 * @param count
+	 * @return
+	 */
+	private static float[] getFloats(ByteBuffer buffer, int count)
+	{
+		float[] values = new float[count];
+
+		buffer.asFloatBuffer().get(values);
+		buffer.position(buffer.position() + count * BYTES_PER_INT);
+
+		return values;
+	}
+
+	/**
+	 * Read some ints and move past them
+	 * 
+	 * @param buffer
+	 * @param count
+	 * @return
+	 */
+	private static int[] getInts(ByteBuffer buffer, int count)
+	{
+		int[] values = new int[count];
+
+		buffer.asIntBuffer().get(values);
+		buffer.position(buffer.position() + count * BYTES_PER_INT);
+
+		return values;
+	}
+}
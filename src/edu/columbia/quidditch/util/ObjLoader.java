@@ -1,303 +1,303 @@
-package edu.columbia.quidditch.util;
-
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
-
-import org.lwjgl.util.vector.Vector3f;
-
-import edu.columbia.quidditch.basic.Material;
-import edu.columbia.quidditch.basic.Texture;
-import edu.columbia.quidditch.render.screen.LoadScreen;
-
-/**
- * Load obj and mtl file
- * 
- * @author Yuqing Guan
- * 
- */
-public class ObjLoader
-{
-	private ArrayList<Vector3f> verList, texList, norList;
-	private ArrayList<ArrayList<ArrayList<Vector3i>>> meshList;
-
-	private ArrayList<String> mtlList;
-	private HashMap<String, Material> mtlMap;
-
-	private HashMap<String, Texture> textureMap;
-
-	public static ObjLoader create(String objName)
-	{
-		try
-		{
-			LoadScreen.log("Loading model from " + objName);
-			return new ObjLoader(objName);
-		}
-		catch (IOException e)
-		{
-			e.printStackTrace();
-			System.exit(1);
-			return null;
-		}
-	}
-
-	/**
-	 * Load obj file
-	 * 
-	 * @param objName
-	 *            file name
-	 * @throws IOException
-	 */
-	public ObjLoader(String objName) throws IOException
-	{
-		File objFile = new File(objName);
-
-		verList = new ArrayList<Vector3f>();
-		;
-		texList = new ArrayList<Vector3f>();
-		;
-		norList = new ArrayList<Vector3f>();
-		;
-
-		meshList = new ArrayList<ArrayList<ArrayList<Vector3i>>>();
-
-		mtlList = new ArrayList<String>();
-		mtlMap = new HashMap<String, Material>();
-
-		ArrayList<ArrayList<Vector3i>> mesh = new ArrayList<ArrayList<Vector3i>>();
-		BufferedReader reader = new BufferedReader(new FileReader(objFile));
-		String line;
-
-		// Loop until the end of file
-		while ((line = reader.readLine()) != null)
-		{
-			line = line.trim();
-
-			// Split the line
-			String[] array = line.split("[ ]+");
-
-			if (array.length < 1)
-			{
-				continue;
-			}
-
-			if (array[0].equals("mtllib")) // mtl file name
-			{
-				loadMtl(objFile.getParent() + File.separator
-						+ exceptFirst(line));
-			}
-			if (array[0].equals("v")) // vertices
-			{
-				float x = Float.parseFloat(array[1]);
-				float y = Float.parseFloat(array[2]);
-				float z = Float.parseFloat(array[3]);
-
-				Vector3f ver = new Vector3f(x, y, z);
-				verList.add(ver);
-			}
-			else if (array[0].equals("vt")) // UV coordinates
-			{
-				float x = Float.parseFloat(array[1]);
-				float y = 1.0f - Float.parseFloat(array[2]);
-				float z = 0.0f;
-
-				Vector3f tex = new Vector3f(x, y, z);
-				texList.add(tex);
-			}
-			else if (array[0].equals("vn")) // vertex normals
-			{
-				float x = Float.parseFloat(array[1]);
-				float y = Float.parseFloat(array[2]);
-				float z = Float.parseFloat(array[3]);
-
-				Vector3f nor = new Vector3f(x, y, z);
-				norList.add(nor);
-			}
-			else if (array[0].equals("g")) // a new mesh
-			{
-				if (!mesh.isEmpty())
-				{
-					meshList.add(mesh);
-				}
-
-				mesh = new ArrayList<ArrayList<Vector3i>>();
-			}
-			else if (array[0].equals("usemtl")) // material for current mesh
-			{
-				mtlList.add(exceptFirst(line));
-			}
-			else if (array[0].equals("f")) // face
-			{
-				ArrayList<Vector3i> face = new ArrayList<Vector3i>();
-
-				for (int i = 1; i < array.length; ++i)
-				{
-					String token = array[i];
-					String[] tokenArray = token.split("/");
-
-					int v, vt, vn;
-
-					v = Integer.parseInt(tokenArray[0]) - 1;
-					vt = vn = -1;
-
-					if (tokenArray.length > 1
-							&& !tokenArray[1].trim().equals(""))
-					{
-						vt = Integer.parseInt(tokenArray[1]) - 1;
-					}
-
-					if (tokenArray.length > 2)
-					{
-						vn = Integer.parseInt(tokenArray[2]) - 1;
-					}
-
-					face.add(new Vector3i(v, vt, vn));
-				}
-
-				mesh.add(face);
-			}
-		}
-
-		if (!mesh.isEmpty())
-		{
-			meshList.add(mesh);
-		}
-
-		reader.close();
-	}
-
-	/**
-	 * Load mtl file
-	 * 
-	 * @param mtlName
-	 *            file name
-	 * @throws IOException
-	 */
-	private void loadMtl(String mtlName) throws IOException
-	{
-		File mtlFile = new File(mtlName);
-		String texturePath = mtlFile.getParent() + File.separator + "textures"
-				+ File.separator;
-
-		BufferedReader reader = new BufferedReader(new FileReader(mtlFile));
-		String line;
-
-		Material material = null;
-
-		textureMap = new HashMap<String, Texture>();
-
-		// Loop until the end of file
-		while ((line = reader.readLine()) != null)
-		{
-			line = line.trim();
-
-			// Split the line
-			String[] array = line.split("[ ]+");
-
-			if (array.length < 1)
-			{
-				continue;
-			}
-
-			if (array[0].equals("newmtl")) // new material
-			{
-				material = new Material();
-				mtlMap.put(exceptFirst(line), material);
-			}
-			else if (array[0].equals("map_Kd")) // image file
-			{
-				String textureName = texturePath + exceptFirst(line);
-				Texture texture;
-
-				if (textureMap.containsKey(textureName))
-				{
-					texture = textureMap.get(textureName);
-				}
-				else
-				{
-					texture = Texture.createFromFile(textureName);
-					textureMap.put(textureName, texture);
-				}
-
-				material.setTexture(texture);
-			}
-			else if (array[0].equals("Kd")) // diffuse color
-			{
-				float r = Float.parseFloat(array[1]);
-				float g = Float.parseFloat(array[2]);
-				float b = Float.parseFloat(array[3]);
-
-				material.setDiffuse(r, g, b);
-			}
-			else if (array[0].equals("Ka")) // ambient color
-			{
-				float r = Float.parseFloat(array[1]);
-				float g = Float.parseFloat(array[2]);
-				float b = Float.parseFloat(array[3]);
-
-				material.setAmbient(r, g, b);
-			}
-			else if (array[0].equals("Ks")) // specular color
-			{
-				float r = Float.parseFloat(array[1]);
-				float g = Float.parseFloat(array[2]);
-				float b = Float.parseFloat(array[3]);
-
-				material.setSpecular(r, g, b);
-			}
-			else if (array[0].equals("d") || array[0].equals("Tr")) // transparency
-			{
-				float t = Float.parseFloat(array[1]);
-
-				material.setTransparency(t);
-			}
-		}
-
-		reader.close();
-	}
-
-	/**
-	 * Get the string after the first continuous spaces in order to parse file
-	 * names with spaces
-	 * 
-	 * @param line
-	 * @return
-	 */
-	private String exceptFirst(String line)
-	{
-		return line.substring(line.indexOf(" ") + 1);
-	}
-
-	public ArrayList<Vector3f> getVerList()
-	{
-		return verList;
-	}
-
-	public ArrayList<Vector3f> getTexList()
-	{
-		return texList;
-	}
-
-	public ArrayList<Vector3f> getNorList()
-	{
-		return norList;
-	}
-
-	public ArrayList<ArrayList<ArrayList<Vector3i>>> getMeshList()
-	{
-		return meshList;
-	}
-
-	public ArrayList<String> getMtlList()
-	{
-		return mtlList;
-	}
-
-	public HashMap<String, Material> getMtlMap()
-	{
-		return mtlMap;
-	}
-}
+package edu.columbia.quidditch.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import edu.columbia.quidditch.basic.Material;
+import edu.columbia.quidditch.render.screen.LoadScreen;
+
+/**
+ * Load obj and mtl file
+ * 
+ * @author Yuqing Guan
+ * 
+ */
+public class ObjLoader
+{
+	// Positions and normals have three floats each, and UV coordinates two
+	private FloatArray verArray, texArray, norArray;
+
+	// Faces of each mesh, see getMeshList
+	private ArrayList<IntArray> meshList;
+
+	private ArrayList<String> mtlList;
+	private HashMap<String, Material> mtlMap;
+
+	// The model file followed by the files it refers to
+	private ArrayList<String> sourceList;
+
+	public static ObjLoader create(String objName)
+	{
+		try
+		{
+			LoadScreen.log("Loading model from " + objName);
+			return new ObjLoader(objName);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+			System.exit(1);
+			return null;
+		}
+	}
+
+	/**
+	 * Load obj file
+	 * 
+	 * @param objName
+	 *            file name
+	 * @throws IOException
+	 */
+	public ObjLoader(String objName) throws IOException
+	{
+		File objFile = new File(objName);
+
+		verArray = new FloatArray();
+		texArray = new FloatArray();
+		norArray = new FloatArray();
+
+		meshList = new ArrayList<IntArray>();
+
+		mtlList = new ArrayList<String>();
+		mtlMap = new HashMap<String, Material>();
+
+		sourceList = new ArrayList<String>();
+		sourceList.add(objName);
+
+		IntArray mesh = new IntArray();
+		Tokenizer tokenizer = new Tokenizer(objFile);
+
+		// Loop until the end of file
+		while (tokenizer.nextLine())
+		{
+			if (!tokenizer.nextToken())
+			{
+				continue;
+			}
+
+			if (tokenizer.isToken("mtllib")) // mtl file name
+			{
+				loadMtl(objFile.getParent() + File.separator
+						+ tokenizer.getRest());
+			}
+			else if (tokenizer.isToken("v")) // vertices
+			{
+				float x = tokenizer.nextFloat();
+				float y = tokenizer.nextFloat();
+				float z = tokenizer.nextFloat();
+
+				verArray.add(x, y, z);
+			}
+			else if (tokenizer.isToken("vt")) // UV coordinates
+			{
+				float x = tokenizer.nextFloat();
+				float y = 1.0f - tokenizer.nextFloat();
+
+				texArray.add(x, y);
+			}
+			else if (tokenizer.isToken("vn")) // vertex normals
+			{
+				float x = tokenizer.nextFloat();
+				float y = tokenizer.nextFloat();
+				float z = tokenizer.nextFloat();
+
+				norArray.add(x, y, z);
+			}
+			else if (tokenizer.isToken("g")) // a new mesh
+			{
+				if (mesh.size() > 0)
+				{
+					meshList.add(mesh);
+				}
+
+				mesh = new IntArray();
+			}
+			else if (tokenizer.isToken("usemtl")) // material for current mesh
+			{
+				mtlList.add(tokenizer.getRest());
+			}
+			else if (tokenizer.isToken("f")) // face
+			{
+				// The number of points goes before them
+				int countIdx = mesh.size();
+				mesh.add(0);
+
+				int count = 0;
+
+				while (tokenizer.nextToken())
+				{
+					int v, vt, vn;
+
+					v = tokenizer.readInt() - 1;
+					vt = vn = -1;
+
+					if (tokenizer.skip('/'))
+					{
+						if (tokenizer.hasDigit())
+						{
+							vt = tokenizer.readInt() - 1;
+						}
+
+						if (tokenizer.skip('/'))
+						{
+							vn = tokenizer.readInt() - 1;
+						}
+					}
+
+					mesh.add(v, vt, vn);
+					++count;
+				}
+
+				mesh.set(countIdx, count);
+			}
+		}
+
+		if (mesh.size() > 0)
+		{
+			meshList.add(mesh);
+		}
+	}
+
+	/**
+	 * Load mtl file
+	 * 
+	 * @param mtlName
+	 *            file name
+	 * @throws IOException
+	 */
+	private void loadMtl(String mtlName) throws IOException
+	{
+		File mtlFile = new File(mtlName);
+		sourceList.add(mtlName);
+		String texturePath = mtlFile.getParent() + File.separator + "textures"
+				+ File.separator;
+
+		Tokenizer tokenizer = new Tokenizer(mtlFile);
+
+		Material material = null;
+
+		// Loop until the end of file
+		while (tokenizer.nextLine())
+		{
+			if (!tokenizer.nextToken())
+			{
+				continue;
+			}
+
+			if (tokenizer.isToken("newmtl")) // new material
+			{
+				material = new Material();
+				mtlMap.put(tokenizer.getRest(), material);
+			}
+			else if (tokenizer.isToken("map_Kd")) // image file
+			{
+				String textureName = texturePath + tokenizer.getRest();
+				material.setTextureName(textureName);
+			}
+			else if (tokenizer.isToken("Kd")) // diffuse color
+			{
+				float r = tokenizer.nextFloat();
+				float g = tokenizer.nextFloat();
+				float b = tokenizer.nextFloat();
+
+				material.setDiffuse(r, g, b);
+			}
+			else if (tokenizer.isToken("Ka")) // ambient color
+			{
+				float r = tokenizer.nextFloat();
+				float g = tokenizer.nextFloat();
+				float b = tokenizer.nextFloat();
+
+				material.setAmbient(r, g, b);
+			}
+			else if (tokenizer.isToken("Ks")) // specular color
+			{
+				float r = tokenizer.nextFloat();
+				float g = tokenizer.nextFloat();
+				float b = tokenizer.nextFloat();
+
+				material.setSpecular(r, g, b);
+			}
+			else if (tokenizer.isToken("d") || tokenizer.isToken("Tr")) // transparency
+			{
+				float t = tokenizer.nextFloat();
+
+				material.setTransparency(t);
+			}
+		}
+	}
+
+	/**
+	 * Put the loaded model into a compiled model
+	 * 
+	 * @return
+	 */
+	public CompiledModel compile()
+	{
+		IndexedMesh mesh = MeshBuilder.build(verArray.toArray(),
+				texArray.toArray(), norArray.toArray(), meshList, mtlList);
+
+		float acmr = MeshOptimizer.getAcmr(mesh);
+		mesh = MeshOptimizer.optimize(mesh);
+
+		LoadScreen.log(String.format(
+				"Optimizing %s for vertex cache, ACMR %.3f -> %.3f",
+				sourceList.get(0), acmr, MeshOptimizer.getAcmr(mesh)));
+
+		return new CompiledModel(mesh, mtlMap, sourceList);
+	}
+
+	/**
+	 * Get the positions of the vertices, three floats each
+	 * 
+	 * @return
+	 */
+	public float[] getVerArray()
+	{
+		return verArray.toArray();
+	}
+
+	/**
+	 * Get the UV coordinates, two floats each
+	 * 
+	 * @return
+	 */
+	public float[] getTexArray()
+	{
+		return texArray.toArray();
+	}
+
+	/**
+	 * Get the normals, three floats each
+	 * 
+	 * @return
+	 */
+	public float[] getNorArray()
+	{
+		return norArray.toArray();
+	}
+
+	/**
+	 * Get the faces of each mesh. Each face is its number of points followed
+	 * by the indices of position, UV coordinates and normal of each point,
+	 * where -1 means no index
+	 * 
+	 * @return
+	 */
+	public ArrayList<IntArray> getMeshList()
+	{
+		return meshList;
+	}
+
+	public ArrayList<String> getMtlList()
+	{
+		return mtlList;
+	}
+
+	public HashMap<String, Material> getMtlMap()
+	{
+		return mtlMap;
+	}
+}
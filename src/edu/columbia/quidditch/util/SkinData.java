@@ -0,0 +1,221 @@
+package edu.columbia.quidditch.util;
+
+import java.util.Arrays;
+
+import org.lwjgl.util.vector.Matrix4f;
+
+/**
+ * Bone weights of a skinned mesh, packed into parallel arrays with a fixed
+ * number of influences per vertex. Vertex i uses the slots from i *
+ * MAX_INFLUENCES, strongest joint first, and unused slots have joint 0 and
+ * weight 0. Built once by the loader and only read afterwards, so it can be
+ * shared by every instance of the mesh
+ */
+public class SkinData
+{
+	public static final int MAX_INFLUENCES = 4;
+
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private int vertexCount;
+
+	private int[] joints;
+	private float[] weights;
+
+	// Position (x, y, z) and normal (x, y, z) of each influence in the space
+	// of its joint in the bind pose
+	private float[] verOffsets, norOffsets;
+
+	public SkinData()
+	{
+		joints = new int[INITIAL_CAPACITY * MAX_INFLUENCES];
+		weights = new float[INITIAL_CAPACITY * MAX_INFLUENCES];
+	}
+
+	/**
+	 * Wrap influences that are already packed, such as those of a compiled
+	 * model
+	 * 
+	 * @param vertexCount
+	 * @param joints
+	 *            MAX_INFLUENCES per vertex
+	 * @param weights
+	 *            MAX_INFLUENCES per vertex
+	 */
+	public SkinData(int vertexCount, int[] joints, float[] weights)
+	{
+		this.vertexCount = vertexCount;
+		this.joints = joints;
+		this.weights = weights;
+	}
+
+	/**
+	 * Add the joints of the next vertex. If there are more than
+	 * MAX_INFLUENCES, the strongest ones are kept and take over the weights
+	 * of the others
+	 * 
+	 * @param vertexJoints
+	 * @param vertexWeights
+	 * @param count
+	 *            number of joints in the arrays
+	 */
+	public void addVertex(int[] vertexJoints, float[] vertexWeights, int count)
+	{
+		int base = vertexCount * MAX_INFLUENCES;
+
+		if (base == joints.length)
+		{
+			joints = Arrays.copyOf(joints, joints.length * 2);
+			weights = Arrays.copyOf(weights, weights.length * 2);
+		}
+
+		float total = 0;
+
+		for (int i = 0; i < count; ++i)
+		{
+			float weight = vertexWeights[i];
+			total += weight;
+
+			// Insert into the slots sorted by weight
+			for (int k = 0; k < MAX_INFLUENCES; ++k)
+			{
+				if (weight > weights[base + k])
+				{
+					for (int l = MAX_INFLUENCES - 1; l > k; --l)
+					{
+						weights[base + l] = weights[base + l - 1];
+						joints[base + l] = joints[base + l - 1];
+					}
+
+					weights[base + k] = weight;
+					joints[base + k] = vertexJoints[i];
+					break;
+				}
+			}
+		}
+
+		float sum = 0;
+
+		for (int k = 0; k < MAX_INFLUENCES; ++k)
+		{
+			sum += weights[base + k];
+		}
+
+		if (sum > 0 && sum != total)
+		{
+			for (int k = 0; k < MAX_INFLUENCES; ++k)
+			{
+				weights[base + k] *= total / sum;
+			}
+		}
+
+		++vertexCount;
+	}
+
+	/**
+	 * Put every vertex and normal into the space of each of its joints in the
+	 * bind pose, so that skinning only needs the current joint transforms
+	 * 
+	 * @param vers
+	 *            positions of the vertices, three floats each
+	 * @param nors
+	 *            normals of the vertices, three floats each
+	 * @param invBindTrans
+	 *            inverse of the global transform of each joint in the bind
+	 *            pose
+	 * @param tranBindTrans
+	 *            transpose of the global transform of each joint in the bind
+	 *            pose
+	 */
+	public void computeOffsets(float[] vers, float[] nors,
+			Matrix4f[] invBindTrans, Matrix4f[] tranBindTrans)
+	{
+		verOffsets = new float[vertexCount * MAX_INFLUENCES * 3];
+		norOffsets = new float[vertexCount * MAX_INFLUENCES * 3];
+
+		for (int i = 0; i < vertexCount; ++i)
+		{
+			int base = i * 3;
+
+			float verX = vers[base], verY = vers[base + 1], verZ = vers[base + 2];
+			float norX = nors[base], norY = nors[base + 1], norZ = nors[base + 2];
+
+			for (int k = 0; k < MAX_INFLUENCES; ++k)
+			{
+				int slot = i * MAX_INFLUENCES + k;
+
+				if (weights[slot] == 0)
+				{
+					break;
+				}
+
+				Matrix4f inv = invBindTrans[joints[slot]];
+				Matrix4f tran = tranBindTrans[joints[slot]];
+
+				int offset = slot * 3;
+
+				// Positions are points and normals are directions
+				verOffsets[offset] = inv.m00 * verX + inv.m10 * verY
+						+ inv.m20 * verZ + inv.m30;
+				verOffsets[offset + 1] = inv.m01 * verX + inv.m11 * verY
+						+ inv.m21 * verZ + inv.m31;
+				verOffsets[offset + 2] = inv.m02 * verX + inv.m12 * verY
+						+ inv.m22 * verZ + inv.m32;
+
+				norOffsets[offset] = tran.m00 * norX + tran.m10 * norY
+						+ tran.m20 * norZ;
+				norOffsets[offset + 1] = tran.m01 * norX + tran.m11 * norY
+						+ tran.m21 * norZ;
+				norOffsets[offset + 2] = tran.m02 * norX + tran.m12 * norY
+						+ tran.m22 * norZ;
+			}
+		}
+	}
+
+	public int getVertexCount()
+	{
+		return vertexCount;
+	}
+
+	/**
+	 * Get the joint of each influence, MAX_INFLUENCES per vertex
+	 * 
+	 * @return
+	 */
+	public int[] getJoints()
+	{
+		return joints;
+	}
+
+	/**
+	 * Get the weight of each influence, MAX_INFLUENCES per vertex
+	 * 
+	 * @return
+	 */
+	public float[] getWeights()
+	{
+		return weights;
+	}
+
+	/**
+	 * Get the position of each influence in the space of its joint, three
+	 * floats per influence
+	 * 
+	 * @return null before computeOffsets is called
+	 */
+	public float[] getVerOffsets()
+	{
+		return verOffsets;
+	}
+
+	/**
+	 * Get the normal of each influence in the space of its joint, three
+	 * floats per influence
+	 * 
+	 * @return null before computeOffsets is called
+	 */
+	public float[] getNorOffsets()
+	{
+		return norOffsets;
+	}
+}
@@ -0,0 +1,356 @@
+package edu.columbia.quidditch.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import edu.columbia.quidditch.render.screen.LoadScreen;
+
+/**
+ * Read and write terrain files. A file begins with a header of magic number,
+ * version, dimensions, cell size, layer count and checksum, followed by the
+ * layers stored row by row as little-endian floats
+ */
+public class TerraFile
+{
+	// "QTRA"
+	public static final int MAGIC = 0x51545241;
+	public static final int VERSION = 1;
+
+	public static final int HEADER_SIZE = 32;
+
+	private static final int BYTES_PER_FLOAT = 4;
+
+	// Bytes read at a time when the checksum is verified
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/**
+	 * Load layers from a terrain file through a memory mapping, once its
+	 * header and checksum are verified. A headerless file written by older
+	 * versions is detected by its size and upgraded to the current format
+	 * 
+	 * @param terraName
+	 * @param rows
+	 * @param cols
+	 * @param cellSize
+	 * @param layerCount
+	 * @return
+	 * @throws IOException
+	 *             if the file does not match the expected terrain
+	 */
+	public static Heightfield[] load(String terraName, int rows, int cols,
+			float cellSize, int layerCount) throws IOException
+	{
+		File terraFile = new File(terraName);
+		long payloadSize = (long) rows * cols * layerCount * BYTES_PER_FLOAT;
+
+		if (isLegacy(terraFile, payloadSize))
+		{
+			LoadScreen.log("Upgrading terrain file " + terraName);
+
+			Heightfield[] layers = loadLegacy(terraFile, rows, cols,
+					layerCount);
+			save(terraName, cellSize, layers);
+
+			return layers;
+		}
+
+		FileInputStream istream = new FileInputStream(terraFile);
+
+		try
+		{
+			FileChannel channel = istream.getChannel();
+
+			if (channel.size() != HEADER_SIZE + payloadSize)
+			{
+				throw new IOException("Unexpected size of terrain file "
+						+ terraName);
+			}
+
+			// Validate the file with plain reads before mapping it. A mapping
+			// stays open until it is collected, and on Windows it keeps a bad
+			// file from being rewritten with a regenerated terrain
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.order(ByteOrder.LITTLE_ENDIAN);
+
+			while (header.hasRemaining())
+			{
+				if (channel.read(header, header.position()) < 0)
+				{
+					throw new IOException("Unexpected end of terrain file "
+							+ terraName);
+				}
+			}
+
+			header.flip();
+
+			int magic = header.getInt();
+			int version = header.getInt();
+			int fileRows = header.getInt();
+			int fileCols = header.getInt();
+			float fileCellSize = header.getFloat();
+			int fileLayerCount = header.getInt();
+			long checksum = header.getLong();
+
+			if (magic != MAGIC || version != VERSION)
+			{
+				throw new IOException("Unsupported terrain file " + terraName);
+			}
+
+			if (fileRows != rows || fileCols != cols
+					|| fileCellSize != cellSize
+					|| fileLayerCount != layerCount)
+			{
+				throw new IOException("Terrain file " + terraName
+						+ " has different dimensions");
+			}
+
+			if (checksum(channel, payloadSize) != checksum)
+			{
+				throw new IOException("Checksum mismatch in terrain file "
+						+ terraName);
+			}
+
+			MappedByteBuffer buffer = channel.map(
+					FileChannel.MapMode.READ_ONLY, HEADER_SIZE, payloadSize);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			FloatBuffer floatBuffer = buffer.asFloatBuffer();
+			Heightfield[] layers = new Heightfield[layerCount];
+
+			for (int i = 0; i < layerCount; ++i)
+			{
+				layers[i] = new Heightfield(rows, cols);
+				layers[i].load(floatBuffer);
+			}
+
+			return layers;
+		}
+		finally
+		{
+			istream.close();
+		}
+	}
+
+	/**
+	 * Save layers of the same size to a terrain file
+	 * 
+	 * @param terraName
+	 * @param cellSize
+	 * @param layers
+	 * @throws IOException
+	 */
+	public static void save(String terraName, float cellSize,
+			Heightfield... layers) throws IOException
+	{
+		int rows = layers[0].getRows();
+		int cols = layers[0].getCols();
+
+		ByteBuffer buffer = ByteBuffer.allocateDirect(HEADER_SIZE + rows
+				* cols * layers.length * BYTES_PER_FLOAT);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		buffer.putInt(MAGIC);
+		buffer.putInt(VERSION);
+		buffer.putInt(rows);
+		buffer.putInt(cols);
+		buffer.putFloat(cellSize);
+		buffer.putInt(layers.length);
+		buffer.putLong(checksum(layers));
+
+		FloatBuffer floatBuffer = buffer.asFloatBuffer();
+
+		for (Heightfield layer : layers)
+		{
+			if (layer.getRows() != rows || layer.getCols() != cols)
+			{
+				throw new IllegalArgumentException(
+						"Layers must have the same size");
+			}
+
+			layer.store(floatBuffer);
+		}
+
+		buffer.rewind();
+
+		FileOutputStream ostream = new FileOutputStream(terraName);
+
+		try
+		{
+			FileChannel channel = ostream.getChannel();
+
+			while (buffer.hasRemaining())
+			{
+				channel.write(buffer);
+			}
+		}
+		finally
+		{
+			ostream.close();
+		}
+	}
+
+	/**
+	 * A headerless file contains nothing but the big-endian layers
+	 * 
+	 * @param terraFile
+	 * @param payloadSize
+	 * @return
+	 * @throws IOException
+	 */
+	private static boolean isLegacy(File terraFile, long payloadSize)
+			throws IOException
+	{
+		if (terraFile.length() != payloadSize)
+		{
+			return false;
+		}
+
+		RandomAccessFile file = new RandomAccessFile(terraFile, "r");
+
+		try
+		{
+			// Read the first four bytes as they are written by save
+			byte[] head = new byte[4];
+			file.readFully(head);
+
+			return ByteBuffer.wrap(head).order(ByteOrder.LITTLE_ENDIAN)
+					.getInt() != MAGIC;
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+
+	/**
+	 * Read a headerless file. It is read into a direct buffer rather than
+	 * mapped, so that it can be overwritten right afterwards
+	 * 
+	 * @param terraFile
+	 * @param rows
+	 * @param cols
+	 * @param layerCount
+	 * @return
+	 * @throws IOException
+	 */
+	private static Heightfield[] loadLegacy(File terraFile, int rows,
+			int cols, int layerCount) throws IOException
+	{
+		FileInputStream istream = new FileInputStream(terraFile);
+
+		try
+		{
+			FileChannel channel = istream.getChannel();
+
+			ByteBuffer buffer = ByteBuffer.allocateDirect((int) channel
+					.size());
+			buffer.order(ByteOrder.BIG_ENDIAN);
+
+			while (buffer.hasRemaining())
+			{
+				if (channel.read(buffer) < 0)
+				{
+					throw new IOException("Unexpected end of terrain file");
+				}
+			}
+
+			buffer.flip();
+
+			FloatBuffer floatBuffer = buffer.asFloatBuffer();
+			Heightfield[] layers = new Heightfield[layerCount];
+
+			for (int i = 0; i < layerCount; ++i)
+			{
+				layers[i] = new Heightfield(rows, cols);
+				layers[i].load(floatBuffer);
+			}
+
+			return layers;
+		}
+		finally
+		{
+			istream.close();
+		}
+	}
+
+	/**
+	 * FNV-1a hash over the bits of every element stored in a file, the same
+	 * as the hash of the layers it holds
+	 * 
+	 * @param channel
+	 * @param payloadSize
+	 * @return
+	 * @throws IOException
+	 */
+	private static long checksum(FileChannel channel, long payloadSize)
+			throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(CHUNK_SIZE);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+		long hash = FNV_OFFSET;
+		long position = HEADER_SIZE;
+		long end = HEADER_SIZE + payloadSize;
+
+		while (position < end)
+		{
+			buffer.limit((int) Math.min(buffer.capacity(), buffer.position()
+					+ end - position));
+
+			int read = channel.read(buffer, position);
+
+			if (read < 0)
+			{
+				throw new IOException("Unexpected end of terrain file");
+			}
+
+			position += read;
+			buffer.flip();
+
+			while (buffer.remaining() >= BYTES_PER_FLOAT)
+			{
+				hash ^= buffer.getInt();
+				hash *= FNV_PRIME;
+			}
+
+			buffer.compact();
+		}
+
+		return hash;
+	}
+
+	/**
+	 * FNV-1a hash over the bits of every element
+	 * 
+	 * @param layers
+	 * @return
+	 */
+	private static long checksum(Heightfield[] layers)
+	{
+		long hash = FNV_OFFSET;
+
+		for (Heightfield layer : layers)
+		{
+			float[] data = layer.getData();
+
+			for (int i = 0; i < data.length; ++i)
+			{
+				hash ^= Float.floatToRawIntBits(data[i]);
+				hash *= FNV_PRIME;
+			}
+		}
+
+		return hash;
+	}
+}
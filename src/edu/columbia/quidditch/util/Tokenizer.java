@@ -0,0 +1,372 @@
+package edu.columbia.quidditch.util;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+/**
+ * Split a text file into lines and tokens separated by spaces or tabs. The
+ * whole file is read into a byte array, and tokens are only positions in it,
+ * so that keywords can be compared and numbers parsed without creating
+ * strings
+ */
+public class Tokenizer
+{
+	private static final Charset UTF_8 = Charset.forName("utf-8");
+
+	// Decimal digits a long holds exactly, and a double as well
+	private static final int MAX_DIGITS = 15;
+
+	// Powers of ten a double holds exactly
+	private static final double[] POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4,
+			1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+			1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+	private byte[] data;
+
+	// End of the current line, the cursor in it, and the end of the token
+	// under the cursor
+	private int lineEnd, pos, tokenEnd;
+
+	/**
+	 * Read a file to be tokenized
+	 * 
+	 * @param file
+	 * @throws IOException
+	 */
+	public Tokenizer(File file) throws IOException
+	{
+		long length = file.length();
+
+		if (length > Integer.MAX_VALUE)
+		{
+			throw new IOException(file + " is too large");
+		}
+
+		data = new byte[(int) length];
+
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+
+		try
+		{
+			input.readFully(data);
+		}
+		finally
+		{
+			input.close();
+		}
+
+		// Before the first line
+		lineEnd = -1;
+		pos = tokenEnd = 0;
+	}
+
+	/**
+	 * Move to the beginning of the next line
+	 * 
+	 * @return false at the end of file
+	 */
+	public boolean nextLine()
+	{
+		if (lineEnd + 1 >= data.length)
+		{
+			return false;
+		}
+
+		pos = tokenEnd = lineEnd + 1;
+		lineEnd = pos;
+
+		while (lineEnd < data.length && data[lineEnd] != '\n')
+		{
+			++lineEnd;
+		}
+
+		return true;
+	}
+
+	private static boolean isSpace(byte b)
+	{
+		return b == ' ' || b == '\t' || b == '\r';
+	}
+
+	/**
+	 * Move to the next token in the current line
+	 * 
+	 * @return false if there are no more tokens in the line
+	 */
+	public boolean nextToken()
+	{
+		pos = tokenEnd;
+
+		while (pos < lineEnd && isSpace(data[pos]))
+		{
+			++pos;
+		}
+
+		tokenEnd = pos;
+
+		while (tokenEnd < lineEnd && !isSpace(data[tokenEnd]))
+		{
+			++tokenEnd;
+		}
+
+		return pos < tokenEnd;
+	}
+
+	/**
+	 * Whether the rest of the current token equals a string of ASCII
+	 * characters
+	 * 
+	 * @param str
+	 * @return
+	 */
+	public boolean isToken(String str)
+	{
+		if (tokenEnd - pos != str.length())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < str.length(); ++i)
+		{
+			if (data[pos + i] != str.charAt(i))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Get the rest of the current line after the current token, without the
+	 * spaces around it, which is used for names that may contain spaces
+	 * 
+	 * @return
+	 */
+	public String getRest()
+	{
+		int start = tokenEnd;
+		int end = lineEnd;
+
+		while (start < end && isSpace(data[start]))
+		{
+			++start;
+		}
+
+		while (end > start && isSpace(data[end - 1]))
+		{
+			--end;
+		}
+
+		pos = tokenEnd = lineEnd;
+
+		return new String(data, start, end - start, UTF_8);
+	}
+
+	/**
+	 * Consume a character at the cursor, such as the slashes between the
+	 * indices of obj faces
+	 * 
+	 * @param c
+	 * @return whether the character was there
+	 */
+	public boolean skip(char c)
+	{
+		if (pos < tokenEnd && data[pos] == c)
+		{
+			++pos;
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Parse the next token as an integer
+	 * 
+	 * @return
+	 */
+	public int nextInt()
+	{
+		if (!nextToken())
+		{
+			throw new NumberFormatException("Missing integer");
+		}
+
+		return readInt();
+	}
+
+	/**
+	 * Parse the next token as a float
+	 * 
+	 * @return
+	 */
+	public float nextFloat()
+	{
+		if (!nextToken())
+		{
+			throw new NumberFormatException("Missing float");
+		}
+
+		return readFloat();
+	}
+
+	/**
+	 * Parse an integer at the cursor, stopping at the first character that
+	 * is not a digit
+	 * 
+	 * @return
+	 */
+	public int readInt()
+	{
+		boolean negative = false;
+
+		if (pos < tokenEnd && (data[pos] == '-' || data[pos] == '+'))
+		{
+			negative = data[pos++] == '-';
+		}
+
+		int start = pos;
+		long value = 0;
+
+		while (pos < tokenEnd && data[pos] >= '0' && data[pos] <= '9')
+		{
+			value = value * 10 + (data[pos++] - '0');
+
+			if (value > Integer.MAX_VALUE + 1L)
+			{
+				throw new NumberFormatException("Integer overflow");
+			}
+		}
+
+		if (pos == start)
+		{
+			throw new NumberFormatException("Missing digits");
+		}
+
+		value = negative ? -value : value;
+
+		if (value > Integer.MAX_VALUE)
+		{
+			throw new NumberFormatException("Integer overflow");
+		}
+
+		return (int) value;
+	}
+
+	/**
+	 * Whether there is a digit at the cursor
+	 * 
+	 * @return
+	 */
+	public boolean hasDigit()
+	{
+		return pos < tokenEnd && data[pos] >= '0' && data[pos] <= '9';
+	}
+
+	/**
+	 * Parse the rest of the current token as a float. Numbers with up to 15
+	 * significant digits and a small exponent are computed exactly in double
+	 * precision, and the others are left to Float.parseFloat
+	 * 
+	 * @return
+	 */
+	public float readFloat()
+	{
+		int start = pos;
+
+		boolean negative = false;
+
+		if (pos < tokenEnd && (data[pos] == '-' || data[pos] == '+'))
+		{
+			negative = data[pos++] == '-';
+		}
+
+		long mantissa = 0;
+		int digits = 0, exponent = 0;
+		boolean exact = true, hasDigits = false;
+
+		while (pos < tokenEnd && data[pos] >= '0' && data[pos] <= '9')
+		{
+			hasDigits = true;
+
+			if (mantissa != 0 || data[pos] != '0')
+			{
+				if (digits < MAX_DIGITS)
+				{
+					mantissa = mantissa * 10 + (data[pos] - '0');
+					++digits;
+				}
+				else
+				{
+					exact = false;
+				}
+			}
+
+			++pos;
+		}
+
+		if (pos < tokenEnd && data[pos] == '.')
+		{
+			++pos;
+
+			while (pos < tokenEnd && data[pos] >= '0' && data[pos] <= '9')
+			{
+				hasDigits = true;
+
+				if (mantissa != 0 || data[pos] != '0')
+				{
+					if (digits < MAX_DIGITS)
+					{
+						mantissa = mantissa * 10 + (data[pos] - '0');
+						++digits;
+					}
+					else
+					{
+						exact = false;
+					}
+				}
+
+				// Every digit after the point, even a leading zero, scales
+				// the mantissa down
+				--exponent;
+
+				++pos;
+			}
+		}
+
+		if (hasDigits && pos < tokenEnd
+				&& (data[pos] == 'e' || data[pos] == 'E'))
+		{
+			++pos;
+			exponent += readInt();
+		}
+
+		if (!hasDigits || pos < tokenEnd || !exact
+				|| exponent < -POWERS_OF_TEN.length + 1
+				|| exponent > POWERS_OF_TEN.length - 1)
+		{
+			// Leave special values, long numbers and malformed tokens to the
+			// library
+			pos = tokenEnd;
+			return Float.parseFloat(new String(data, start, tokenEnd - start,
+					UTF_8));
+		}
+
+		double value = mantissa;
+
+		if (exponent < 0)
+		{
+			value /= POWERS_OF_TEN[-exponent];
+		}
+		else
+		{
+			value *= POWERS_OF_TEN[exponent];
+		}
+
+		return (float) (negative ? -value : value);
+	}
+}
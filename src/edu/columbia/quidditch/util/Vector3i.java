@@ -1,19 +0,0 @@
-package edu.columbia.quidditch.util;
-
-/**
- * A vector of three integers
- * 
- * @author Yuqing Guan
- * 
- */
-public class Vector3i
-{
-	public int x, y, z;
-
-	public Vector3i(int x, int y, int z)
-	{
-		this.x = x;
-		this.y = y;
-		this.z = z;
-	}
-}
\ No newline at end of file